@@ -0,0 +1,63 @@
+package com.example.ai.analytics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rolling per-symbol statistics over several time windows: trade rate, volume, VWAP, windowed
+ * OLS slope of price over time, volatility of trade-to-trade log returns and an EWMA.
+ * Each symbol is locked on its own, so different symbols can be fed from different threads.
+ */
+public class AnalyticsEngine {
+
+    public static final long[] DEFAULT_WINDOWS_MS = {60_000, 300_000, 900_000};
+
+    private final long[] windowsMillis;
+    private final Map<String, SymbolSeries> series = new ConcurrentHashMap<>();
+
+    public AnalyticsEngine() {
+        this(DEFAULT_WINDOWS_MS);
+    }
+
+    public AnalyticsEngine(long[] windowsMillis) {
+        this.windowsMillis = windowsMillis.clone();
+    }
+
+    public void onTrade(String symbol, long timeMillis, double price, double quantity) {
+        SymbolSeries s = seriesFor(symbol);
+        synchronized (s) {
+            s.add(timeMillis, price, quantity);
+        }
+    }
+
+    public void onTrades(String symbol, long[] timesMillis, double[] prices, double[] quantities, int count) {
+        SymbolSeries s = seriesFor(symbol);
+        synchronized (s) {
+            for (int i = 0; i < count; i++) {
+                s.add(timesMillis[i], prices[i], quantities[i]);
+            }
+        }
+    }
+
+    public void clear() {
+        series.clear();
+    }
+
+    // Windows end at nowMillis, so a symbol that stopped trading ages out of them.
+    public Map<String, Object> snapshot(long nowMillis) {
+        Map<String, Object> result = new TreeMap<>();
+        series.forEach((symbol, s) -> {
+            synchronized (s) {
+                s.advanceTo(nowMillis);
+                result.put(symbol, s.snapshot());
+            }
+        });
+        return result;
+    }
+
+    private SymbolSeries seriesFor(String symbol) {
+        SymbolSeries s = series.get(symbol);
+        return s != null ? s : series.computeIfAbsent(symbol, k -> new SymbolSeries(windowsMillis));
+    }
+}
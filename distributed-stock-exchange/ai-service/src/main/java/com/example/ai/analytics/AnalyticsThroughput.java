@@ -0,0 +1,40 @@
+package com.example.ai.analytics;
+
+import java.util.SplittableRandom;
+
+// Single-threaded update rate of the analytics engine over a synthetic trade stream.
+// Usage: AnalyticsThroughput [trades=20000000] [symbols=100] [tradesPerSecond=10000]
+public class AnalyticsThroughput {
+
+    public static void main(String[] args) {
+        int trades = args.length > 0 ? Integer.parseInt(args[0]) : 20_000_000;
+        int symbolCount = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        double simulatedRate = args.length > 2 ? Double.parseDouble(args[2]) : 10_000;
+
+        String[] symbols = new String[symbolCount];
+        double[] prices = new double[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            symbols[i] = String.format("SYM%04d", i);
+            prices[i] = 100;
+        }
+        SplittableRandom random = new SplittableRandom(9);
+        AnalyticsEngine engine = new AnalyticsEngine();
+
+        long time = 0;
+        for (int round = 0; round < 2; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < trades; i++) {
+                int s = random.nextInt(symbolCount);
+                prices[s] = Math.max(1, prices[s] + (random.nextDouble() - 0.5) * 0.1);
+                if (i % 1000 == 0) time += (long) (1_000_000 / simulatedRate);
+                engine.onTrade(symbols[s], time, prices[s], 1 + random.nextInt(100));
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%s: %,d trades over %d symbols in %.2fs = %,.0f trades/s (%.0f ns/trade)%n",
+                    round == 0 ? "warm-up" : "measured", trades, symbolCount, elapsed / 1e9,
+                    trades * 1e9 / elapsed, (double) elapsed / trades);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        System.out.printf("heap in use: %,d bytes%n", runtime.totalMemory() - runtime.freeMemory());
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.ai.analytics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * One symbol's recent trades in primitive ring buffers, with running sums per time window.
+ * A trade is added to every window's sums and the trades that fall out of a window are
+ * subtracted again, so each update is O(1) amortized and allocates nothing once the ring has
+ * grown to the largest window's trade count. Times in a window's sums count from that window's own
+ * origin, moved up to its oldest trade once that is a window length old, so the slope's sums stay
+ * of the window's scale rather than growing with uptime.
+ */
+final class SymbolSeries {
+
+    private static final class Window {
+        final long lengthMillis;
+        long start;
+        long base;
+        long n;
+        double sumT, sumTT, sumP, sumTP, sumQ, sumPQ, sumR, sumRR;
+        double ewma = Double.NaN;
+
+        Window(long lengthMillis) {
+            this.lengthMillis = lengthMillis;
+        }
+
+        void add(double t, double p, double q, double r, int sign) {
+            n += sign;
+            sumT += sign * t;
+            sumTT += sign * t * t;
+            sumP += sign * p;
+            sumTP += sign * t * p;
+            sumQ += sign * q;
+            sumPQ += sign * p * q;
+            sumR += sign * r;
+            sumRR += sign * r * r;
+        }
+
+        double seconds(long time) {
+            return (time - base) / 1000.0;
+        }
+
+        // An empty window restarts from exact zeros, which also sheds accumulated rounding error.
+        void clearIfEmpty() {
+            if (n != 0) return;
+            sumT = sumTT = sumP = sumTP = sumQ = sumPQ = sumR = sumRR = 0;
+        }
+    }
+
+    private final Window[] windows;
+    private final int widest;
+    private long[] times = new long[256];
+    private double[] prices = new double[256];
+    private double[] quantities = new double[256];
+    private double[] returns = new double[256];
+    private int mask = 255;
+    private long head;
+    private long lastTime;
+    private double lastPrice = Double.NaN;
+    private long totalTrades;
+
+    SymbolSeries(long[] windowsMillis) {
+        this.windows = new Window[windowsMillis.length];
+        int widest = 0;
+        for (int i = 0; i < windowsMillis.length; i++) {
+            windows[i] = new Window(windowsMillis[i]);
+            if (windowsMillis[i] > windowsMillis[widest]) widest = i;
+        }
+        this.widest = widest;
+    }
+
+    void add(long timeMillis, double price, double quantity) {
+        if (totalTrades == 0) lastTime = timeMillis;
+        // Late trades are treated as happening now, so times in the ring stay ordered.
+        long time = Math.max(timeMillis, lastTime);
+        double r = Double.isNaN(lastPrice) || lastPrice <= 0 ? 0 : Math.log(price / lastPrice);
+        if (head - windows[widest].start == times.length) grow();
+        int i = (int) (head & mask);
+        times[i] = time;
+        prices[i] = price;
+        quantities[i] = quantity;
+        returns[i] = r;
+        head++;
+
+        for (Window w : windows) {
+            if (w.n == 0) w.base = time;
+            w.add(w.seconds(time), price, quantity, r, 1);
+            // Time-decayed EWMA with the window length as its time constant.
+            w.ewma = Double.isNaN(w.ewma) ? price
+                    : w.ewma + (1 - Math.exp(-(double) (time - lastTime) / w.lengthMillis)) * (price - w.ewma);
+        }
+        lastTime = time;
+        lastPrice = price;
+        totalTrades++;
+        advanceTo(time);
+    }
+
+    // Drops trades older than each window as of nowMillis.
+    void advanceTo(long nowMillis) {
+        for (Window w : windows) {
+            long cutoff = nowMillis - w.lengthMillis;
+            while (w.start < head) {
+                int i = (int) (w.start & mask);
+                if (times[i] > cutoff) break;
+                w.add(w.seconds(times[i]), prices[i], quantities[i], returns[i], -1);
+                w.start++;
+            }
+            w.clearIfEmpty();
+            if (w.n > 0 && times[(int) (w.start & mask)] - w.base > w.lengthMillis) rebase(w);
+        }
+    }
+
+    // Re-adds the window's trades from its oldest one; at most once per window length, so O(1) amortized.
+    private void rebase(Window w) {
+        w.base = times[(int) (w.start & mask)];
+        w.n = 0;
+        w.clearIfEmpty();
+        for (long seq = w.start; seq < head; seq++) {
+            int i = (int) (seq & mask);
+            w.add(w.seconds(times[i]), prices[i], quantities[i], returns[i], 1);
+        }
+    }
+
+    Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("lastPrice", lastPrice);
+        result.put("lastTradeTime", lastTime);
+        result.put("totalTrades", totalTrades);
+        Map<String, Object> byWindow = new LinkedHashMap<>();
+        for (Window w : windows) {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("trades", w.n);
+            stats.put("tradesPerSecond", w.n * 1000.0 / w.lengthMillis);
+            stats.put("volume", w.sumQ);
+            stats.put("vwap", w.sumQ > 0 ? w.sumPQ / w.sumQ : null);
+            stats.put("meanPrice", w.n > 0 ? w.sumP / w.n : null);
+            double denominator = w.n * w.sumTT - w.sumT * w.sumT;
+            stats.put("slopePerSecond", w.n >= 2 && denominator > 1e-12 ? (w.n * w.sumTP - w.sumT * w.sumP) / denominator : null);
+            stats.put("volatility", w.n >= 2 ? Math.sqrt(Math.max(0, (w.sumRR - w.sumR * w.sumR / w.n) / (w.n - 1))) : null);
+            stats.put("ewma", Double.isNaN(w.ewma) ? null : w.ewma);
+            byWindow.put(label(w.lengthMillis), stats);
+        }
+        result.put("windows", byWindow);
+        return result;
+    }
+
+    private void grow() {
+        int capacity = times.length * 2;
+        long[] newTimes = new long[capacity];
+        double[] newPrices = new double[capacity];
+        double[] newQuantities = new double[capacity];
+        double[] newReturns = new double[capacity];
+        int newMask = capacity - 1;
+        for (long seq = windows[widest].start; seq < head; seq++) {
+            int from = (int) (seq & mask);
+            int to = (int) (seq & newMask);
+            newTimes[to] = times[from];
+            newPrices[to] = prices[from];
+            newQuantities[to] = quantities[from];
+            newReturns[to] = returns[from];
+        }
+        times = newTimes;
+        prices = newPrices;
+        quantities = newQuantities;
+        returns = newReturns;
+        mask = newMask;
+    }
+
+    static String label(long millis) {
+        if (millis % 3_600_000 == 0) return millis / 3_600_000 + "h";
+        if (millis % 60_000 == 0) return millis / 60_000 + "m";
+        if (millis % 1000 == 0) return millis / 1000 + "s";
+        return millis + "ms";
+    }
+}
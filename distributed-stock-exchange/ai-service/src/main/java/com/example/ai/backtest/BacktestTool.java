@@ -0,0 +1,111 @@
+package com.example.ai.backtest;
+
+import com.example.ai.service.TradeBatch;
+import com.fasterxml.jackson.core.JsonFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+public class BacktestTool {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: BacktestTool generate <file> [trades=20000000] [symbols=50] [seed=1]");
+            System.out.println("       BacktestTool import <trades.json> <file>");
+            System.out.println("       BacktestTool run <file> [horizon=10] [threads=cores]");
+            System.exit(1);
+        }
+        switch (args[0]) {
+            case "generate" -> generate(Path.of(args[1]),
+                    args.length > 2 ? Integer.parseInt(args[2]) : 20_000_000,
+                    args.length > 3 ? Integer.parseInt(args[3]) : 50,
+                    args.length > 4 ? Long.parseLong(args[4]) : 1);
+            case "import" -> importJson(Path.of(args[1]), Path.of(args[2]));
+            case "run" -> run(Path.of(args[1]),
+                    args.length > 2 ? Integer.parseInt(args[2]) : 10,
+                    args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors());
+            default -> throw new IllegalArgumentException("Unknown command: " + args[0]);
+        }
+    }
+
+    // Random walks with persistent drift regimes, so trend rules have something to find.
+    private static void generate(Path path, int trades, int symbolCount, long seed) throws IOException {
+        String[] symbols = new String[symbolCount];
+        int[] counts = new int[symbolCount];
+        for (int s = 0; s < symbolCount; s++) {
+            symbols[s] = String.format("SYM%03d", s);
+            counts[s] = trades / symbolCount + (s < trades % symbolCount ? 1 : 0);
+        }
+        SplittableRandom root = new SplittableRandom(seed);
+        long start = System.nanoTime();
+        try (TradeColumnsFile file = TradeColumnsFile.create(path, symbols, counts)) {
+            for (int s = 0; s < symbolCount; s++) {
+                SplittableRandom random = root.split();
+                double price = 50 + random.nextDouble() * 450;
+                double drift = 0;
+                long time = 0;
+                for (int i = 0; i < counts[s]; i++) {
+                    if (random.nextInt(5_000) == 0) drift = (random.nextDouble() - 0.5) * 0.00004;
+                    price *= Math.exp(drift + 0.001 * random.nextGaussian());
+                    time += 1 + random.nextInt(200);
+                    file.set(file.index(s, i), time, Math.round(price * 100) / 100.0, 1 + random.nextInt(100));
+                }
+            }
+        }
+        System.out.printf("Wrote %,d trades over %d symbols to %s (%,d bytes) in %.1fs%n",
+                trades, symbolCount, path, Files.size(path), (System.nanoTime() - start) / 1e9);
+    }
+
+    // Converts a saved GET /api/trades response.
+    private static void importJson(Path json, Path path) throws IOException {
+        TradeBatch batch;
+        try (InputStream in = Files.newInputStream(json)) {
+            batch = TradeBatch.parse(new JsonFactory(), in, 0);
+        }
+        List<Map.Entry<String, TradeBatch.Column>> columns = new ArrayList<>(batch.bySymbol().entrySet());
+        String[] symbols = new String[columns.size()];
+        int[] counts = new int[columns.size()];
+        for (int s = 0; s < symbols.length; s++) {
+            symbols[s] = columns.get(s).getKey();
+            counts[s] = columns.get(s).getValue().size();
+        }
+        try (TradeColumnsFile file = TradeColumnsFile.create(path, symbols, counts)) {
+            for (int s = 0; s < symbols.length; s++) {
+                TradeBatch.Column column = columns.get(s).getValue();
+                for (int i = 0; i < column.size(); i++) {
+                    file.set(file.index(s, i), column.timestamps()[i], column.prices()[i], column.quantities()[i]);
+                }
+            }
+        }
+        System.out.printf("Imported %,d trades over %d symbols into %s%n", batch.size(), symbols.length, path);
+    }
+
+    private static void run(Path path, int horizon, int threads) throws IOException {
+        try (TradeColumnsFile data = TradeColumnsFile.open(path)) {
+            List<Backtester.Strategy> grid = Backtester.defaultGrid();
+            System.out.printf("Backtesting %d configurations over %,d trades in %d symbols (horizon %d trades, %d threads)%n",
+                    grid.size(), data.tradeCount(), data.symbolCount(), horizon, threads);
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            long start = System.nanoTime();
+            List<Backtester.Result> results = Backtester.run(data, grid, horizon, pool);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            pool.shutdown();
+
+            results.sort(Comparator.comparingDouble(Backtester.Result::pnl).reversed());
+            System.out.printf("%-40s %12s %9s %14s %12s%n", "configuration", "signals", "hit rate", "PnL", "flips");
+            for (Backtester.Result r : results) {
+                System.out.printf("%-40s %,12d %8.2f%% %,14.2f %,12d%n",
+                        r.strategy, r.signals(), r.hitRate() * 100, r.pnl(), r.positionChanges());
+            }
+            System.out.printf("%.2fs, %,.0f trade-evaluations/s%n", seconds, data.tradeCount() * grid.size() / seconds);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.ai.backtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Replays every symbol of a {@link TradeColumnsFile} through every strategy of a parameter grid.
+ * Each (strategy, symbol) pair is an independent fork/join leaf reading its slice of the mapped columns.
+ * A strategy holds its signal as a one-unit position and is marked to market trade by trade; a BUY or
+ * SELL signal counts as a hit when the price horizon trades later moved its way.
+ */
+public final class Backtester {
+
+    public record Strategy(String name, Supplier<SignalModel> factory) {}
+
+    public static final class Result {
+        public final String strategy;
+        long signals;
+        long hits;
+        long positionChanges;
+        double pnl;
+
+        Result(String strategy) {
+            this.strategy = strategy;
+        }
+
+        void add(Result other) {
+            signals += other.signals;
+            hits += other.hits;
+            positionChanges += other.positionChanges;
+            pnl += other.pnl;
+        }
+
+        public long signals() { return signals; }
+        public long hits() { return hits; }
+        public long positionChanges() { return positionChanges; }
+        public double pnl() { return pnl; }
+        public double hitRate() { return signals == 0 ? 0 : (double) hits / signals; }
+    }
+
+    private Backtester() {
+    }
+
+    public static List<Strategy> defaultGrid() {
+        List<Strategy> grid = new ArrayList<>();
+        for (int window : new int[]{0, 50, 200, 1000}) {
+            for (double threshold : new double[]{0.001, 0.005, 0.01, 0.02}) {
+                grid.add(new Strategy(String.format("regression window=%d threshold=%.1f%%", window, threshold * 100),
+                        () -> new SignalModel.Regression(window, threshold)));
+            }
+        }
+        for (int fast : new int[]{5, 10, 20}) {
+            for (int slow : new int[]{50, 100, 200}) {
+                grid.add(new Strategy(String.format("crossover fast=%d slow=%d", fast, slow),
+                        () -> new SignalModel.Crossover(fast, slow)));
+            }
+        }
+        for (int lookback : new int[]{10, 50, 200}) {
+            for (double threshold : new double[]{0.001, 0.005, 0.01}) {
+                grid.add(new Strategy(String.format("momentum lookback=%d threshold=%.1f%%", lookback, threshold * 100),
+                        () -> new SignalModel.Momentum(lookback, threshold)));
+            }
+        }
+        return grid;
+    }
+
+    // One result per strategy, in grid order, summed over all symbols.
+    public static List<Result> run(TradeColumnsFile data, List<Strategy> grid, int horizon, ForkJoinPool pool) {
+        int symbols = data.symbolCount();
+        Result[] perJob = new Result[grid.size() * symbols];
+        if (perJob.length > 0) pool.invoke(new Jobs(data, grid, horizon, perJob, 0, perJob.length));
+
+        List<Result> results = new ArrayList<>(grid.size());
+        for (int g = 0; g < grid.size(); g++) {
+            Result total = new Result(grid.get(g).name());
+            for (int s = 0; s < symbols; s++) {
+                total.add(perJob[g * symbols + s]);
+            }
+            results.add(total);
+        }
+        return results;
+    }
+
+    static Result evaluate(TradeColumnsFile data, int symbol, Strategy strategy, int horizon) {
+        Result result = new Result(strategy.name());
+        SignalModel model = strategy.factory().get();
+        int count = data.count(symbol);
+        int base = data.index(symbol, 0);
+        int position = 0;
+        double previous = 0;
+        for (int i = 0; i < count; i++) {
+            double price = data.price(base + i);
+            if (i > 0) result.pnl += position * (price - previous);
+            int signal = model.onPrice(price);
+            if (signal != 0) {
+                if (i + horizon < count) {
+                    double future = data.price(base + i + horizon);
+                    result.signals++;
+                    if (signal > 0 ? future > price : future < price) result.hits++;
+                }
+                if (signal != position) {
+                    position = signal;
+                    result.positionChanges++;
+                }
+            }
+            previous = price;
+        }
+        return result;
+    }
+
+    private static final class Jobs extends RecursiveAction {
+        private final TradeColumnsFile data;
+        private final List<Strategy> grid;
+        private final int horizon;
+        private final Result[] results;
+        private final int from;
+        private final int to;
+
+        Jobs(TradeColumnsFile data, List<Strategy> grid, int horizon, Result[] results, int from, int to) {
+            this.data = data;
+            this.grid = grid;
+            this.horizon = horizon;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 0) return;
+            if (to - from == 1) {
+                int symbols = data.symbolCount();
+                results[from] = evaluate(data, from % symbols, grid.get(from / symbols), horizon);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Jobs(data, grid, horizon, results, from, mid), new Jobs(data, grid, horizon, results, mid, to));
+        }
+    }
+}
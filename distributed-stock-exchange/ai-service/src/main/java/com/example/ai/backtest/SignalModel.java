@@ -0,0 +1,108 @@
+package com.example.ai.backtest;
+
+/**
+ * A trading rule fed one symbol's prices in order. Returns +1 to be long, -1 to be short and 0 to keep
+ * whatever position it had. Instances are stateful and used by a single thread for a single symbol.
+ */
+public interface SignalModel {
+
+    int onPrice(double price);
+
+    /**
+     * The /analyze rule: least-squares line of price over trade index, predicting the next trade's price.
+     * A prediction more than threshold above (below) the last price is STRONG BUY (PANIC SELL), else HOLD.
+     * window = 0 regresses over the whole history like the live service, otherwise over the last window trades.
+     */
+    final class Regression implements SignalModel {
+        private final double threshold;
+        private final double[] ring;
+        private long n;
+        private double sumX, sumY, sumXY, sumXX;
+
+        public Regression(int window, double threshold) {
+            this.threshold = threshold;
+            this.ring = window > 0 ? new double[window] : null;
+        }
+
+        @Override
+        public int onPrice(double price) {
+            double x = n;
+            if (ring != null && n >= ring.length) {
+                // Drop the trade leaving the window; its x is n - window.
+                double oldX = n - ring.length;
+                double oldY = ring[(int) (n % ring.length)];
+                sumX -= oldX;
+                sumY -= oldY;
+                sumXY -= oldX * oldY;
+                sumXX -= oldX * oldX;
+            }
+            if (ring != null) ring[(int) (n % ring.length)] = price;
+            sumX += x;
+            sumY += price;
+            sumXY += x * price;
+            sumXX += x * x;
+            n++;
+
+            long m = ring != null ? Math.min(n, ring.length) : n;
+            if (m < 2) return 0;
+            double slope = (m * sumXY - sumX * sumY) / (m * sumXX - sumX * sumX);
+            double intercept = (sumY - slope * sumX) / m;
+            double prediction = slope * n + intercept;
+            if (prediction > price * (1 + threshold)) return 1;
+            if (prediction < price * (1 - threshold)) return -1;
+            return 0;
+        }
+    }
+
+    // Long while the fast simple moving average is above the slow one, short while below.
+    final class Crossover implements SignalModel {
+        private final double[] ring;
+        private final int fast;
+        private long n;
+        private double fastSum, slowSum;
+
+        public Crossover(int fast, int slow) {
+            this.fast = fast;
+            this.ring = new double[slow];
+        }
+
+        @Override
+        public int onPrice(double price) {
+            int slow = ring.length;
+            if (n >= fast) fastSum -= ring[(int) ((n - fast) % slow)];
+            if (n >= slow) slowSum -= ring[(int) (n % slow)];
+            ring[(int) (n % slow)] = price;
+            fastSum += price;
+            slowSum += price;
+            n++;
+            if (n < slow) return 0;
+            double difference = fastSum / fast - slowSum / slow;
+            return difference > 0 ? 1 : difference < 0 ? -1 : 0;
+        }
+    }
+
+    // Follows the return over the last lookback trades once it exceeds threshold either way.
+    final class Momentum implements SignalModel {
+        private final double threshold;
+        private final double[] ring;
+        private long n;
+
+        public Momentum(int lookback, double threshold) {
+            this.threshold = threshold;
+            this.ring = new double[lookback];
+        }
+
+        @Override
+        public int onPrice(double price) {
+            int slot = (int) (n % ring.length);
+            double past = ring[slot];
+            ring[slot] = price;
+            n++;
+            if (n <= ring.length) return 0;
+            double change = price / past - 1;
+            if (change > threshold) return 1;
+            if (change < -threshold) return -1;
+            return 0;
+        }
+    }
+}
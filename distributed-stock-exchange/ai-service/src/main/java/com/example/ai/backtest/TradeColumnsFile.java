@@ -0,0 +1,146 @@
+package com.example.ai.backtest;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Recorded trades as a memory-mapped columnar file. Trades are grouped by symbol, and each column
+ * (timestamps, prices, quantities) is one contiguous little-endian array, so a symbol's history is a
+ * slice [offset, offset + count) of each column and is paged in by the OS rather than read onto the heap.
+ *
+ * <pre>
+ * int magic, int version, int symbolCount, long tradeCount
+ * symbolCount x (short nameLength, UTF-8 name, long offset, int count)
+ * padding to 8 bytes, long timestamps[tradeCount], double prices[tradeCount], double quantities[tradeCount]
+ * </pre>
+ * Each column is mapped on its own, which caps a file at 2^28 trades.
+ */
+public final class TradeColumnsFile implements AutoCloseable {
+
+    private static final int MAGIC = 0x54524443; // "TRDC"
+    private static final int VERSION = 1;
+    private static final long MAX_TRADES = Integer.MAX_VALUE / 8;
+
+    private final RandomAccessFile file;
+    private final String[] symbols;
+    private final long[] offsets;
+    private final int[] counts;
+    private final long tradeCount;
+    private final LongBuffer timestamps;
+    private final DoubleBuffer prices;
+    private final DoubleBuffer quantities;
+
+    private TradeColumnsFile(RandomAccessFile file, String[] symbols, long[] offsets, int[] counts,
+                             long dataStart, FileChannel.MapMode mode) throws IOException {
+        this.file = file;
+        this.symbols = symbols;
+        this.offsets = offsets;
+        this.counts = counts;
+        long total = 0;
+        for (int count : counts) total += count;
+        if (total > MAX_TRADES) throw new IOException("Too many trades for one file: " + total);
+        this.tradeCount = total;
+        FileChannel channel = file.getChannel();
+        long columnBytes = total * 8;
+        this.timestamps = map(channel, mode, dataStart, columnBytes).asLongBuffer();
+        this.prices = map(channel, mode, dataStart + columnBytes, columnBytes).asDoubleBuffer();
+        this.quantities = map(channel, mode, dataStart + 2 * columnBytes, columnBytes).asDoubleBuffer();
+    }
+
+    // Lays out an empty file for the given per-symbol trade counts; fill it with set().
+    public static TradeColumnsFile create(Path path, String[] symbols, int[] counts) throws IOException {
+        byte[][] names = new byte[symbols.length][];
+        long headerBytes = 4 + 4 + 4 + 8;
+        long total = 0;
+        for (int i = 0; i < symbols.length; i++) {
+            names[i] = symbols[i].getBytes(StandardCharsets.UTF_8);
+            headerBytes += 2 + names[i].length + 8 + 4;
+            total += counts[i];
+        }
+        long dataStart = (headerBytes + 7) & ~7L;
+
+        ByteBuffer header = ByteBuffer.allocate((int) headerBytes).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putInt(symbols.length).putLong(total);
+        long[] offsets = new long[symbols.length];
+        long offset = 0;
+        for (int i = 0; i < symbols.length; i++) {
+            offsets[i] = offset;
+            header.putShort((short) names[i].length).put(names[i]).putLong(offset).putInt(counts[i]);
+            offset += counts[i];
+        }
+
+        RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw");
+        file.setLength(0);
+        file.setLength(dataStart + total * 8 * 3);
+        file.getChannel().write(header.flip(), 0);
+        return new TradeColumnsFile(file, symbols.clone(), offsets, counts.clone(), dataStart, FileChannel.MapMode.READ_WRITE);
+    }
+
+    public static TradeColumnsFile open(Path path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path.toFile(), "r");
+        try {
+            FileChannel channel = file.getChannel();
+            ByteBuffer fixed = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+            channel.read(fixed, 0);
+            fixed.flip();
+            if (fixed.remaining() < 20 || fixed.getInt() != MAGIC) throw new IOException("Not a trade columns file: " + path);
+            int version = fixed.getInt();
+            if (version != VERSION) throw new IOException("Unsupported trade columns version " + version);
+            int symbolCount = fixed.getInt();
+            fixed.getLong();
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 20, Math.min(channel.size() - 20, Integer.MAX_VALUE)).order(ByteOrder.LITTLE_ENDIAN);
+            String[] symbols = new String[symbolCount];
+            long[] offsets = new long[symbolCount];
+            int[] counts = new int[symbolCount];
+            for (int i = 0; i < symbolCount; i++) {
+                byte[] name = new byte[header.getShort()];
+                header.get(name);
+                symbols[i] = new String(name, StandardCharsets.UTF_8);
+                offsets[i] = header.getLong();
+                counts[i] = header.getInt();
+            }
+            long dataStart = (20 + header.position() + 7) & ~7L;
+            return new TradeColumnsFile(file, symbols, offsets, counts, dataStart, FileChannel.MapMode.READ_ONLY);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    public int symbolCount() { return symbols.length; }
+    public String symbol(int s) { return symbols[s]; }
+    public int count(int s) { return counts[s]; }
+    public long tradeCount() { return tradeCount; }
+
+    // Index into the columns of a symbol's i-th trade.
+    public int index(int s, int i) {
+        return (int) (offsets[s] + i);
+    }
+
+    public long timestamp(int index) { return timestamps.get(index); }
+    public double price(int index) { return prices.get(index); }
+    public double quantity(int index) { return quantities.get(index); }
+
+    public void set(int index, long timestamp, double price, double quantity) {
+        timestamps.put(index, timestamp);
+        prices.put(index, price);
+        quantities.put(index, quantity);
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+
+    private static ByteBuffer map(FileChannel channel, FileChannel.MapMode mode, long position, long size) throws IOException {
+        return channel.map(mode, position, size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
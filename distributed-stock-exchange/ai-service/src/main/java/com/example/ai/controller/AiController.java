@@ -1,26 +1,61 @@
 package com.example.ai.controller;
 
 import com.example.ai.service.AiAnalyzer;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.util.Map;
+
 @RestController
 @CrossOrigin(origins = "*")
 public class AiController {
 
-    private final AiAnalyzer analyzer = new AiAnalyzer();
+    private final AiAnalyzer analyzer;
     private final String defaultExchangeUrl;
 
-    public AiController(@Value("${AI_EXCHANGE_URL:${ai.exchange.url:http://localhost:8080/api/trades}}") String defaultExchangeUrl) {
+    public AiController(@Value("${AI_EXCHANGE_URL:${ai.exchange.url:http://localhost:8080/api/trades}}") String defaultExchangeUrl,
+                        @Value("${ai.poll-interval-ms:1000}") long pollIntervalMs,
+                        @Value("${ai.cache.ttl-ms:1000}") long cacheTtlMs,
+                        @Value("${ai.cache.max-entries:64}") int cacheMaxEntries) {
         this.defaultExchangeUrl = defaultExchangeUrl;
+        this.analyzer = new AiAnalyzer(cacheTtlMs, cacheMaxEntries);
+        analyzer.startPolling(defaultExchangeUrl, pollIntervalMs);
     }
 
+    // A caller's X-Trace-Id is passed on to the exchange and echoed back, and the call is timed in the log.
     @GetMapping("/analyze")
-    public String analyze(@RequestParam(value = "exchangeUrl", required = false) String exchangeUrl) {
-        String urlToUse = (exchangeUrl == null || exchangeUrl.isBlank()) ? defaultExchangeUrl : exchangeUrl;
-        return analyzer.analyzeFromExchange(urlToUse);
+    public String analyze(@RequestParam(value = "exchangeUrl", required = false) String exchangeUrl,
+                          @RequestHeader(value = "X-Trace-Id", required = false) String traceId,
+                          HttpServletResponse response) {
+        if (traceId == null || traceId.isBlank()) {
+            return analyzer.analyzeFromExchange(urlOrDefault(exchangeUrl));
+        }
+        long start = System.nanoTime();
+        response.setHeader("X-Trace-Id", traceId);
+        String result = analyzer.analyzeFromExchange(urlOrDefault(exchangeUrl), traceId);
+        System.out.printf("[trace %s] /analyze took %.2f ms%n", traceId, (System.nanoTime() - start) / 1e6);
+        return result;
+    }
+
+    @GetMapping("/analyze/cache")
+    public Map<String, Object> cacheMetrics() {
+        return analyzer.cacheMetrics();
+    }
+
+    // Rolling 1m/5m/15m statistics per symbol as JSON.
+    @GetMapping("/analytics")
+    public Map<String, Object> analytics(@RequestParam(value = "exchangeUrl", required = false) String exchangeUrl)
+            throws IOException, InterruptedException {
+        return analyzer.analyticsFromExchange(urlOrDefault(exchangeUrl));
+    }
+
+    private String urlOrDefault(String exchangeUrl) {
+        return (exchangeUrl == null || exchangeUrl.isBlank()) ? defaultExchangeUrl : exchangeUrl;
     }
 }
@@ -1,92 +1,126 @@
 package com.example.ai.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
-import java.net.URI;
 import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class AiAnalyzer {
 
+    private static final int MAX_FEEDS = 16;
+    private static final int PARALLEL_SYMBOLS = 64;
+
     private final HttpClient client = HttpClient.newHttpClient();
     private final ObjectMapper mapper = new ObjectMapper();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "TradeFeedPoller");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // One resident feed per exchange URL; the least recently used one goes when there are too many.
+    private final Map<String, TradeFeed> feeds = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TradeFeed> eldest) {
+            return size() > MAX_FEEDS;
+        }
+    });
 
-    public String analyzeFromExchange(String exchangeTradesUrl) {
-        try {
+    private final AnalysisCache cache;
 
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(exchangeTradesUrl))
-                    .GET()
-                    .build();
+    public AiAnalyzer() {
+        this(1000, 64);
+    }
 
-            HttpResponse<String> resp = client.send(request, HttpResponse.BodyHandlers.ofString());
-            List<Map<String, Object>> trades = mapper.readValue(resp.body(), new TypeReference<>() {});
+    public AiAnalyzer(long cacheTtlMillis, int cacheMaxEntries) {
+        this.cache = new AnalysisCache(cacheTtlMillis, cacheMaxEntries);
+    }
 
-            return performMachineLearningAnalysis(trades);
+    public String analyzeFromExchange(String exchangeTradesUrl) {
+        return analyzeFromExchange(exchangeTradesUrl, null);
+    }
 
+    public String analyzeFromExchange(String exchangeTradesUrl, String traceId) {
+        try {
+            return cache.get(exchangeTradesUrl, feed(exchangeTradesUrl), traceId);
         } catch (IOException | InterruptedException e) {
             e.printStackTrace();
             return "AI Service Error: " + e.getMessage();
         }
     }
 
-    private String performMachineLearningAnalysis(List<Map<String, Object>> trades) {
-        if (trades == null || trades.isEmpty()) return "Nu există date suficiente pentru antrenare.";
-
-        StringBuilder sb = new StringBuilder();
-        sb.append("🤖 AI PREDICTION (Linear Regression Model):\n");
-
-
-        Map<String, List<Map<String, Object>>> tradesBySymbol = trades.stream()
-                .collect(Collectors.groupingBy(t -> (String) t.get("stockSymbol")));
+    public Map<String, Object> cacheMetrics() {
+        return cache.metrics();
+    }
 
-        tradesBySymbol.forEach((symbol, symbolTrades) -> {
+    public Map<String, Object> analyticsFromExchange(String exchangeTradesUrl) throws IOException, InterruptedException {
+        TradeFeed feed = feed(exchangeTradesUrl);
+        feed.catchUp();
+        return feed.analytics();
+    }
 
-            if (symbolTrades.size() < 2) {
-                sb.append(String.format("• %s: Date insuficiente (%d tranzacție)\n", symbol, symbolTrades.size()));
-                return;
+    // Keeps the feed for this exchange warm between /analyze calls.
+    public void startPolling(String exchangeTradesUrl, long intervalMs) {
+        if (intervalMs <= 0) return;
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                feed(exchangeTradesUrl).catchUp();
+            } catch (IOException | InterruptedException e) {
+                // The exchange may not be up yet; the next poll retries.
             }
+        }, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
 
+    private TradeFeed feed(String exchangeTradesUrl) {
+        synchronized (feeds) {
+            return feeds.computeIfAbsent(exchangeTradesUrl, url -> new TradeFeed(url, client, mapper.getFactory()));
+        }
+    }
 
+    static String describe(Map<String, TradeFeed.SymbolModel> models) {
+        if (models.isEmpty()) return "Nu există date suficiente pentru antrenare.";
 
-            List<Double> prices = symbolTrades.stream()
-                    .map(t -> ((Number) t.get("price")).doubleValue())
-                    .collect(Collectors.toList());
-
+        // Symbols are rendered independently; the ordered stream keeps them in map order.
+        Stream<Map.Entry<String, TradeFeed.SymbolModel>> symbols = models.entrySet().stream();
+        if (models.size() >= PARALLEL_SYMBOLS) symbols = symbols.parallel();
+        return "🤖 AI PREDICTION (Linear Regression Model):\n"
+                + symbols.map(e -> describe(e.getKey(), e.getValue())).collect(Collectors.joining());
+    }
 
-            SimpleRegression model = new SimpleRegression();
-            for (int i = 0; i < prices.size(); i++) {
-                model.addData(i, prices.get(i));
-            }
+    private static String describe(String symbol, TradeFeed.SymbolModel symbolModel) {
+        if (symbolModel.count < 2) {
+            return String.format("• %s: Date insuficiente (%d tranzacție)\n", symbol, symbolModel.count);
+        }
 
-            double currentPrice = prices.get(prices.size() - 1);
-            double slope = model.getSlope();
+        SimpleRegression model = symbolModel.regression;
+        double currentPrice = symbolModel.lastPrice;
+        double slope = model.getSlope();
 
 
-            double nextPricePrediction = model.predict(prices.size());
+        double nextPricePrediction = model.predict(symbolModel.count);
 
 
-            double trendStrength = Math.abs(slope) * 100;
+        double trendStrength = Math.abs(slope) * 100;
 
-            String emoji = slope > 0 ? "📈" : (slope < 0 ? "📉" : "➡️");
-            String advice = "";
+        String emoji = slope > 0 ? "📈" : (slope < 0 ? "📉" : "➡️");
+        String advice = "";
 
-            if (nextPricePrediction > currentPrice * 1.01) advice = "STRONG BUY (Creștere așteptată)";
-            else if (nextPricePrediction < currentPrice * 0.99) advice = "PANIC SELL (Scădere așteptată)";
-            else advice = "HOLD (Piață stabilă)";
+        if (nextPricePrediction > currentPrice * 1.01) advice = "STRONG BUY (Creștere așteptată)";
+        else if (nextPricePrediction < currentPrice * 0.99) advice = "PANIC SELL (Scădere așteptată)";
+        else advice = "HOLD (Piață stabilă)";
 
-            sb.append(String.format("• %s %s\n", symbol, emoji));
-            sb.append(String.format("  - Preț actual: $%.2f\n", currentPrice));
-            sb.append(String.format("  - Predicție AI: $%.2f (Panta: %.4f)\n", nextPricePrediction, slope));
-            sb.append(String.format("  - Sfat: %s\n\n", advice));
-        });
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("• %s %s\n", symbol, emoji));
+        sb.append(String.format("  - Preț actual: $%.2f\n", currentPrice));
+        sb.append(String.format("  - Predicție AI: $%.2f (Panta: %.4f)\n", nextPricePrediction, slope));
+        sb.append(String.format("  - Sfat: %s\n\n", advice));
 
         return sb.toString();
     }
@@ -0,0 +1,116 @@
+package com.example.ai.service;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rendered /analyze results per exchange URL, tagged with the trade sequence they were rendered at.
+ * Within the TTL a result is served without touching the exchange; after it the feed is caught up and
+ * the text is only re-rendered if the sequence moved. Concurrent requests for the same URL share one
+ * in-flight refresh, and the least recently used URL is dropped beyond maxEntries.
+ */
+class AnalysisCache {
+
+    private record Entry(long epoch, long sequence, String result, long checkedAtMillis) {}
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final Map<String, Entry> entries;
+    private final Map<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidated = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    AnalysisCache(long ttlMillis, int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= AnalysisCache.this.maxEntries) return false;
+                evictions.increment();
+                return true;
+            }
+        };
+    }
+
+    String get(String url, TradeFeed feed, String traceId) throws IOException, InterruptedException {
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(url);
+        }
+        if (cached != null && System.currentTimeMillis() - cached.checkedAtMillis < ttlMillis) {
+            hits.increment();
+            return cached.result;
+        }
+
+        CompletableFuture<String> mine = new CompletableFuture<>();
+        CompletableFuture<String> running = inFlight.putIfAbsent(url, mine);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        try {
+            String result = refresh(url, feed, cached, traceId);
+            mine.complete(result);
+            return result;
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(url, mine);
+        }
+    }
+
+    Map<String, Object> metrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("hits", hits.sum());
+        metrics.put("revalidated", revalidated.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("coalesced", coalesced.sum());
+        metrics.put("evictions", evictions.sum());
+        synchronized (entries) {
+            metrics.put("entries", entries.size());
+        }
+        metrics.put("ttlMs", ttlMillis);
+        metrics.put("maxEntries", maxEntries);
+        return metrics;
+    }
+
+    private String refresh(String url, TradeFeed feed, Entry cached, String traceId) throws IOException, InterruptedException {
+        feed.catchUp(traceId);
+        // Sequence before render: if the poller slips trades in between, the next refresh renders again.
+        long epoch = feed.getEpoch();
+        long sequence = feed.getCursor();
+        String result;
+        if (cached != null && cached.epoch == epoch && cached.sequence == sequence) {
+            revalidated.increment();
+            result = cached.result;
+        } else {
+            misses.increment();
+            result = feed.render();
+        }
+        synchronized (entries) {
+            entries.put(url, new Entry(epoch, sequence, result, System.currentTimeMillis()));
+        }
+        return result;
+    }
+
+    private static String await(CompletableFuture<String> running) throws IOException, InterruptedException {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            if (e.getCause() instanceof InterruptedException ie) throw ie;
+            throw e;
+        }
+    }
+}
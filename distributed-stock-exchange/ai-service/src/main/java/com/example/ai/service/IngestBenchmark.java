@@ -0,0 +1,85 @@
+package com.example.ai.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.ThreadMXBean;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.SplittableRandom;
+
+// Full-history ingestion of a synthetic /api/trades payload: the old String + List<Map> + sequential path
+// against streaming parse into columns + parallel per-symbol fitting.
+// Usage: IngestBenchmark [trades=3000000] [symbols=200] [rounds=5]
+public class IngestBenchmark {
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws IOException {
+        int trades = args.length > 0 ? Integer.parseInt(args[0]) : 3_000_000;
+        int symbols = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        byte[] payload = payload(trades, symbols);
+        System.out.printf("payload: %,d trades over %d symbols, %,d bytes, %d cores%n",
+                trades, symbols, payload.length, Runtime.getRuntime().availableProcessors());
+        ObjectMapper mapper = new ObjectMapper();
+
+        for (int round = 1; round <= rounds; round++) {
+            long allocated = THREADS.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            String boxed = boxed(mapper, payload);
+            long boxedNanos = System.nanoTime() - start;
+            long boxedBytes = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+
+            allocated = THREADS.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            TradeFeed feed = new TradeFeed("http://benchmark/api/trades", null, mapper.getFactory());
+            feed.ingest(new ByteArrayInputStream(payload), OptionalLong.empty());
+            String streamed = feed.render();
+            long streamedNanos = System.nanoTime() - start;
+            long streamedBytes = THREADS.getCurrentThreadAllocatedBytes() - allocated;
+
+            if (!boxed.equals(streamed)) throw new IllegalStateException("Outputs differ");
+            System.out.printf("round %d: boxed %,d ms (%,d MB allocated), streaming %,d ms (%,d MB allocated on caller)%n",
+                    round, boxedNanos / 1_000_000, boxedBytes >> 20, streamedNanos / 1_000_000, streamedBytes >> 20);
+        }
+    }
+
+    // The pre-streaming path: whole body as a String, bound to boxed maps, folded on one thread.
+    private static String boxed(ObjectMapper mapper, byte[] payload) throws IOException {
+        String body = new String(payload, StandardCharsets.UTF_8);
+        List<Map<String, Object>> trades = mapper.readValue(body, new TypeReference<>() {});
+        Map<String, TradeFeed.SymbolModel> models = new LinkedHashMap<>();
+        for (Map<String, Object> trade : trades) {
+            models.computeIfAbsent((String) trade.get("stockSymbol"), symbol -> new TradeFeed.SymbolModel())
+                    .add(((Number) trade.get("price")).doubleValue());
+        }
+        return AiAnalyzer.describe(models);
+    }
+
+    private static byte[] payload(int trades, int symbols) {
+        SplittableRandom random = new SplittableRandom(7);
+        double[] prices = new double[symbols];
+        Arrays.fill(prices, 100);
+        StringBuilder sb = new StringBuilder(trades * 110).append('[');
+        for (int i = 0; i < trades; i++) {
+            int s = random.nextInt(symbols);
+            prices[s] = Math.max(1, prices[s] + (random.nextDouble() - 0.5) * 0.2);
+            if (i > 0) sb.append(',');
+            sb.append("{\"stockSymbol\":\"SYM").append(s)
+                    .append("\",\"quantity\":").append(1 + random.nextInt(100))
+                    .append(",\"price\":").append(Math.round(prices[s] * 100) / 100.0)
+                    .append(",\"buyerId\":\"Trader-").append(random.nextInt(1000))
+                    .append("\",\"sellerId\":\"Trader-").append(random.nextInt(1000)).append("\"}");
+        }
+        return sb.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.ai.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A JSON (or CBOR) array of trades parsed token by token straight from the response stream into
+ * per-symbol primitive columns, so no tree, map or boxed number is built per trade.
+ */
+public final class TradeBatch {
+
+    public static final class Column {
+        int size;
+        double[] prices = new double[64];
+        double[] quantities = new double[64];
+        long[] timestamps = new long[64];
+
+        void add(double price, double quantity, long timestamp) {
+            if (size == prices.length) {
+                prices = Arrays.copyOf(prices, size * 2);
+                quantities = Arrays.copyOf(quantities, size * 2);
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+            }
+            prices[size] = price;
+            quantities[size] = quantity;
+            timestamps[size] = timestamp;
+            size++;
+        }
+
+        public int size() { return size; }
+        public double[] prices() { return prices; }
+        public double[] quantities() { return quantities; }
+        public long[] timestamps() { return timestamps; }
+    }
+
+    // Insertion-ordered so symbols keep the order they first traded in.
+    final Map<String, Column> bySymbol = new LinkedHashMap<>();
+    int size;
+
+    // Symbol text -> column, looked up on the parser's char buffer so repeated symbols allocate nothing.
+    private String[] names = new String[64];
+    private Column[] slots = new Column[64];
+
+    public Map<String, Column> bySymbol() {
+        return bySymbol;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Trades without a timestamp field get defaultTimestamp.
+    public static TradeBatch parse(JsonFactory factory, InputStream in, long defaultTimestamp) throws IOException {
+        TradeBatch batch = new TradeBatch();
+        try (JsonParser parser = factory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected an array of trades");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                Column column = null;
+                double price = 0;
+                double quantity = 0;
+                long timestamp = defaultTimestamp;
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    switch (field) {
+                        case "stockSymbol" -> column = value == JsonToken.VALUE_STRING ? batch.column(parser) : null;
+                        case "price" -> price = parser.getDoubleValue();
+                        case "quantity" -> quantity = parser.getDoubleValue();
+                        case "timestamp" -> {
+                            if (value.isNumeric()) timestamp = parser.getLongValue();
+                        }
+                        default -> parser.skipChildren();
+                    }
+                }
+                // Counted even without a symbol, since the exchange's since= cursor counts every trade.
+                batch.size++;
+                if (column != null) column.add(price, quantity, timestamp);
+            }
+        }
+        return batch;
+    }
+
+    private Column column(JsonParser parser) throws IOException {
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int length = parser.getTextLength();
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + text[offset + i];
+        }
+        int mask = names.length - 1;
+        for (int slot = (hash ^ hash >>> 16) & mask; ; slot = (slot + 1) & mask) {
+            String name = names[slot];
+            if (name == null) {
+                name = new String(text, offset, length);
+                Column column = new Column();
+                bySymbol.put(name, column);
+                names[slot] = name;
+                slots[slot] = column;
+                if (bySymbol.size() * 2 > names.length) rehash();
+                return column;
+            }
+            if (matches(name, text, offset, length)) return slots[slot];
+        }
+    }
+
+    private static boolean matches(String name, char[] text, int offset, int length) {
+        if (name.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != text[offset + i]) return false;
+        }
+        return true;
+    }
+
+    private void rehash() {
+        names = new String[names.length * 2];
+        slots = new Column[slots.length * 2];
+        int mask = names.length - 1;
+        for (Map.Entry<String, Column> entry : bySymbol.entrySet()) {
+            int hash = entry.getKey().hashCode();
+            int slot = (hash ^ hash >>> 16) & mask;
+            while (names[slot] != null) slot = (slot + 1) & mask;
+            names[slot] = entry.getKey();
+            slots[slot] = entry.getValue();
+        }
+    }
+}
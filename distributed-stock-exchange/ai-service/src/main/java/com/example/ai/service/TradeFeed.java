@@ -0,0 +1,171 @@
+package com.example.ai.service;
+
+import com.example.ai.analytics.AnalyticsEngine;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Per-symbol models for one exchange, kept in memory and folded forward with only the trades
+ * added since the last poll ({@code /api/trades?since=cursor}). An exchange that does not
+ * report X-Trade-Count is treated as returning its full history, and the models are rebuilt, as
+ * they are when X-Exchange-Instance changes: the exchange restarted, whatever its trade count.
+ * Behind a multi-node gateway the cursor is the X-Trade-Cursor it returns, one count per node.
+ * Trades are asked for as gzipped CBOR, and JSON or an identity encoding is read just the same.
+ */
+public class TradeFeed {
+
+    // Below this many trades a delta is folded on the calling thread.
+    static final int PARALLEL_THRESHOLD = 10_000;
+    static final String TRACE_HEADER = "X-Trace-Id";
+    static final String INSTANCE_HEADER = "X-Exchange-Instance";
+
+    static class SymbolModel {
+        final AiAnalyzer.SimpleRegression regression = new AiAnalyzer.SimpleRegression();
+        double lastPrice;
+        long count;
+
+        void add(double price) {
+            regression.addData(count, price);
+            lastPrice = price;
+            count++;
+        }
+    }
+
+    private final String tradesUrl;
+    private final HttpClient client;
+    private final JsonFactory json;
+    private final JsonFactory cbor = new CBORFactory();
+    private final Map<String, SymbolModel> models = new LinkedHashMap<>();
+    private final AnalyticsEngine analytics = new AnalyticsEngine();
+    private long cursor;
+    // A gateway's per-node cursor, sent back as since= in place of the trade count when present.
+    private String nodeCursor;
+    private long epoch;
+    // X-Exchange-Instance of the exchange the models were built from, once one has reported it.
+    private String instance;
+    // ETag of the last response and the cursor it was asked for at; only valid while the cursor stays put.
+    private String etag;
+    private long etagCursor = -1;
+
+    TradeFeed(String tradesUrl, HttpClient client, JsonFactory json) {
+        this.tradesUrl = tradesUrl;
+        this.client = client;
+        this.json = json;
+    }
+
+    public void catchUp() throws IOException, InterruptedException {
+        catchUp(null);
+    }
+
+    // traceId, when given, is forwarded as X-Trace-Id so the exchange's side of the call can be correlated.
+    public synchronized void catchUp(String traceId) throws IOException, InterruptedException {
+        String url = tradesUrl + (tradesUrl.contains("?") ? "&" : "?") + "since=" + (nodeCursor != null ? nodeCursor : String.valueOf(cursor));
+        HttpRequest.Builder builder = HttpRequest.newBuilder().uri(URI.create(url)).GET()
+                .header("Accept", "application/cbor, application/json;q=0.5")
+                .header("Accept-Encoding", "gzip");
+        if (traceId != null) builder.header(TRACE_HEADER, traceId);
+        if (etag != null && etagCursor == cursor) builder.header("If-None-Match", etag);
+        long requestedAt = cursor;
+        HttpResponse<InputStream> resp = client.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = resp.body()) {
+            if (resp.statusCode() == 304) return;
+            if (resp.statusCode() / 100 != 2) {
+                throw new IOException("HTTP " + resp.statusCode() + " from " + tradesUrl);
+            }
+            String from = resp.headers().firstValue(INSTANCE_HEADER).orElse(null);
+            if (from != null && !from.equals(instance)) {
+                boolean restarted = instance != null;
+                instance = from;
+                if (restarted) {
+                    // Trades since our cursor on a new history are not a delta of ours: start over.
+                    reset();
+                    nodeCursor = null;
+                    etag = null;
+                    if (requestedAt > 0) {
+                        catchUp(traceId);
+                        return;
+                    }
+                }
+            }
+            boolean binary = resp.headers().firstValue("Content-Type").orElse("").startsWith("application/cbor");
+            boolean gzip = resp.headers().firstValue("Content-Encoding").orElse("").equalsIgnoreCase("gzip");
+            ingest(gzip ? new GZIPInputStream(body, 8192) : body, binary ? cbor : json,
+                    resp.headers().firstValueAsLong("X-Trade-Count"));
+            nodeCursor = resp.headers().firstValue("X-Trade-Cursor").orElse(null);
+            etag = resp.headers().firstValue("ETag").orElse(null);
+            etagCursor = requestedAt;
+        }
+    }
+
+    synchronized void ingest(InputStream body, OptionalLong total) throws IOException {
+        ingest(body, json, total);
+    }
+
+    // Parses the trades as they stream in, then fits each symbol's models in parallel on the common ForkJoin pool.
+    synchronized void ingest(InputStream body, JsonFactory format, OptionalLong total) throws IOException {
+        // Trades without an exchange timestamp are placed at the time we first saw them.
+        TradeBatch batch = TradeBatch.parse(format, body, System.currentTimeMillis());
+
+        if (total.isEmpty() || total.getAsLong() < cursor) {
+            // Full history (or the exchange restarted): start over from what we just got.
+            reset();
+        }
+        List<Map.Entry<String, TradeBatch.Column>> columns = new ArrayList<>(batch.bySymbol.entrySet());
+        List<SymbolModel> targets = new ArrayList<>(columns.size());
+        for (Map.Entry<String, TradeBatch.Column> entry : columns) {
+            targets.add(models.computeIfAbsent(entry.getKey(), symbol -> new SymbolModel()));
+        }
+        IntStream work = IntStream.range(0, columns.size());
+        if (batch.size >= PARALLEL_THRESHOLD && columns.size() > 1) {
+            work = work.parallel();
+        }
+        work.forEach(i -> {
+            TradeBatch.Column column = columns.get(i).getValue();
+            SymbolModel model = targets.get(i);
+            for (int t = 0; t < column.size; t++) {
+                model.add(column.prices[t]);
+            }
+            analytics.onTrades(columns.get(i).getKey(), column.timestamps, column.prices, column.quantities, column.size);
+        });
+        cursor += batch.size;
+    }
+
+    private void reset() {
+        models.clear();
+        analytics.clear();
+        cursor = 0;
+        epoch++;
+    }
+
+    synchronized long getCursor() {
+        return cursor;
+    }
+
+    // Bumped whenever the models are rebuilt, so equal cursors from different histories are told apart.
+    synchronized long getEpoch() {
+        return epoch;
+    }
+
+    synchronized Map<String, Object> analytics() {
+        return analytics.snapshot(System.currentTimeMillis());
+    }
+
+    // Renders under the feed's lock.
+    synchronized String render() {
+        return AiAnalyzer.describe(models);
+    }
+}
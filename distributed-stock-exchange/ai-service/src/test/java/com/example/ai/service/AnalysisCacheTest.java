@@ -0,0 +1,152 @@
+package com.example.ai.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnalysisCacheTest {
+
+    private static final String URL = "http://exchange/api/trades";
+
+    // Counts catch-ups and renders; a catch-up can be held open or made to fail.
+    private static final class FakeFeed extends TradeFeed {
+        final AtomicInteger catchUps = new AtomicInteger();
+        final AtomicInteger renders = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        volatile boolean hold;
+        volatile boolean fail;
+        volatile long cursor;
+
+        FakeFeed() {
+            super(URL, null, null);
+        }
+
+        @Override
+        public void catchUp(String traceId) throws IOException, InterruptedException {
+            catchUps.incrementAndGet();
+            if (hold) release.await();
+            if (fail) throw new IOException("exchange down");
+        }
+
+        @Override
+        long getCursor() {
+            return cursor;
+        }
+
+        @Override
+        long getEpoch() {
+            return 0;
+        }
+
+        @Override
+        String render() {
+            renders.incrementAndGet();
+            return "at " + cursor;
+        }
+    }
+
+    @Test
+    void concurrentRequestsShareOneRefresh() throws Exception {
+        AnalysisCache cache = new AnalysisCache(60_000, 10);
+        FakeFeed feed = new FakeFeed();
+        feed.hold = true;
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.get(URL, feed, null)));
+            }
+            await(() -> (long) cache.metrics().get("coalesced") == 7);
+            feed.release.countDown();
+            for (Future<String> result : results) {
+                assertEquals("at 0", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, feed.catchUps.get());
+        assertEquals(1, feed.renders.get());
+    }
+
+    @Test
+    void failedRefreshReachesEveryWaiterAndIsRetried() throws Exception {
+        AnalysisCache cache = new AnalysisCache(60_000, 10);
+        FakeFeed feed = new FakeFeed();
+        feed.hold = true;
+        feed.fail = true;
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = pool.submit(() -> cache.get(URL, feed, null));
+            Future<String> second = pool.submit(() -> cache.get(URL, feed, null));
+            await(() -> (long) cache.metrics().get("coalesced") == 1);
+            feed.release.countDown();
+            for (Future<String> result : List.of(first, second)) {
+                Exception e = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IOException.class, e.getCause());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        feed.fail = false;
+        assertEquals("at 0", cache.get(URL, feed, null));
+        assertEquals(2, feed.catchUps.get());
+    }
+
+    @Test
+    void withinTheTtlTheExchangeIsNotAsked() throws Exception {
+        AnalysisCache cache = new AnalysisCache(60_000, 10);
+        FakeFeed feed = new FakeFeed();
+        cache.get(URL, feed, null);
+        feed.cursor = 5;
+        assertEquals("at 0", cache.get(URL, feed, null));
+        assertEquals(1, feed.catchUps.get());
+        assertEquals(1L, cache.metrics().get("hits"));
+    }
+
+    @Test
+    void afterTheTtlOnlyNewTradesAreRenderedAgain() throws Exception {
+        AnalysisCache cache = new AnalysisCache(0, 10);
+        FakeFeed feed = new FakeFeed();
+        cache.get(URL, feed, null);
+        assertEquals("at 0", cache.get(URL, feed, null));
+        assertEquals(1, feed.renders.get());
+        assertEquals(1L, cache.metrics().get("revalidated"));
+
+        feed.cursor = 5;
+        assertEquals("at 5", cache.get(URL, feed, null));
+        assertEquals(3, feed.catchUps.get());
+        assertEquals(2L, cache.metrics().get("misses"));
+    }
+
+    @Test
+    void leastRecentlyUsedUrlIsDropped() throws Exception {
+        AnalysisCache cache = new AnalysisCache(60_000, 1);
+        FakeFeed feed = new FakeFeed();
+        cache.get(URL, feed, null);
+        cache.get(URL + "?node=2", feed, null);
+        assertEquals(1L, cache.metrics().get("evictions"));
+        assertEquals(1, cache.metrics().get("entries"));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
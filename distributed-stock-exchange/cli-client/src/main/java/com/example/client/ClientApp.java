@@ -1,25 +1,30 @@
 package com.example.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.example.exchange.engine.OrderType;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.Scanner;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
 public class ClientApp {
     private static final HttpClient client = HttpClient.newHttpClient();
     private static final ObjectMapper mapper = new ObjectMapper();
+    private static final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
 
     public static void main(String[] args) throws Exception {
         Scanner sc = new Scanner(System.in);
         System.out.println("Simple CLI client for the Exchange Server");
 
         while (true) {
-            System.out.println("Commands: new, analyze, trades, exit");
+            System.out.println("Commands: new, analyze, trades, latency, exit");
             System.out.print("> ");
             String cmd = sc.nextLine().trim();
             if (cmd.equalsIgnoreCase("exit")) break;
@@ -28,12 +33,14 @@ public class ClientApp {
                 System.out.print("BUY or SELL: "); OrderType type = OrderType.valueOf(sc.nextLine().trim().toUpperCase());
                 System.out.print("Price: "); double price = Double.parseDouble(sc.nextLine().trim());
                 System.out.print("Quantity: "); int qty = Integer.parseInt(sc.nextLine().trim());
+                System.out.print("Stop price (blank for none): "); String stop = sc.nextLine().trim();
 
                 var body = new java.util.HashMap<String, Object>();
                 body.put("stockSymbol", sym);
                 body.put("orderType", type);
                 body.put("price", price);
                 body.put("quantity", qty);
+                if (!stop.isEmpty()) body.put("stopPrice", Double.parseDouble(stop));
                 body.put("traderId", "cli-" + UUID.randomUUID().toString().substring(0,4));
 
                 String json = mapper.writeValueAsString(body);
@@ -42,25 +49,58 @@ public class ClientApp {
                         .header("Content-Type", "application/json")
                         .POST(HttpRequest.BodyPublishers.ofString(json))
                         .build();
-                var resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+                var resp = traced(req);
                 System.out.println("Server returned orderId: " + resp.body());
 
             } else if (cmd.equalsIgnoreCase("analyze")) {
                 HttpRequest req = HttpRequest.newBuilder()
                         .uri(URI.create("http://localhost:8081/analyze?exchangeUrl=http://localhost:8080/api/trades"))
                         .GET().build();
-                var resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+                var resp = traced(req);
                 System.out.println(resp.body());
 
             } else if (cmd.equalsIgnoreCase("trades")) {
+                // Fetched as gzipped CBOR, which is several times smaller than the JSON, and printed as JSON.
                 HttpRequest req = HttpRequest.newBuilder()
                         .uri(URI.create("http://localhost:8080/api/trades"))
+                        .header("Accept", "application/cbor, application/json;q=0.5")
+                        .header("Accept-Encoding", "gzip")
+                        .GET().build();
+                var resp = traced(req, HttpResponse.BodyHandlers.ofByteArray());
+                byte[] bytes = resp.body();
+                InputStream in = new ByteArrayInputStream(bytes);
+                if (resp.headers().firstValue("Content-Encoding").orElse("").equalsIgnoreCase("gzip")) {
+                    in = new GZIPInputStream(in);
+                }
+                boolean binary = resp.headers().firstValue("Content-Type").orElse("").startsWith("application/cbor");
+                System.out.println(mapper.writeValueAsString((binary ? cborMapper : mapper).readTree(in)));
+                System.out.println("(" + bytes.length + " bytes received)");
+
+            } else if (cmd.equalsIgnoreCase("latency")) {
+                System.out.print("Trade sequence: "); long sequence = Long.parseLong(sc.nextLine().trim());
+                HttpRequest req = HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:8080/api/trades/" + sequence + "/latency"))
                         .GET().build();
                 var resp = client.send(req, HttpResponse.BodyHandlers.ofString());
-                System.out.println(resp.body());
+                System.out.println(resp.statusCode() == 404 ? "No latency data for that trade" : resp.body());
             }
         }
 
         System.out.println("Client exiting.");
     }
+
+    // Sends with a fresh X-Trace-Id and prints the round trip, so the same id can be looked up in the services.
+    private static HttpResponse<String> traced(HttpRequest req) throws Exception {
+        return traced(req, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static <T> HttpResponse<T> traced(HttpRequest req, HttpResponse.BodyHandler<T> handler) throws Exception {
+        String traceId = UUID.randomUUID().toString();
+        HttpRequest withTrace = HttpRequest.newBuilder(req, (name, value) -> true).header("X-Trace-Id", traceId).build();
+        long start = System.nanoTime();
+        HttpResponse<T> resp = client.send(withTrace, handler);
+        System.out.printf("[trace %s] %s %s -> %d in %.2f ms%n", traceId, req.method(), req.uri().getPath(),
+                resp.statusCode(), (System.nanoTime() - start) / 1e6);
+        return resp;
+    }
 }
@@ -0,0 +1,79 @@
+package com.example.benchmarks;
+
+import com.example.exchange.engine.Order;
+import com.example.exchange.engine.OrderType;
+import com.example.exchange.engine.StockExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChurnBenchmark {
+
+    @Param({"100", "10000"})
+    public int bookDepth;
+
+    @Param({"1", "6"})
+    public int symbols;
+
+    private StockExchange exchange;
+    private SplittableRandom random;
+    private Order[] resting;
+    private int cursor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        exchange = new StockExchange(false);
+        exchange.setVerbose(false);
+        random = new SplittableRandom(11);
+        resting = new Order[bookDepth * symbols];
+        for (int i = 0; i < resting.length; i++) {
+            resting[i] = OrderFlow.passive(random, OrderFlow.symbol(i, symbols), "maker-" + (i % 16));
+            exchange.submitOrder(resting[i]);
+        }
+    }
+
+    @Benchmark
+    public StockExchange modify() {
+        Order order = resting[cursor++ % resting.length];
+        double offset = 0.5 + random.nextDouble() * 10.0;
+        double newPrice = OrderFlow.round(order.getOrderType() == OrderType.BUY
+                ? OrderFlow.MID - offset : OrderFlow.MID + offset);
+        exchange.modifyOrder(order.getOrderId(), newPrice);
+        return exchange;
+    }
+
+    @Benchmark
+    public StockExchange reduceQuantity() {
+        Order order = resting[cursor++ % resting.length];
+        exchange.amendOrder(order.getOrderId(), null, Math.max(1, order.getQuantity() - 1));
+        return exchange;
+    }
+
+    @Benchmark
+    public StockExchange cancelReplace() {
+        int slot = cursor++ % resting.length;
+        Order old = resting[slot];
+        exchange.cancelOrder(old.getOrderId());
+        resting[slot] = OrderFlow.passive(random, old.getStockSymbol(), old.getOrderType(), old.getTraderId());
+        exchange.submitOrder(resting[slot]);
+        return exchange;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.benchmarks;
+
+import com.example.exchange.engine.StockExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Producers send cancels for unknown ids, so the engine does almost no work per event
+// and the measurement is dominated by the queue hand-off itself.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandOffBenchmark {
+
+    static final int EVENTS = 1 << 16;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    public int producers;
+
+    private StockExchange exchange;
+    private ExecutorService pool;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        exchange = new StockExchange();
+        exchange.setVerbose(false);
+        pool = Executors.newFixedThreadPool(producers);
+        ids = new String[EVENTS];
+        for (int i = 0; i < EVENTS; i++) {
+            ids[i] = "missing-" + i;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+        exchange.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public void handOff() throws InterruptedException {
+        int perProducer = EVENTS / producers;
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            int from = p * perProducer;
+            pool.execute(() -> {
+                for (int i = from; i < from + perProducer; i++) {
+                    exchange.cancelOrder(ids[i]);
+                }
+                done.countDown();
+            });
+        }
+        done.await();
+        exchange.flush();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.benchmarks;
+
+import com.example.exchange.engine.Order;
+import com.example.exchange.engine.OrderType;
+import com.example.exchange.engine.StockExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchBenchmark {
+
+    public enum Flow { AGGRESSIVE, PASSIVE, SELF_TRADE }
+
+    @Param({"AGGRESSIVE", "PASSIVE", "SELF_TRADE"})
+    public Flow flow;
+
+    @Param({"10", "1000"})
+    public int bookDepth;
+
+    @Param({"1", "6"})
+    public int symbols;
+
+    private StockExchange exchange;
+    private SplittableRandom random;
+    private int cursor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        exchange = new StockExchange(false);
+        exchange.setVerbose(false);
+        random = new SplittableRandom(7);
+        for (int s = 0; s < symbols; s++) {
+            String symbol = OrderFlow.symbol(s, symbols);
+            for (int i = 0; i < bookDepth; i++) {
+                if (flow == Flow.SELF_TRADE) {
+                    double price = OrderFlow.round(OrderFlow.MID + 0.01 * (i % 100 + 1));
+                    exchange.submitOrder(new Order(symbol, OrderType.SELL, price, 50, "self"));
+                } else {
+                    exchange.submitOrder(OrderFlow.passive(random, symbol, "maker-" + (i % 16)));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public StockExchange match() {
+        String symbol = OrderFlow.symbol(cursor++, symbols);
+        switch (flow) {
+            case AGGRESSIVE -> {
+                exchange.submitOrder(new Order(symbol, OrderType.SELL, OrderFlow.MID, 10, "maker"));
+                exchange.submitOrder(new Order(symbol, OrderType.BUY, OrderFlow.MID + 0.01, 10, "taker"));
+            }
+            case PASSIVE -> exchange.submitOrder(OrderFlow.passive(random, symbol, "maker"));
+            case SELF_TRADE -> {
+                Order order = new Order(symbol, OrderType.BUY, OrderFlow.MID + 20.0, 10, "self");
+                exchange.submitOrder(order);
+                exchange.cancelOrder(order.getOrderId());
+            }
+        }
+        return exchange;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.benchmarks;
+
+import com.example.exchange.engine.Order;
+import com.example.exchange.engine.OrderBook;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderBookBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int depth;
+
+    private OrderBook book;
+    private Order[] resting;
+    private Order[] incoming;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        book = new OrderBook();
+        resting = new Order[depth];
+        for (int i = 0; i < depth; i++) {
+            resting[i] = OrderFlow.passive(random, "AAPL", "maker-" + (i % 16));
+            book.addOrder(resting[i]);
+        }
+        incoming = new Order[1024];
+        for (int i = 0; i < incoming.length; i++) {
+            incoming[i] = OrderFlow.passive(random, "AAPL", "taker");
+        }
+    }
+
+    @Benchmark
+    public OrderBook addThenRemove() {
+        Order order = incoming[cursor++ & (incoming.length - 1)];
+        book.addOrder(order);
+        book.removeOrder(order);
+        return book;
+    }
+
+    @Benchmark
+    public OrderBook removeThenAdd() {
+        Order order = resting[cursor++ % depth];
+        book.removeOrder(order);
+        book.addOrder(order);
+        return book;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.benchmarks;
+
+import com.example.exchange.engine.Order;
+import com.example.exchange.engine.OrderType;
+
+import java.util.SplittableRandom;
+
+final class OrderFlow {
+
+    static final String[] SYMBOLS = {"AAPL", "MSFT", "GOOGL", "INTC", "AMD", "NVDA"};
+    static final double MID = 100.0;
+
+    private OrderFlow() {}
+
+    static String symbol(int index, int symbolCount) {
+        return SYMBOLS[index % Math.min(symbolCount, SYMBOLS.length)];
+    }
+
+    static double round(double price) {
+        return Math.round(price * 100.0) / 100.0;
+    }
+
+    static Order passive(SplittableRandom random, String symbol, String traderId) {
+        return passive(random, symbol, random.nextBoolean() ? OrderType.BUY : OrderType.SELL, traderId);
+    }
+
+    static Order passive(SplittableRandom random, String symbol, OrderType type, String traderId) {
+        double offset = 0.5 + random.nextDouble() * 10.0;
+        double price = round(type == OrderType.BUY ? MID - offset : MID + offset);
+        return new Order(symbol, type, price, random.nextInt(10, 100), traderId);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.benchmarks;
+
+import com.example.exchange.engine.ExchangeClock;
+import com.example.exchange.engine.StockExchange;
+
+import java.util.SplittableRandom;
+
+// Retained heap of an exchange with a large listed universe of which only a few symbols trade.
+// Usage: SymbolFootprint [listed] [active]
+public class SymbolFootprint {
+
+    public static void main(String[] args) throws InterruptedException {
+        int listed = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int active = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        long baseline = usedHeap();
+        StockExchange exchange = new StockExchange(ExchangeClock.SYSTEM, false, SymbolUniverseBenchmark.universe(listed));
+        exchange.setVerbose(false);
+        long afterListing = usedHeap();
+
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < active * 10; i++) {
+            exchange.submitOrder(OrderFlow.passive(random, String.format("SYM%05d", i % active), "maker"));
+        }
+        long afterOrders = usedHeap();
+
+        System.out.printf("listed=%d active=%d%n", listed, active);
+        System.out.printf("listing:      %,d bytes (%.1f bytes/symbol)%n",
+                afterListing - baseline, (afterListing - baseline) / (double) listed);
+        System.out.printf("active books: %,d bytes for %,d resting orders%n", afterOrders - afterListing, active * 10);
+        System.out.println(exchange.getSymbols().size() + " symbols listed");
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
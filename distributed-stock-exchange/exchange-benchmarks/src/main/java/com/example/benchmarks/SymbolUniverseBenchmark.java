@@ -0,0 +1,69 @@
+package com.example.benchmarks;
+
+import com.example.exchange.engine.ExchangeClock;
+import com.example.exchange.engine.Order;
+import com.example.exchange.engine.StockExchange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Passive submit + cancel spread across a large listed universe where only some symbols ever trade.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SymbolUniverseBenchmark {
+
+    @Param({"6", "10000"})
+    public int listed;
+
+    @Param({"6", "500"})
+    public int active;
+
+    private StockExchange exchange;
+    private String[] symbols;
+    private SplittableRandom random;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        exchange = new StockExchange(ExchangeClock.SYSTEM, false, universe(listed));
+        exchange.setVerbose(false);
+        symbols = universe(Math.min(active, listed)).toArray(new String[0]);
+        random = new SplittableRandom(11);
+        for (int i = 0; i < symbols.length * 10; i++) {
+            exchange.submitOrder(OrderFlow.passive(random, symbols[i % symbols.length], "maker-" + (i % 16)));
+        }
+    }
+
+    @Benchmark
+    public StockExchange submitCancel() {
+        Order order = OrderFlow.passive(random, symbols[random.nextInt(symbols.length)], "taker");
+        exchange.submitOrder(order);
+        exchange.cancelOrder(order.getOrderId());
+        return exchange;
+    }
+
+    static List<String> universe(int count) {
+        List<String> symbols = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            symbols.add(String.format("SYM%05d", i));
+        }
+        return symbols;
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.gateway.controller;
+
+import com.example.gateway.routing.NodeClient;
+import com.example.gateway.routing.OrderRoutes;
+import com.example.gateway.routing.PartitionMap;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+// Routes order entry and book queries to the node owning the symbol and merges the
+// cross-node views (trades, alerts, a trader's orders) from all of them.
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*")
+public class GatewayController {
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private final PartitionMap partitions;
+    private final OrderRoutes routes;
+    private final NodeClient nodes = new NodeClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+    public GatewayController(@Value("${gateway.partitions:}") String partitionSpec,
+                             @Value("${gateway.partitions.file:}") String partitionFile,
+                             @Value("${gateway.routes.max:1000000}") int maxRoutes) throws IOException {
+        this.partitions = PartitionMap.parse(partitionFile.isBlank() ? partitionSpec : Files.readString(Path.of(partitionFile)));
+        this.routes = new OrderRoutes(maxRoutes);
+        System.out.println("Gateway partitions: " + partitions.assignments());
+    }
+
+    @PostMapping("/orders")
+    public ResponseEntity<String> submitOrder(@RequestBody String body) throws IOException, InterruptedException {
+        JsonNode symbol = mapper.readTree(body).get("stockSymbol");
+        if (symbol == null || symbol.asText().isBlank()) {
+            return ResponseEntity.badRequest().body("stockSymbol is required");
+        }
+        String node = partitions.nodeFor(symbol.asText());
+        HttpResponse<String> resp = nodes.send(node, "POST", "/orders", body);
+        if (resp.statusCode() / 100 == 2) {
+            routes.put(resp.body(), node);
+        }
+        return relay(resp);
+    }
+
+    @PostMapping("/orders/{orderId}/cancel")
+    public ResponseEntity<String> cancelOrder(@PathVariable String orderId) throws IOException, InterruptedException {
+        ResponseEntity<String> result = toOrderNode(orderId, "/orders/" + orderId + "/cancel", "");
+        routes.remove(orderId);
+        return result;
+    }
+
+    @PostMapping("/orders/{orderId}/modify")
+    public ResponseEntity<String> modifyOrder(@PathVariable String orderId, @RequestBody String body)
+            throws IOException, InterruptedException {
+        return toOrderNode(orderId, "/orders/" + orderId + "/modify", body);
+    }
+
+    @PostMapping("/orders/mass-cancel")
+    public ResponseEntity<String> massCancel(@RequestBody String body) throws IOException, InterruptedException {
+        JsonNode symbol = mapper.readTree(body).get("stockSymbol");
+        if (symbol != null && !symbol.isNull() && !symbol.asText().isBlank()) {
+            return relay(nodes.send(partitions.nodeFor(symbol.asText()), "POST", "/orders/mass-cancel", body));
+        }
+        return firstFailureOr(nodes.fanOut(partitions.nodes(), "POST", "/orders/mass-cancel", body), "");
+    }
+
+    @GetMapping("/orders")
+    public ResponseEntity<String> orders(@RequestParam String traderId) throws IOException {
+        return merged(nodes.fanOut(partitions.nodes(), "GET", "/orders?traderId=" + encode(traderId), null), null);
+    }
+
+    // Each node holds the positions in its own symbols, so the lists concatenate.
+    @GetMapping("/positions")
+    public ResponseEntity<String> positions(@RequestParam String traderId) throws IOException {
+        return merged(nodes.fanOut(partitions.nodes(), "GET", "/positions?traderId=" + encode(traderId), null), null);
+    }
+
+    @PostMapping("/sessions/{traderId}/heartbeat")
+    public ResponseEntity<String> heartbeat(@PathVariable String traderId,
+                                            @RequestParam(defaultValue = "5000") long timeoutMs) {
+        String path = "/sessions/" + encode(traderId) + "/heartbeat?timeoutMs=" + timeoutMs;
+        return firstFailureOr(nodes.fanOut(partitions.nodes(), "POST", path, ""), "");
+    }
+
+    @DeleteMapping("/sessions/{traderId}")
+    public ResponseEntity<String> disconnect(@PathVariable String traderId) {
+        return firstFailureOr(nodes.fanOut(partitions.nodes(), "DELETE", "/sessions/" + encode(traderId), null), "");
+    }
+
+    @GetMapping("/orderbook/data/{symbol}")
+    public ResponseEntity<String> getOrderBookData(@PathVariable String symbol) throws IOException, InterruptedException {
+        return relay(nodes.send(partitions.nodeFor(symbol), "GET", "/orderbook/data/" + encode(symbol), null));
+    }
+
+    @GetMapping("/candles/{symbol}")
+    public ResponseEntity<String> candles(@PathVariable String symbol,
+                                          @RequestParam(defaultValue = "1m") String interval,
+                                          @RequestParam(defaultValue = "500") int limit) throws IOException, InterruptedException {
+        String path = "/candles/" + encode(symbol) + "?interval=" + encode(interval) + "&limit=" + limit;
+        return relay(nodes.send(partitions.nodeFor(symbol), "GET", path, null));
+    }
+
+    // ?since takes the previous response's X-Trade-Cursor, one trade count per node in partition order, so
+    // each node only sends what it added. Node sequences overlap, so the lists are merged by timestamp and
+    // X-Trade-Count is the total over all nodes. A node reporting fewer trades than its cursor has restarted:
+    // the whole history is sent again without X-Trade-Count, which pollers take as a fresh start. The nodes'
+    // X-Exchange-Instance values are passed on together, so a restart on any node changes the gateway's.
+    @GetMapping("/trades")
+    public ResponseEntity<byte[]> trades(@RequestParam(required = false) String since, HttpServletRequest request)
+            throws IOException {
+        List<String> all = partitions.nodes();
+        long[] cursors = new long[all.size()];
+        // A bare 0 is the start for any number of nodes, as it is on a single node.
+        if (since != null && !since.isBlank() && !since.trim().equals("0")) {
+            String[] parts = since.split(",");
+            try {
+                if (parts.length != cursors.length) throw new NumberFormatException();
+                for (int i = 0; i < parts.length; i++) {
+                    cursors[i] = Long.parseLong(parts[i].trim());
+                }
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().body(("since needs one trade count per node, "
+                        + cursors.length + " in all").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        List<HttpResponse<String>> responses = tradesSince(all, cursors);
+        boolean restarted = false;
+        for (int i = 0; i < responses.size() && responses.get(i) != null; i++) {
+            if (responses.get(i).headers().firstValueAsLong("X-Trade-Count").orElse(cursors[i]) < cursors[i]) {
+                restarted = true;
+            }
+        }
+        if (restarted) {
+            Arrays.fill(cursors, 0);
+            responses = tradesSince(all, cursors);
+        }
+
+        List<JsonNode> lists = new ArrayList<>();
+        StringBuilder cursor = new StringBuilder();
+        StringBuilder version = new StringBuilder(restarted ? "r" : "");
+        StringBuilder instances = new StringBuilder();
+        long total = 0;
+        for (int i = 0; i < responses.size(); i++) {
+            HttpResponse<String> resp = responses.get(i);
+            if (resp == null || resp.statusCode() / 100 != 2) {
+                return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                        .body(("Node unavailable: " + all.get(i)).getBytes(StandardCharsets.UTF_8));
+            }
+            JsonNode items = mapper.readTree(resp.body());
+            if (items == null || !items.isArray()) items = mapper.createArrayNode();
+            lists.add(items);
+            long count = resp.headers().firstValueAsLong("X-Trade-Count").orElse(cursors[i] + items.size());
+            total += count;
+            cursor.append(i == 0 ? "" : ",").append(count);
+            instances.append(i == 0 ? "" : ",").append(resp.headers().firstValue("X-Exchange-Instance").orElse(""));
+            version.append(resp.headers().firstValue("ETag").orElse(cursors[i] + "-" + count)).append('|');
+        }
+
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean binary = accept != null && accept.contains(CBOR.toString());
+        byte[] body = (binary ? cbor : mapper).writeValueAsBytes(mergeByTimestamp(lists));
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip") && body.length >= GZIP_MIN_BYTES;
+        // Each node's tag already names its instance, cursor and count, so together they identify this body.
+        String etag = "\"gw-" + Long.toHexString(hash64(version)) + (binary ? "-cbor" : "-json") + (gzip ? "-gz" : "") + "\"";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag(etag);
+        headers.set(HttpHeaders.VARY, "Accept, Accept-Encoding");
+        headers.set("X-Trade-Cursor", cursor.toString());
+        headers.set("X-Exchange-Instance", instances.toString());
+        if (!restarted) headers.set("X-Trade-Count", String.valueOf(total));
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+        headers.setContentType(binary ? CBOR : MediaType.APPLICATION_JSON);
+        if (gzip) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            body = gzip(body);
+        }
+        return ResponseEntity.ok().headers(headers).body(body);
+    }
+
+    @GetMapping("/alerts")
+    public ResponseEntity<String> alerts(@RequestParam String traderId) throws IOException {
+        List<String> all = partitions.nodes();
+        List<HttpResponse<String>> responses = nodes.fanOut(all, "GET", "/alerts?traderId=" + encode(traderId), null);
+        return merged(responses, all);
+    }
+
+    @PostMapping("/alerts/{alertId}/claim")
+    public ResponseEntity<String> claimAlert(@PathVariable String alertId, @RequestBody String body)
+            throws IOException, InterruptedException {
+        String node = routes.get(alertId);
+        if (node != null) {
+            return relay(nodes.send(node, "POST", "/alerts/" + alertId + "/claim", body));
+        }
+        // Unknown alert: only its owner can accept the claim, the others answer 409.
+        HttpResponse<String> last = null;
+        for (HttpResponse<String> resp : nodes.fanOut(partitions.nodes(), "POST", "/alerts/" + alertId + "/claim", body)) {
+            if (resp == null) continue;
+            if (resp.statusCode() / 100 == 2) return relay(resp);
+            last = resp;
+        }
+        return last != null ? relay(last) : ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+    }
+
+    @GetMapping("/admin/symbols")
+    public ResponseEntity<String> symbols() throws IOException {
+        return merged(nodes.fanOut(partitions.nodes(), "GET", "/admin/symbols", null), null);
+    }
+
+    @PostMapping("/admin/symbols")
+    public ResponseEntity<String> listSymbols(@RequestBody List<String> symbols) throws IOException, InterruptedException {
+        Map<String, List<String>> byNode = new LinkedHashMap<>();
+        for (String symbol : symbols) {
+            if (symbol == null || symbol.isBlank()) continue;
+            byNode.computeIfAbsent(partitions.nodeFor(symbol.trim()), node -> new ArrayList<>()).add(symbol.trim());
+        }
+        for (Map.Entry<String, List<String>> entry : byNode.entrySet()) {
+            HttpResponse<String> resp = nodes.send(entry.getKey(), "POST", "/admin/symbols",
+                    mapper.writeValueAsString(entry.getValue()));
+            if (resp.statusCode() / 100 != 2) return relay(resp);
+        }
+        return symbols();
+    }
+
+    @GetMapping("/partitions")
+    public Map<String, List<String>> partitions() {
+        return partitions.assignments();
+    }
+
+    @GetMapping
+    public String home() {
+        return "Exchange gateway is running! Nodes: " + partitions.nodes();
+    }
+
+    private ResponseEntity<String> toOrderNode(String orderId, String path, String body)
+            throws IOException, InterruptedException {
+        String node = routes.get(orderId);
+        if (node != null) {
+            return relay(nodes.send(node, "POST", path, body));
+        }
+        // Unknown ids are a no-op on the nodes that don't hold them.
+        return firstFailureOr(nodes.fanOut(partitions.nodes(), "POST", path, body), "");
+    }
+
+    // Concatenates JSON arrays from all nodes; when alertNodes is given, remembers which node each alert came from.
+    private ResponseEntity<String> merged(List<HttpResponse<String>> responses, List<String> alertNodes) throws IOException {
+        ArrayNode merged = mapper.createArrayNode();
+        for (int i = 0; i < responses.size(); i++) {
+            HttpResponse<String> resp = responses.get(i);
+            if (resp == null || resp.statusCode() / 100 != 2) {
+                return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                        .body("Node unavailable: " + partitions.nodes().get(i));
+            }
+            JsonNode items = mapper.readTree(resp.body());
+            if (items == null || !items.isArray()) continue;
+            for (JsonNode item : items) {
+                if (alertNodes != null && item.hasNonNull("id")) {
+                    routes.put(item.get("id").asText(), alertNodes.get(i));
+                }
+                merged.add(item);
+            }
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(mapper.writeValueAsString(merged));
+    }
+
+    private List<HttpResponse<String>> tradesSince(List<String> all, long[] cursors) {
+        List<String> paths = new ArrayList<>();
+        for (long cursor : cursors) {
+            paths.add("/trades?since=" + cursor);
+        }
+        return nodes.fanOut(all, "GET", paths, null);
+    }
+
+    // Merges the per-node lists on the exchange timestamp, keeping each node's own order.
+    private ArrayNode mergeByTimestamp(List<JsonNode> lists) {
+        ArrayNode merged = mapper.createArrayNode();
+        int[] next = new int[lists.size()];
+        while (true) {
+            int pick = -1;
+            long earliest = 0;
+            for (int i = 0; i < lists.size(); i++) {
+                if (next[i] == lists.get(i).size()) continue;
+                long timestamp = lists.get(i).get(next[i]).path("timestamp").asLong();
+                if (pick < 0 || timestamp < earliest) {
+                    pick = i;
+                    earliest = timestamp;
+                }
+            }
+            if (pick < 0) return merged;
+            merged.add(lists.get(pick).get(next[pick]++));
+        }
+    }
+
+    private static long hash64(CharSequence value) {
+        long h = 1125899906842597L;
+        for (int i = 0; i < value.length(); i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        return h;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes, 8192)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    private ResponseEntity<String> firstFailureOr(List<HttpResponse<String>> responses, String body) {
+        for (int i = 0; i < responses.size(); i++) {
+            HttpResponse<String> resp = responses.get(i);
+            if (resp == null) {
+                return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("Node unavailable: " + partitions.nodes().get(i));
+            }
+            if (resp.statusCode() / 100 != 2) return relay(resp);
+        }
+        return ResponseEntity.ok(body);
+    }
+
+    private static ResponseEntity<String> relay(HttpResponse<String> resp) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(resp.statusCode());
+        resp.headers().firstValue("Content-Type").ifPresent(type -> builder.contentType(MediaType.parseMediaType(type)));
+        return builder.body(resp.body());
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.gateway.routing;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+
+public class NodeClient {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    public HttpResponse<String> send(String node, String method, String path, String body)
+            throws IOException, InterruptedException {
+        return client.send(request(node, method, path, body), HttpResponse.BodyHandlers.ofString());
+    }
+
+    public CompletableFuture<HttpResponse<String>> sendAsync(String node, String method, String path, String body) {
+        return client.sendAsync(request(node, method, path, body), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Sends the same request to every node in parallel; a node that fails yields null.
+    public List<HttpResponse<String>> fanOut(List<String> nodes, String method, String path, String body) {
+        return fanOut(nodes, method, Collections.nCopies(nodes.size(), path), body);
+    }
+
+    // As above with a path per node, in the same order as nodes.
+    public List<HttpResponse<String>> fanOut(List<String> nodes, String method, List<String> paths, String body) {
+        List<CompletableFuture<HttpResponse<String>>> pending = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            pending.add(sendAsync(nodes.get(i), method, paths.get(i), body).exceptionally(e -> null));
+        }
+        List<HttpResponse<String>> responses = new ArrayList<>();
+        for (CompletableFuture<HttpResponse<String>> future : pending) {
+            responses.add(future.join());
+        }
+        return responses;
+    }
+
+    private static HttpRequest request(String node, String method, String path, String body) {
+        HttpRequest.BodyPublisher publisher = body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body);
+        return HttpRequest.newBuilder()
+                .uri(URI.create(node + path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(5))
+                .method(method, publisher)
+                .build();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.gateway.routing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the node each order (or alert) was placed on. Bounded: once full the oldest
+ * entries are dropped, and a lookup miss makes the caller fan out to every node instead.
+ */
+public class OrderRoutes {
+
+    private final Map<String, String> routes;
+
+    public OrderRoutes(int maxEntries) {
+        this.routes = new LinkedHashMap<>(1024, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized void put(String id, String node) {
+        routes.put(id, node);
+    }
+
+    public synchronized String get(String id) {
+        return routes.get(id);
+    }
+
+    public synchronized void remove(String id) {
+        routes.remove(id);
+    }
+
+    public synchronized int size() {
+        return routes.size();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.gateway.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which exchange node owns which symbol. Symbols named in the map go to their node; any other
+ * symbol is placed by hash, so a growing universe spreads across nodes without re-listing them all.
+ */
+public class PartitionMap {
+
+    private final List<String> nodes = new ArrayList<>();
+    private final Map<String, Integer> assigned = new LinkedHashMap<>();
+
+    // Entries are "nodeUrl=SYM,SYM" separated by ';' or newlines; a node with no '=' only takes hashed symbols.
+    public static PartitionMap parse(String spec) {
+        PartitionMap map = new PartitionMap();
+        for (String entry : spec.split("[;\\n]")) {
+            entry = entry.trim();
+            if (entry.isEmpty() || entry.startsWith("#")) continue;
+            int eq = entry.indexOf('=');
+            String url = normalize(eq < 0 ? entry : entry.substring(0, eq));
+            int node = map.nodes.indexOf(url);
+            if (node < 0) {
+                node = map.nodes.size();
+                map.nodes.add(url);
+            }
+            if (eq < 0) continue;
+            for (String symbol : entry.substring(eq + 1).split(",")) {
+                if (!symbol.isBlank()) {
+                    map.assigned.put(symbol.trim(), node);
+                }
+            }
+        }
+        if (map.nodes.isEmpty()) {
+            throw new IllegalArgumentException("Partition map has no nodes: " + spec);
+        }
+        return map;
+    }
+
+    public String nodeFor(String symbol) {
+        Integer node = assigned.get(symbol);
+        return nodes.get(node != null ? node : Math.floorMod(symbol.hashCode(), nodes.size()));
+    }
+
+    public List<String> nodes() {
+        return Collections.unmodifiableList(nodes);
+    }
+
+    public Map<String, List<String>> assignments() {
+        Map<String, List<String>> byNode = new LinkedHashMap<>();
+        for (String node : nodes) {
+            byNode.put(node, new ArrayList<>());
+        }
+        assigned.forEach((symbol, node) -> byNode.get(nodes.get(node)).add(symbol));
+        return byNode;
+    }
+
+    // Nodes are addressed by their /api base.
+    private static String normalize(String url) {
+        String trimmed = url.trim();
+        if (trimmed.endsWith("/")) trimmed = trimmed.substring(0, trimmed.length() - 1);
+        return trimmed.endsWith("/api") ? trimmed : trimmed + "/api";
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.exchange.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized bodies of polled read endpoints, kept per key for the latest state version only.
+ * Each version is encoded at most once per representation (JSON or CBOR, plain or gzip) however
+ * many clients poll it, and a client already holding the version's strong ETag gets a 304.
+ */
+final class CachedResponses {
+
+    static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private final ObjectMapper json;
+    private final ObjectMapper cbor;
+    private final Map<String, Snapshot> latest = new ConcurrentHashMap<>();
+
+    CachedResponses(ObjectMapper json) {
+        this.json = json;
+        this.cbor = json.copyWith(new CBORFactory());
+    }
+
+    // A version's bodies, encoded lazily: [json, cbor] x [identity, gzip].
+    private final class Snapshot {
+        final String version;
+        final Supplier<Object> value;
+        final byte[][] bodies = new byte[4][];
+        Object resolved;
+
+        Snapshot(String version, Supplier<Object> value) {
+            this.version = version;
+            this.value = value;
+        }
+
+        synchronized byte[] body(boolean binary, boolean gzip) {
+            int slot = (binary ? 2 : 0) + (gzip ? 1 : 0);
+            if (bodies[slot] == null) {
+                if (gzip) {
+                    bodies[slot] = gzip(body(binary, false));
+                } else {
+                    if (resolved == null) resolved = value.get();
+                    bodies[slot] = encode(binary ? cbor : json, resolved);
+                }
+            }
+            return bodies[slot];
+        }
+    }
+
+    /**
+     * version must change whenever the value would; key null skips caching (per-client queries).
+     * value is only invoked on a miss and should read state no older than version.
+     */
+    ResponseEntity<byte[]> respond(HttpServletRequest request, String key, String version, Supplier<Object> value) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean binary = accept != null && accept.contains(CBOR.toString());
+        boolean wantsGzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+
+        Snapshot snapshot = key == null ? new Snapshot(version, value)
+                : latest.compute(key, (k, old) -> old != null && old.version.equals(version) ? old : new Snapshot(version, value));
+        String tag = version + (binary ? "-cbor" : "-json");
+
+        // Small bodies are sent plain, so the gzip tag only exists when the gzip body does.
+        boolean gzip = wantsGzip && snapshot.body(binary, false).length >= GZIP_MIN_BYTES;
+        String etag = "\"" + tag + (gzip ? "-gz" : "") + "\"";
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(etag) || ifNoneMatch.trim().equals("*"))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag)
+                    .header(HttpHeaders.VARY, "Accept, Accept-Encoding").build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(etag)
+                .header(HttpHeaders.VARY, "Accept, Accept-Encoding")
+                .contentType(binary ? CBOR : MediaType.APPLICATION_JSON);
+        if (gzip) builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return builder.body(snapshot.body(binary, gzip));
+    }
+
+    private static byte[] encode(ObjectMapper mapper, Object value) {
+        try {
+            return mapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes, 8192)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -1,56 +1,544 @@
 package com.example.exchange.controller;
 import com.example.exchange.engine.Alert;
+import com.example.exchange.engine.CandleInterval;
+import com.example.exchange.engine.ExchangeClock;
 import com.example.exchange.engine.OrderBook;
 import com.example.exchange.engine.Order;
+import com.example.exchange.engine.OrderView;
+import com.example.exchange.engine.Position;
 import com.example.exchange.engine.StockExchange;
+import com.example.exchange.engine.TimeInForce;
+import com.example.exchange.risk.PreTradeRisk;
+import com.example.exchange.session.SessionMonitor;
 import com.example.exchange.engine.Trade;
 import com.example.exchange.dto.ClaimRequest;
+import com.example.exchange.dto.MassCancelRequest;
 import com.example.exchange.dto.ModifyRequest;
 import com.example.exchange.dto.OrderRequest;
+import com.example.exchange.load.LatencyHistogram;
+import com.example.exchange.replication.ReplicationLog;
+import com.example.exchange.replication.ReplicationPrimary;
+import com.example.exchange.replication.ReplicationStandby;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.LockSupport;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = "*")
 public class ExchangeController {
 
-    private final StockExchange exchange = new StockExchange();
+    private static final String SEQUENCE_HEADER = "X-Exchange-Sequence";
+    private static final String TRACE_HEADER = "X-Trace-Id";
+    private static final String TRACE_ATTRIBUTE = "exchange.traceId";
+    private static final String RECEIVED_ATTRIBUTE = "exchange.receivedNanos";
+    private static final long MIN_SEQUENCE_WAIT_NANOS = 200_000_000L;
+    // Trader, order and symbol ids are journalled with every event; longer ones are refused up front.
+    private static final int MAX_ID_LENGTH = 128;
+
+    // Replaced when a follower starts over from a snapshot.
+    private volatile StockExchange exchange;
+    private volatile SessionMonitor sessions;
+    private final LocalTime sessionClose;
+    private final ZoneId sessionZone;
+    private final String captureFile;
+    private final int replicationPort;
+    private final boolean syncReplication;
+    private final long syncTimeoutMs;
+    private final ReplicationStandby follower;
+    private final String role;
+    private final long maxStalenessMs;
+    private final PreTradeRisk risk;
+    private volatile ReplicationPrimary replicationPrimary;
+    // Distinguishes this exchange's versions from a restarted (or resynced) one's in cached response ETags.
+    private volatile String instance;
+    private final CachedResponses responses;
+
+    public ExchangeController(@Value("${exchange.capture.file:}") String captureFile,
+                              @Value("${exchange.session.close:00:00}") String sessionClose,
+                              @Value("${exchange.session.zone:}") String sessionZone,
+                              @Value("${exchange.symbols:}") String symbols,
+                              @Value("${exchange.symbols.file:}") String symbolsFile,
+                              @Value("${exchange.replication.role:none}") String replicationRole,
+                              @Value("${exchange.replication.port:9090}") int replicationPort,
+                              @Value("${exchange.replication.primary:localhost:9090}") String replicationPrimaryAddress,
+                              @Value("${exchange.replication.sync:false}") boolean syncReplication,
+                              @Value("${exchange.replication.sync-timeout-ms:1000}") long syncTimeoutMs,
+                              @Value("${exchange.replication.max-staleness-ms:5000}") long maxStalenessMs,
+                              @Value("${exchange.replication.failover-timeout-ms:1000}") long failoverTimeoutMs,
+                              @Value("${exchange.risk.max-order-quantity:1000000}") int maxOrderQuantity,
+                              @Value("${exchange.risk.max-order-notional:10000000}") double maxOrderNotional,
+                              @Value("${exchange.risk.max-open-orders:100000}") int maxOpenOrders,
+                              @Value("${exchange.risk.max-open-notional:100000000}") double maxOpenNotional,
+                              @Value("${exchange.risk.price-band-percent:20}") double priceBandPercent,
+                              @Value("${exchange.auction.symbols:}") String auctionSymbols,
+                              ObjectMapper objectMapper) throws IOException {
+        this.responses = new CachedResponses(objectMapper);
+        this.risk = new PreTradeRisk(maxOrderQuantity, maxOrderNotional, maxOpenOrders, maxOpenNotional, priceBandPercent);
+        this.role = replicationRole;
+        this.maxStalenessMs = maxStalenessMs;
+        this.captureFile = captureFile;
+        this.replicationPort = replicationPort;
+        this.syncReplication = syncReplication;
+        this.syncTimeoutMs = syncTimeoutMs;
+        this.sessionClose = LocalTime.parse(sessionClose);
+        this.sessionZone = sessionZone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(sessionZone);
+        StockExchange exchange;
+        switch (replicationRole) {
+            case "primary" -> {
+                follower = null;
+                exchange = new StockExchange(ExchangeClock.SYSTEM, true, initialSymbols(symbols, symbolsFile));
+                ReplicationLog log = new ReplicationLog();
+                exchange.startReplication(log);
+                replicationPrimary = new ReplicationPrimary(log, replicationPort);
+                System.out.println("Replicating to standbys on port " + replicationPort);
+            }
+            case "standby", "replica" -> {
+                // Books and symbols come from the primary; this node serves reads, and a standby
+                // takes over when the primary goes away.
+                int colon = replicationPrimaryAddress.lastIndexOf(':');
+                follower = new ReplicationStandby(replicationPrimaryAddress.substring(0, colon),
+                        Integer.parseInt(replicationPrimaryAddress.substring(colon + 1)), replicationRole.equals("standby"),
+                        failoverTimeoutMs);
+                exchange = follower.getExchange();
+                follower.setOnPromoted(this::takeOver);
+                follower.setOnResync(() -> bind(follower.getExchange()));
+            }
+            default -> {
+                follower = null;
+                exchange = new StockExchange(ExchangeClock.SYSTEM, true, initialSymbols(symbols, symbolsFile));
+            }
+        }
+        bind(exchange);
+        if (follower != null) {
+            follower.start();
+        } else {
+            // SYMBOL:intervalMs pairs; a standby learns auction modes from the primary's journal instead.
+            for (String entry : auctionSymbols.split(",")) {
+                if (entry.isBlank()) continue;
+                String[] parts = entry.trim().split(":");
+                exchange.setAuctionInterval(parts[0], Long.parseLong(parts[1]));
+            }
+            startCapture();
+        }
+    }
+
+    private void bind(StockExchange next) {
+        SessionMonitor previous = sessions;
+        next.setRiskListener(risk);
+        next.setSessionClose(sessionClose, sessionZone);
+        sessions = new SessionMonitor(next, 100);
+        instance = Long.toString(System.currentTimeMillis(), 36);
+        exchange = next;
+        if (previous != null) previous.shutdown();
+    }
+
+    private void startCapture() throws IOException {
+        if (!captureFile.isBlank()) {
+            exchange.startCapture(new FileOutputStream(captureFile));
+            System.out.println("Capturing engine events to " + captureFile);
+        }
+    }
+
+    // Runs once a standby has promoted itself: it becomes the primary for the next standby.
+    private void takeOver() {
+        try {
+            startCapture();
+            replicationPrimary = new ReplicationPrimary(follower.getLog(), replicationPort);
+            System.out.println("Took over as primary; replicating on port " + replicationPort);
+        } catch (IOException e) {
+            System.err.println("Took over as primary without replication: " + e.getMessage());
+        }
+    }
+
+    private void requireWritable() {
+        if (follower != null && !follower.isPromoted()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "This node is a " + role);
+        }
+    }
+
+    // Every response carries the sequence of the last event reflected in it. A caller can ask for
+    // at least a given sequence (X-Min-Sequence) to read its own writes from a replica.
+    @ModelAttribute
+    public void sequenceHeader(@RequestHeader(value = "X-Min-Sequence", required = false) Long minSequence,
+                               HttpServletResponse response) {
+        if (follower != null && !follower.isPromoted()) {
+            if (minSequence != null) {
+                long deadline = System.nanoTime() + MIN_SEQUENCE_WAIT_NANOS;
+                while (follower.getAppliedSequence() < minSequence && System.nanoTime() < deadline) {
+                    LockSupport.parkNanos(100_000);
+                }
+            }
+            if (!follower.isLinkUp() && System.currentTimeMillis() - follower.getLinkDownSinceMillis() > maxStalenessMs) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Replica is stale: primary unreachable");
+            }
+        }
+        response.setHeader(SEQUENCE_HEADER, String.valueOf(currentSequence()));
+    }
+
+    // Every response carries the caller's X-Trace-Id, or a fresh one, so calls can be correlated across services.
+    @ModelAttribute
+    public void traceHeader(@RequestHeader(value = TRACE_HEADER, required = false) String traceId,
+                            HttpServletRequest request, HttpServletResponse response) {
+        request.setAttribute(RECEIVED_ATTRIBUTE, System.nanoTime());
+        String id = traceId == null || traceId.isBlank() ? UUID.randomUUID().toString() : traceId;
+        request.setAttribute(TRACE_ATTRIBUTE, id);
+        response.setHeader(TRACE_HEADER, id);
+    }
+
+    private long currentSequence() {
+        return follower != null && !follower.isPromoted() ? follower.getAppliedSequence() : exchange.getSequence();
+    }
+
+    // When replicating, a write answers with the sequence it was assigned, for X-Min-Sequence reads
+    // on a replica. With synchronous replication it is only confirmed once a standby has applied it.
+    private void awaitReplication(String what) {
+        ReplicationPrimary primary = replicationPrimary;
+        if (primary == null) return;
+        exchange.flush();
+        long sequence = exchange.getSequence();
+        HttpServletResponse response = ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getResponse();
+        if (response != null) response.setHeader(SEQUENCE_HEADER, String.valueOf(sequence));
+        if (!syncReplication) return;
+        if (primary.isStopped()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, what + " accepted but replication has stopped");
+        }
+        try {
+            if (primary.awaitAck(sequence, syncTimeoutMs)) return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, what + " accepted but not acknowledged by a standby");
+    }
+
+    // One symbol per line in the file; otherwise a comma-separated list; otherwise the default six.
+    private static List<String> initialSymbols(String symbols, String symbolsFile) throws IOException {
+        if (!symbolsFile.isBlank()) {
+            return Files.readAllLines(Path.of(symbolsFile)).stream()
+                    .map(String::trim).filter(line -> !line.isEmpty() && !line.startsWith("#")).toList();
+        }
+        if (!symbols.isBlank()) {
+            return Arrays.stream(symbols.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+        }
+        return StockExchange.DEFAULT_SYMBOLS;
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        sessions.shutdown();
+        if (follower != null && !follower.isPromoted()) {
+            follower.close();
+            return;
+        }
+        if (replicationPrimary != null) {
+            replicationPrimary.close();
+        }
+        exchange.stopCapture();
+        exchange.shutdown();
+    }
+
+    @GetMapping("/replication")
+    public Map<String, Object> replication() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("role", follower != null && !follower.isPromoted() ? role : replicationPrimary != null ? "primary" : "none");
+        status.put("sequence", currentSequence());
+        if (follower != null && !follower.isPromoted()) {
+            status.put("linkUp", follower.isLinkUp());
+        }
+        ReplicationPrimary primary = replicationPrimary;
+        if (primary != null) {
+            status.put("stopped", primary.isStopped());
+            status.put("standbys", primary.getStandbyCount());
+            status.put("ackedSequence", primary.getAckedSequence());
+            LatencyHistogram lag = primary.getLag();
+            status.put("lagP50Micros", lag.valueAtPercentile(50) / 1e3);
+            status.put("lagP99Micros", lag.valueAtPercentile(99) / 1e3);
+        }
+        if (follower != null && follower.isPromoted()) {
+            status.put("failoverMillis", follower.getFailoverNanos() / 1e6);
+        }
+        return status;
+    }
+
+    @PostMapping("/replication/promote")
+    public ResponseEntity<String> promote() {
+        if (follower == null || !role.equals("standby")) {
+            return ResponseEntity.badRequest().body("This node is not a standby");
+        }
+        follower.promote();
+        return ResponseEntity.ok("Promoted at sequence " + follower.getAppliedSequence());
+    }
 
     @PostMapping("/orders")
-    public ResponseEntity<String> submitOrder(@RequestBody OrderRequest req) {
+    public ResponseEntity<String> submitOrder(@RequestBody OrderRequest req,
+                                              @RequestAttribute(TRACE_ATTRIBUTE) String traceId,
+                                              @RequestAttribute(RECEIVED_ATTRIBUTE) long receivedNanos) {
+        requireWritable();
+        String invalid = validate(req);
+        if (invalid != null) {
+            return ResponseEntity.badRequest().body(invalid);
+        }
         Order o = new Order(req.getStockSymbol(), req.getOrderType(), req.getPrice(), req.getQuantity(), req.getTraderId());
-        exchange.submitOrder(o);
+        o.trace(traceId, receivedNanos);
+        if (req.getStopPrice() != null) o.setStopPrice(req.getStopPrice());
+        if (req.getTimeInForce() == TimeInForce.GTT) {
+            long expireAt;
+            if (req.getExpireAt() != null) {
+                expireAt = req.getExpireAt();
+            } else if (req.getTtlMillis() != null) {
+                if (req.getTtlMillis() <= 0) {
+                    return ResponseEntity.badRequest().body("ttlMillis must be positive");
+                }
+                expireAt = o.getCreatedAt() + req.getTtlMillis();
+            } else {
+                return ResponseEntity.badRequest().body("GTT orders need expireAt or ttlMillis");
+            }
+            // The engine drops an order that has already expired, so it must not be acknowledged.
+            if (expireAt <= exchange.getClock().currentTimeMillis()) {
+                return ResponseEntity.badRequest().body("expireAt is in the past");
+            }
+            o.setTimeInForce(TimeInForce.GTT, expireAt);
+        } else if (req.getTimeInForce() == TimeInForce.DAY) {
+            o.setTimeInForce(TimeInForce.DAY, 0);
+        }
+        String rejected = risk.reserve(req.getTraderId(), req.getStockSymbol(), o.riskPrice(), req.getQuantity());
+        if (rejected != null) {
+            return ResponseEntity.badRequest().body("Rejected by risk check: " + rejected);
+        }
+        o.reserveExposure();
+        if (!exchange.submitOrder(o)) {
+            risk.release(req.getTraderId(), o.riskPrice(), req.getQuantity());
+            return ResponseEntity.badRequest().body("Unknown symbol: " + req.getStockSymbol());
+        }
+        awaitReplication("Order " + o.getOrderId());
         return ResponseEntity.ok(o.getOrderId());
     }
 
+    // Checked on the request thread so only well-formed orders for listed symbols reach the engine queue.
+    private String validate(OrderRequest req) {
+        if (req.getStockSymbol() == null || !exchange.isListed(req.getStockSymbol())) {
+            return "Unknown symbol: " + req.getStockSymbol();
+        }
+        if (req.getOrderType() == null) return "orderType is required";
+        Double stop = req.getStopPrice();
+        if (stop != null && (!(stop > 0) || Double.isInfinite(stop))) return "stopPrice must be positive";
+        // A price of 0 is a market order, which is only accepted as the order a stop turns into.
+        if (!(req.getPrice() > 0 || req.getPrice() == 0 && stop != null) || Double.isInfinite(req.getPrice())) {
+            return stop != null ? "price must be positive, or 0 for a stop-market order" : "price must be positive";
+        }
+        if (req.getQuantity() <= 0) return "quantity must be positive";
+        if (req.getTraderId() == null || req.getTraderId().isBlank()) return "traderId is required";
+        if (tooLong(req.getTraderId())) return "traderId must be at most " + MAX_ID_LENGTH + " characters";
+        return null;
+    }
+
+    private static boolean tooLong(String id) {
+        return id != null && id.length() > MAX_ID_LENGTH;
+    }
+
     @PostMapping("/orders/{orderId}/modify")
-    public ResponseEntity<Void> modifyOrder(@PathVariable String orderId, @RequestBody ModifyRequest req) {
-        exchange.modifyOrder(orderId, req.getNewPrice());
+    public ResponseEntity<String> modifyOrder(@PathVariable String orderId, @RequestBody ModifyRequest req) {
+        requireWritable();
+        if (tooLong(orderId)) {
+            return ResponseEntity.badRequest().body("Unknown order: orderId is too long");
+        }
+        if (req.getNewPrice() == null && req.getNewQuantity() == null) {
+            return ResponseEntity.badRequest().body("newPrice or newQuantity is required");
+        }
+        if (req.getNewPrice() != null && (!(req.getNewPrice() > 0) || Double.isInfinite(req.getNewPrice()))) {
+            return ResponseEntity.badRequest().body("newPrice must be positive");
+        }
+        if (req.getNewQuantity() != null && req.getNewQuantity() < 0) {
+            return ResponseEntity.badRequest().body("newQuantity must not be negative");
+        }
+        // A consistent snapshot; the engine settles any difference from the order it actually amends.
+        OrderView current = exchange.getOrderView(orderId);
+        long increase = PreTradeRisk.amendIncrease(current, req.getNewPrice(), req.getNewQuantity());
+        String rejected = risk.checkAmend(current, req.getNewPrice(), req.getNewQuantity(), increase);
+        if (rejected != null) {
+            return ResponseEntity.badRequest().body("Rejected by risk check: " + rejected);
+        }
+        exchange.amendOrder(orderId, req.getNewPrice(), req.getNewQuantity(),
+                current == null ? null : current.traderId(), increase);
+        awaitReplication("Modify");
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("/orders/{orderId}/cancel")
     public ResponseEntity<Void> cancelOrder(@PathVariable String orderId) {
+        requireWritable();
+        if (tooLong(orderId)) return ResponseEntity.badRequest().build();
         exchange.cancelOrder(orderId);
+        awaitReplication("Cancel");
         return ResponseEntity.ok().build();
     }
 
+    @PostMapping("/orders/mass-cancel")
+    public ResponseEntity<String> massCancel(@RequestBody MassCancelRequest req) {
+        requireWritable();
+        if (req.getTraderId() == null || req.getTraderId().isBlank() || tooLong(req.getTraderId())) {
+            return ResponseEntity.badRequest().body("traderId is required, at most " + MAX_ID_LENGTH + " characters");
+        }
+        exchange.massCancel(req.getTraderId(), req.getStockSymbol(), req.getOrderType());
+        awaitReplication("Mass cancel");
+        return ResponseEntity.ok().build();
+    }
 
+    @GetMapping("/orders")
+    public ResponseEntity<List<OrderView>> orders(@RequestParam String traderId) {
+        return ResponseEntity.ok(exchange.getOrdersForTrader(traderId));
+    }
 
+    // Net quantity, average cost, realized and mark-to-market P&L per symbol, kept up to date fill by fill.
+    @GetMapping("/positions")
+    public ResponseEntity<List<Position>> positions(@RequestParam String traderId) {
+        return ResponseEntity.ok(exchange.getPositions(traderId));
+    }
 
+    // The pre-trade limits and rejection counts, plus traderId's open exposure on this node when given.
+    @GetMapping("/risk")
+    public ResponseEntity<Map<String, Object>> risk(@RequestParam(required = false) String traderId) {
+        Map<String, Object> body = risk.limits();
+        if (traderId != null) body.put("exposure", risk.exposure(traderId));
+        return ResponseEntity.ok(body);
+    }
 
+    @PostMapping("/sessions/{traderId}/heartbeat")
+    public ResponseEntity<Void> heartbeat(@PathVariable String traderId,
+                                          @RequestParam(defaultValue = "5000") long timeoutMs) {
+        requireWritable();
+        if (tooLong(traderId)) return ResponseEntity.badRequest().build();
+        sessions.heartbeat(traderId, timeoutMs);
+        return ResponseEntity.ok().build();
+    }
+
+    @DeleteMapping("/sessions/{traderId}")
+    public ResponseEntity<Void> disconnect(@PathVariable String traderId) {
+        requireWritable();
+        sessions.disconnect(traderId);
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/admin/symbols")
+    public ResponseEntity<List<String>> listSymbols(@RequestBody List<String> symbols) {
+        requireWritable();
+        if (symbols.stream().anyMatch(ExchangeController::tooLong)) return ResponseEntity.badRequest().build();
+        for (String symbol : symbols) {
+            if (symbol != null && !symbol.isBlank()) {
+                exchange.listSymbol(symbol.trim());
+            }
+        }
+        return ResponseEntity.ok(exchange.getSymbols());
+    }
+
+    @GetMapping("/admin/symbols")
+    public ResponseEntity<List<String>> symbols() {
+        return ResponseEntity.ok(exchange.getSymbols());
+    }
+
+    // Body maps symbols to a batch auction interval in ms; 0 puts a symbol back on continuous matching.
+    @PostMapping("/admin/auctions")
+    public ResponseEntity<?> setAuctions(@RequestBody Map<String, Long> intervals) {
+        requireWritable();
+        for (Map.Entry<String, Long> entry : intervals.entrySet()) {
+            if (!exchange.isListed(entry.getKey())) {
+                return ResponseEntity.badRequest().body("Unknown symbol: " + entry.getKey());
+            }
+            if (entry.getValue() == null || entry.getValue() < 0) {
+                return ResponseEntity.badRequest().body("Interval must not be negative: " + entry.getKey());
+            }
+        }
+        intervals.forEach(exchange::setAuctionInterval);
+        exchange.flush();
+        awaitReplication("Auction mode");
+        return ResponseEntity.ok(exchange.getAuctionIntervals());
+    }
+
+    @GetMapping("/admin/auctions")
+    public ResponseEntity<Map<String, Long>> auctions() {
+        return ResponseEntity.ok(exchange.getAuctionIntervals());
+    }
+
+
+
+
+
+    // JSON, or CBOR for Accept: application/cbor; ETag is the book's version, so an unchanged book answers 304.
     @GetMapping("/orderbook/data/{symbol}")
-    public ResponseEntity<OrderBook> getOrderBookData(@PathVariable String symbol) {
-        return ResponseEntity.ok(exchange.getOrderBook(symbol));
+    public ResponseEntity<byte[]> getOrderBookData(@PathVariable String symbol, HttpServletRequest request) {
+        OrderBook book = exchange.getOrderBook(symbol);
+        if (book == null) return ResponseEntity.ok().build();
+        // Version read before the book is rendered and bumped only after a change, so a body is never older than its tag.
+        long version = book.version();
+        return responses.respond(request, "book:" + symbol, instance + "-b" + version, () -> exchange.getOrderBook(symbol));
     }
 
+    // With ?since=N only trades from index N on (sequence > N) are returned, so a poller fetches each trade once.
+    // X-Trade-Count is the total so far; a count below the caller's cursor means the exchange restarted, and
+    // so does a new X-Exchange-Instance, which also catches a restart that has already traded past the cursor.
+    // Bodies are cached per (since, count) and negotiated like the book data above.
     @GetMapping("/trades")
-    public ResponseEntity<List<Trade>> trades() {
-        return ResponseEntity.ok(exchange.getTradeHistory());
+    public ResponseEntity<byte[]> trades(@RequestParam(required = false) Integer since, HttpServletRequest request) {
+        int count = exchange.getTradeCount();
+        int from = since == null ? 0 : since;
+        ResponseEntity<byte[]> response = responses.respond(request, since == null ? "trades" : "trades-since",
+                instance + "-t" + from + "-" + count, () -> exchange.getTradeHistory(from, count));
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header("X-Trade-Count", String.valueOf(count))
+                .header("X-Exchange-Instance", instance)
+                .body(response.getBody());
+    }
+
+    // Receipt -> enqueue -> dequeue -> match timings of the order that caused the trade, for recent trades.
+    @GetMapping("/trades/{sequence}/latency")
+    public ResponseEntity<Map<String, Object>> tradeLatency(@PathVariable long sequence) {
+        Map<String, Object> breakdown = exchange.getTradeLatency(sequence);
+        return breakdown == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(breakdown);
+    }
+
+    // The last limit OHLCV bars plus the symbol's session statistics, maintained as trades happen.
+    @GetMapping("/candles/{symbol}")
+    public ResponseEntity<?> candles(@PathVariable String symbol,
+                                     @RequestParam(defaultValue = "1m") String interval,
+                                     @RequestParam(defaultValue = "500") int limit) {
+        CandleInterval parsed;
+        try {
+            parsed = CandleInterval.parse(interval);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        Map<String, Object> session = exchange.getSessionStats(symbol);
+        if (session == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Unknown symbol: " + symbol);
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("symbol", symbol);
+        body.put("interval", parsed.label());
+        body.put("session", session);
+        body.put("candles", exchange.getCandles(symbol, parsed, Math.max(0, Math.min(limit, parsed.retained()))));
+        return ResponseEntity.ok(body);
     }
 
     @GetMapping("/alerts")
@@ -60,6 +548,10 @@ public class ExchangeController {
 
     @PostMapping("/alerts/{alertId}/claim")
     public ResponseEntity<Void> claimAlert(@PathVariable String alertId, @RequestBody ClaimRequest req) {
+        requireWritable();
+        if (req.getBuyerId() == null || req.getBuyerId().isBlank() || tooLong(req.getBuyerId()) || tooLong(alertId)) {
+            return ResponseEntity.badRequest().build();
+        }
         boolean accepted = exchange.claimAlert(alertId, req.getBuyerId());
         if (!accepted) {
             return ResponseEntity.status(HttpStatus.CONFLICT).build();
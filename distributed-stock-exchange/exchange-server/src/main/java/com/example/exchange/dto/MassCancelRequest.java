@@ -0,0 +1,18 @@
+package com.example.exchange.dto;
+
+import com.example.exchange.engine.OrderType;
+
+public class MassCancelRequest {
+    private String traderId;
+    private String stockSymbol;
+    private OrderType orderType;
+
+    public MassCancelRequest() {}
+
+    public String getTraderId() { return traderId; }
+    public void setTraderId(String traderId) { this.traderId = traderId; }
+    public String getStockSymbol() { return stockSymbol; }
+    public void setStockSymbol(String stockSymbol) { this.stockSymbol = stockSymbol; }
+    public OrderType getOrderType() { return orderType; }
+    public void setOrderType(OrderType orderType) { this.orderType = orderType; }
+}
@@ -1,8 +1,11 @@
 package com.example.exchange.dto;
 
 public class ModifyRequest {
-    private double newPrice;
+    private Double newPrice;
+    private Integer newQuantity;
     public ModifyRequest() {}
-    public double getNewPrice() { return newPrice; }
-    public void setNewPrice(double newPrice) { this.newPrice = newPrice; }
+    public Double getNewPrice() { return newPrice; }
+    public void setNewPrice(Double newPrice) { this.newPrice = newPrice; }
+    public Integer getNewQuantity() { return newQuantity; }
+    public void setNewQuantity(Integer newQuantity) { this.newQuantity = newQuantity; }
 }
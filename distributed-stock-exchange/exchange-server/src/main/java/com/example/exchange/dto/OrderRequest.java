@@ -1,6 +1,7 @@
 package com.example.exchange.dto;
 
 import com.example.exchange.engine.OrderType;
+import com.example.exchange.engine.TimeInForce;
 
 public class OrderRequest {
     private String stockSymbol;
@@ -8,6 +9,10 @@ public class OrderRequest {
     private double price;
     private int quantity;
     private String traderId;
+    private TimeInForce timeInForce;
+    private Long expireAt;
+    private Long ttlMillis;
+    private Double stopPrice;
 
     public OrderRequest() {}
 
@@ -21,4 +26,12 @@ public class OrderRequest {
     public void setQuantity(int quantity) { this.quantity = quantity; }
     public String getTraderId() { return traderId; }
     public void setTraderId(String traderId) { this.traderId = traderId; }
+    public TimeInForce getTimeInForce() { return timeInForce; }
+    public void setTimeInForce(TimeInForce timeInForce) { this.timeInForce = timeInForce; }
+    public Long getExpireAt() { return expireAt; }
+    public void setExpireAt(Long expireAt) { this.expireAt = expireAt; }
+    public Long getTtlMillis() { return ttlMillis; }
+    public void setTtlMillis(Long ttlMillis) { this.ttlMillis = ttlMillis; }
+    public Double getStopPrice() { return stopPrice; }
+    public void setStopPrice(Double stopPrice) { this.stopPrice = stopPrice; }
 }
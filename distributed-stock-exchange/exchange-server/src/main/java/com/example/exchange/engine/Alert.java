@@ -1,5 +1,6 @@
 package com.example.exchange.engine;
 
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 public class Alert {
@@ -13,13 +14,18 @@ public class Alert {
     private volatile boolean claimed;
 
     public Alert(String orderId, String stockSymbol, double price, int quantity, String sellerId) {
-        this.id = UUID.randomUUID().toString();
+        this(orderId, stockSymbol, price, quantity, sellerId, System.currentTimeMillis());
+    }
+
+    public Alert(String orderId, String stockSymbol, double price, int quantity, String sellerId, long createdAt) {
+        // Derived from the order so a replica or replay of the same events hands out the same alert id.
+        this.id = UUID.nameUUIDFromBytes(("alert:" + orderId).getBytes(StandardCharsets.UTF_8)).toString();
         this.orderId = orderId;
         this.stockSymbol = stockSymbol;
         this.price = price;
         this.quantity = quantity;
         this.sellerId = sellerId;
-        this.createdAt = System.currentTimeMillis();
+        this.createdAt = createdAt;
         this.claimed = false;
     }
 
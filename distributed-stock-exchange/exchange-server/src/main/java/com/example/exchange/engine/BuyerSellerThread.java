@@ -60,6 +60,7 @@ public class BuyerSellerThread extends Thread {
         price = Math.round(price * 100.0) / 100.0;
 
         Order order = new Order(stock, type, price, quantity, getName());
+        order.setTimeInForce(TimeInForce.GTT, order.getCreatedAt() + ORDER_TTL_MS * 4);
         System.out.printf("%s: NEW -> %s\n", getName(), order);
         exchange.submitOrder(order);
 
@@ -0,0 +1,5 @@
+package com.example.exchange.engine;
+
+// One OHLCV bar; time is the bar's start in epoch millis.
+public record Candle(long time, double open, double high, double low, double close, long volume, int trades) {
+}
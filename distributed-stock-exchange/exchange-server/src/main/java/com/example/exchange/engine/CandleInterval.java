@@ -0,0 +1,29 @@
+package com.example.exchange.engine;
+
+public enum CandleInterval {
+    S1("1s", 1_000, 3_600),
+    M1("1m", 60_000, 1_440),
+    M5("5m", 300_000, 576);
+
+    private final String label;
+    private final long millis;
+    private final int retained;
+
+    CandleInterval(String label, long millis, int retained) {
+        this.label = label;
+        this.millis = millis;
+        this.retained = retained;
+    }
+
+    public String label() { return label; }
+    public long millis() { return millis; }
+    // Bars kept per symbol: an hour of 1s, a day of 1m, two days of 5m.
+    public int retained() { return retained; }
+
+    public static CandleInterval parse(String label) {
+        for (CandleInterval interval : values()) {
+            if (interval.label.equals(label)) return interval;
+        }
+        throw new IllegalArgumentException("Unknown interval " + label + ", expected 1s, 1m or 5m");
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.exchange.engine;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary log of every inbound engine event, in the order the engine processed it,
+ * followed by the trades that event produced. Symbols and trader ids are written once and
+ * referenced by index afterwards; sequence numbers and timestamps are delta encoded. Strings are a
+ * varint length and UTF-8 bytes, so no id is too long to record.
+ */
+public class EventJournal implements Closeable {
+
+    static final int MAGIC = 0x53584A31;
+    static final short VERSION = 11;
+
+    static final byte NEW_ORDER = 1;
+    static final byte CANCEL_ORDER = 2;
+    static final byte MODIFY_ORDER = 3;
+    static final byte CLAIM_ALERT = 4;
+    static final byte EXPIRE_ORDER = 5;
+    static final byte MASS_CANCEL = 6;
+    static final byte LIST_SYMBOL = 7;
+    static final byte AUCTION_MODE = 8;
+    static final byte UNCROSS = 9;
+    // Snapshot records, which open each segment of a replication stream.
+    static final byte SNAPSHOT = 10;
+    static final byte LAST_PRICE = 11;
+    static final byte RESTING_ORDER = 12;
+    // Written between records by a replication sender while the stream is idle; carries nothing.
+    public static final byte HEARTBEAT = 13;
+    static final byte TRADE = 100;
+
+    private final OutputStream sink;
+    // Each record is encoded here in full and only then copied to the sink, so a failure never
+    // leaves part of a record behind for the next flush.
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream(256);
+    private final DataOutputStream out = new DataOutputStream(record);
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private long lastSequence;
+    private long lastTimestamp;
+    private long lastWallMillis;
+    private long eventsWritten;
+    private boolean failed;
+
+    /** {@code epoch} identifies the exchange instance writing, whose sequences a reader can rely on. */
+    public EventJournal(OutputStream target, long epoch) throws IOException {
+        this.sink = new BufferedOutputStream(target, 1 << 16);
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(epoch);
+        commit();
+    }
+
+    static boolean records(StockExchange.Event event) {
+        return event instanceof StockExchange.NewOrderEvent || event instanceof StockExchange.CancelOrderEvent
+                || event instanceof StockExchange.ModifyOrderEvent || event instanceof StockExchange.ClaimAlertEvent
+                || event instanceof StockExchange.MassCancelEvent || event instanceof StockExchange.ListSymbolEvent
+                || event instanceof StockExchange.ExpireOrderEvent || event instanceof StockExchange.AuctionModeEvent
+                || event instanceof StockExchange.UncrossEvent;
+    }
+
+    synchronized void recordEvent(StockExchange.Event event, long sequence, long timestampNanos, long wallMillis) {
+        if (failed) return;
+        try {
+            if (event instanceof StockExchange.NewOrderEvent e) {
+                writeHeader(NEW_ORDER, sequence, timestampNanos, wallMillis);
+                writeOrder(e.order);
+            } else if (event instanceof StockExchange.CancelOrderEvent e) {
+                writeHeader(CANCEL_ORDER, sequence, timestampNanos, wallMillis);
+                writeText(out, e.orderId);
+            } else if (event instanceof StockExchange.ModifyOrderEvent e) {
+                writeHeader(MODIFY_ORDER, sequence, timestampNanos, wallMillis);
+                writeText(out, e.orderId);
+                out.writeDouble(e.newPrice);
+                writeVarLong(out, zigZag(e.newQuantity));
+            } else if (event instanceof StockExchange.ClaimAlertEvent e) {
+                writeHeader(CLAIM_ALERT, sequence, timestampNanos, wallMillis);
+                writeText(out, e.alertId);
+                writeText(out, e.orderId);
+                writeString(e.buyerId);
+            } else if (event instanceof StockExchange.MassCancelEvent e) {
+                writeHeader(MASS_CANCEL, sequence, timestampNanos, wallMillis);
+                writeString(e.traderId);
+                out.writeBoolean(e.stockSymbol != null);
+                if (e.stockSymbol != null) writeString(e.stockSymbol);
+                out.writeByte(e.side == null ? -1 : e.side.ordinal());
+            } else if (event instanceof StockExchange.ListSymbolEvent e) {
+                writeHeader(LIST_SYMBOL, sequence, timestampNanos, wallMillis);
+                writeString(e.symbol);
+            } else if (event instanceof StockExchange.ExpireOrderEvent e) {
+                writeHeader(EXPIRE_ORDER, sequence, timestampNanos, wallMillis);
+                writeText(out, e.orderId);
+            } else if (event instanceof StockExchange.AuctionModeEvent e) {
+                writeHeader(AUCTION_MODE, sequence, timestampNanos, wallMillis);
+                writeString(e.symbol);
+                writeVarLong(out, e.intervalMillis);
+            } else if (event instanceof StockExchange.UncrossEvent e) {
+                writeHeader(UNCROSS, sequence, timestampNanos, wallMillis);
+                writeString(e.symbol);
+            } else if (event instanceof StockExchange.SnapshotEvent e) {
+                writeHeader(SNAPSHOT, sequence, timestampNanos, wallMillis);
+                writeVarLong(out, e.tradeSequence);
+            } else if (event instanceof StockExchange.LastPriceEvent e) {
+                writeHeader(LAST_PRICE, sequence, timestampNanos, wallMillis);
+                writeString(e.symbol);
+                out.writeDouble(e.price);
+            } else if (event instanceof StockExchange.RestingOrderEvent e) {
+                writeHeader(RESTING_ORDER, sequence, timestampNanos, wallMillis);
+                writeOrder(e.order);
+                writeVarLong(out, e.bookedSequence);
+                out.writeBoolean(e.stopPending);
+            } else {
+                return;
+            }
+            commit();
+            eventsWritten++;
+        } catch (IOException ex) {
+            fail(ex);
+        }
+    }
+
+    synchronized void recordTrade(Trade trade) {
+        if (failed) return;
+        try {
+            byte[] encoded = encode(trade);
+            out.writeByte(TRADE);
+            writeVarLong(out, encoded.length);
+            out.write(encoded);
+            commit();
+        } catch (IOException ex) {
+            fail(ex);
+        }
+    }
+
+    private void commit() throws IOException {
+        record.writeTo(sink);
+        record.reset();
+    }
+
+    // A broken capture must never take the engine thread down with it.
+    private void fail(IOException ex) {
+        failed = true;
+        record.reset();
+        System.err.println("Event capture stopped: " + ex.getMessage());
+    }
+
+    // Whether a write has failed, after which nothing more is recorded.
+    public synchronized boolean isFailed() {
+        return failed;
+    }
+
+    public synchronized long getEventsWritten() {
+        return eventsWritten;
+    }
+
+    public synchronized void flush() throws IOException {
+        sink.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sink.close();
+    }
+
+    // Canonical trade encoding; replay compares these bytes to detect any divergence.
+    static byte[] encode(Trade trade) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+            DataOutputStream data = new DataOutputStream(bytes);
+            data.writeLong(trade.getSequence());
+            data.writeLong(trade.getTimestampNanos());
+            data.writeLong(trade.getTimestamp());
+            writeText(data, trade.getStockSymbol());
+            data.writeInt(trade.getQuantity());
+            data.writeDouble(trade.getPrice());
+            writeText(data, trade.getBuyerId());
+            writeText(data, trade.getSellerId());
+            writeText(data, trade.getAggressorOrderId() != null ? trade.getAggressorOrderId() : "");
+            writeText(data, trade.getPassiveOrderId() != null ? trade.getPassiveOrderId() : "");
+            return bytes.toByteArray();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private void writeHeader(byte type, long sequence, long timestampNanos, long wallMillis) throws IOException {
+        out.writeByte(type);
+        writeVarLong(out, sequence - lastSequence);
+        writeVarLong(out, zigZag(timestampNanos - lastTimestamp));
+        writeVarLong(out, zigZag(wallMillis - lastWallMillis));
+        lastSequence = sequence;
+        lastTimestamp = timestampNanos;
+        lastWallMillis = wallMillis;
+    }
+
+    private void writeOrder(Order o) throws IOException {
+        writeText(out, o.getOrderId());
+        writeString(o.getStockSymbol());
+        out.writeByte(o.getOrderType().ordinal());
+        out.writeDouble(o.getPrice());
+        writeVarLong(out, o.getQuantity());
+        writeString(o.getTraderId());
+        out.writeLong(o.getCreatedAt());
+        out.writeByte(o.getTimeInForce().ordinal());
+        writeVarLong(out, o.getExpireAt());
+        out.writeDouble(o.getStopPrice());
+    }
+
+    private void writeString(String value) throws IOException {
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            writeVarLong(out, index + 1);
+            return;
+        }
+        writeVarLong(out, 0);
+        writeText(out, value);
+        dictionary.put(value, dictionary.size());
+    }
+
+    static void writeText(DataOutput data, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(data, bytes.length);
+        data.write(bytes);
+    }
+
+    static void writeVarLong(DataOutput data, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            data.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        data.writeByte((int) value);
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.exchange.engine;
+
+public interface ExchangeClock {
+
+    ExchangeClock SYSTEM = new ExchangeClock() {
+        @Override
+        public long currentTimeMillis() { return System.currentTimeMillis(); }
+
+        @Override
+        public long nanoTime() { return System.nanoTime(); }
+    };
+
+    long currentTimeMillis();
+
+    long nanoTime();
+}
@@ -0,0 +1,69 @@
+package com.example.exchange.engine;
+
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel for good-till-time and day orders, owned by the engine thread.
+ * Each tick visits a single slot, so expiry never scans the order books. Orders that are
+ * filled or cancelled before their deadline are not unlinked; they are dropped when their
+ * slot comes round and the engine finds they are no longer active.
+ */
+class ExpiryWheel {
+
+    private final long tickMillis;
+    private final ArrayList<Order>[] slots;
+    private final int mask;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    ExpiryWheel(int slotCount, long tickMillis, long nowMillis) {
+        if (Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("slotCount must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ArrayList<>();
+        }
+        this.mask = slotCount - 1;
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    long getTickMillis() { return tickMillis; }
+    int size() { return size; }
+
+    void schedule(Order order) {
+        long tick = Math.max(Math.floorDiv(order.getExpireAt() + tickMillis - 1, tickMillis), currentTick + 1);
+        slots[(int) (tick & mask)].add(order);
+        size++;
+    }
+
+    void advance(long nowMillis, Consumer<Order> onExpired) {
+        long targetTick = nowMillis / tickMillis;
+        if (targetTick <= currentTick) return;
+        if (size == 0) {
+            currentTick = targetTick;
+            return;
+        }
+        long steps = Math.min(targetTick - currentTick, slots.length);
+        for (long i = 1; i <= steps; i++) {
+            expireSlot(slots[(int) ((currentTick + i) & mask)], nowMillis, onExpired);
+        }
+        currentTick = targetTick;
+    }
+
+    private void expireSlot(ArrayList<Order> slot, long nowMillis, Consumer<Order> onExpired) {
+        for (int i = slot.size() - 1; i >= 0; i--) {
+            Order order = slot.get(i);
+            if (order.getExpireAt() > nowMillis) continue;
+
+            int last = slot.size() - 1;
+            slot.set(i, slot.get(last));
+            slot.remove(last);
+            size--;
+            onExpired.accept(order);
+        }
+    }
+}
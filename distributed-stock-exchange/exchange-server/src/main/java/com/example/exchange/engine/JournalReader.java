@@ -0,0 +1,199 @@
+package com.example.exchange.engine;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JournalReader implements Closeable {
+
+    public static final class Record {
+        final byte type;
+        final long sequence;
+        final long timestampNanos;
+        final long wallMillis;
+        final StockExchange.Event event;
+        final byte[] trade;
+
+        Record(byte type, long sequence, long timestampNanos, long wallMillis, StockExchange.Event event, byte[] trade) {
+            this.type = type;
+            this.sequence = sequence;
+            this.timestampNanos = timestampNanos;
+            this.wallMillis = wallMillis;
+            this.event = event;
+            this.trade = trade;
+        }
+
+        public boolean isTrade() { return type == EventJournal.TRADE; }
+        public boolean isSnapshot() { return type == EventJournal.SNAPSHOT; }
+        public long getSequence() { return sequence; }
+        public long getTimestampNanos() { return timestampNanos; }
+        public long getWallMillis() { return wallMillis; }
+    }
+
+    private final DataInputStream in;
+    private final List<String> dictionary = new ArrayList<>();
+    private long lastSequence;
+    private long lastTimestamp;
+    private long lastWallMillis;
+    private long epoch;
+
+    public JournalReader(InputStream source) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(source, 1 << 16));
+        readHeader(in.readInt());
+    }
+
+    // Returns null at end of stream.
+    public Record next() throws IOException {
+        int type;
+        try {
+            type = in.readUnsignedByte();
+        } catch (EOFException e) {
+            return null;
+        }
+        // A replication stream is a run of journals, each starting over with its own header.
+        if (type == EventJournal.MAGIC >>> 24) {
+            readHeader(type << 24 | in.readUnsignedByte() << 16 | in.readUnsignedShort());
+            dictionary.clear();
+            lastSequence = 0;
+            lastTimestamp = 0;
+            lastWallMillis = 0;
+            return next();
+        }
+        if (type == EventJournal.HEARTBEAT) {
+            return next();
+        }
+        if (type == EventJournal.TRADE) {
+            byte[] trade = new byte[(int) readVarLong()];
+            in.readFully(trade);
+            return new Record((byte) type, lastSequence, lastTimestamp, lastWallMillis, null, trade);
+        }
+
+        lastSequence += readVarLong();
+        lastTimestamp += unZigZag(readVarLong());
+        lastWallMillis += unZigZag(readVarLong());
+        StockExchange.Event event;
+        switch (type) {
+            case EventJournal.NEW_ORDER -> event = new StockExchange.NewOrderEvent(readOrder());
+            case EventJournal.CANCEL_ORDER -> event = new StockExchange.CancelOrderEvent(readText(in));
+            case EventJournal.MODIFY_ORDER -> event = new StockExchange.ModifyOrderEvent(
+                    readText(in), in.readDouble(), (int) unZigZag(readVarLong()));
+            case EventJournal.CLAIM_ALERT -> event = new StockExchange.ClaimAlertEvent(readText(in), readText(in), readString());
+            case EventJournal.MASS_CANCEL -> {
+                String traderId = readString();
+                String symbol = in.readBoolean() ? readString() : null;
+                byte side = in.readByte();
+                event = new StockExchange.MassCancelEvent(traderId, symbol, side < 0 ? null : OrderType.values()[side]);
+            }
+            case EventJournal.LIST_SYMBOL -> event = new StockExchange.ListSymbolEvent(readString());
+            case EventJournal.EXPIRE_ORDER -> event = new StockExchange.ExpireOrderEvent(readText(in));
+            case EventJournal.AUCTION_MODE -> event = new StockExchange.AuctionModeEvent(readString(), readVarLong());
+            case EventJournal.UNCROSS -> event = new StockExchange.UncrossEvent(readString());
+            case EventJournal.SNAPSHOT -> event = new StockExchange.SnapshotEvent(readVarLong());
+            case EventJournal.LAST_PRICE -> event = new StockExchange.LastPriceEvent(readString(), in.readDouble());
+            case EventJournal.RESTING_ORDER -> event = new StockExchange.RestingOrderEvent(
+                    readOrder(), readVarLong(), in.readBoolean());
+            default -> throw new IOException("Unknown journal record type " + type);
+        }
+        return new Record((byte) type, lastSequence, lastTimestamp, lastWallMillis, event, null);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private void readHeader(int magic) throws IOException {
+        if (magic != EventJournal.MAGIC) {
+            throw new IOException("Not an event journal");
+        }
+        short version = in.readShort();
+        if (version != EventJournal.VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+        epoch = in.readLong();
+    }
+
+    // Of the exchange that wrote the journal (segment) read last; a restarted one has a new epoch.
+    public long getEpoch() {
+        return epoch;
+    }
+
+    private Order readOrder() throws IOException {
+        String orderId = readText(in);
+        String symbol = readString();
+        OrderType orderType = OrderType.values()[in.readUnsignedByte()];
+        double price = in.readDouble();
+        int quantity = (int) readVarLong();
+        String traderId = readString();
+        long createdAt = in.readLong();
+        Order order = new Order(orderId, symbol, orderType, price, quantity, traderId, createdAt);
+        order.setTimeInForce(TimeInForce.values()[in.readUnsignedByte()], readVarLong());
+        order.setStopPrice(in.readDouble());
+        return order;
+    }
+
+    // The inverse of EventJournal#encode; the trace id is not journalled.
+    static Trade decode(byte[] encoded) {
+        try {
+            DataInputStream data = new DataInputStream(new ByteArrayInputStream(encoded));
+            long sequence = data.readLong();
+            long timestampNanos = data.readLong();
+            long timestamp = data.readLong();
+            String symbol = readText(data);
+            int quantity = data.readInt();
+            double price = data.readDouble();
+            String buyerId = readText(data);
+            String sellerId = readText(data);
+            String aggressorOrderId = readText(data);
+            String passiveOrderId = readText(data);
+            return new Trade(sequence, timestampNanos, timestamp, symbol, quantity, price, buyerId, sellerId,
+                    aggressorOrderId.isEmpty() ? null : aggressorOrderId,
+                    passiveOrderId.isEmpty() ? null : passiveOrderId, null);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private String readString() throws IOException {
+        int index = (int) readVarLong();
+        if (index > 0) return dictionary.get(index - 1);
+        String value = readText(in);
+        dictionary.add(value);
+        return value;
+    }
+
+    private long readVarLong() throws IOException {
+        return readVarLong(in);
+    }
+
+    static String readText(DataInput data) throws IOException {
+        long length = readVarLong(data);
+        if (length > Integer.MAX_VALUE - 8) throw new IOException("Corrupt journal: string of " + length + " bytes");
+        byte[] bytes = new byte[(int) length];
+        data.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static long readVarLong(DataInput data) throws IOException {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            int b = data.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+            shift += 7;
+        }
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -11,15 +11,45 @@ public class Order {
     private double price;
     private volatile int quantity;
     private long createdAt;
+    private TimeInForce timeInForce = TimeInForce.GTC;
+    private long expireAt;
+    // Stop orders wait for a trade at or through stopPrice (0: not a stop); price 0 makes it a stop-market order.
+    private double stopPrice;
+
+    int symbolId = SymbolRegistry.UNKNOWN;
+    // Engine-side: whether the output stage holds a low-price alert for this order.
+    boolean alerted;
+    // Open notional (cents) already counted against the trader by the risk stage; -1 when not tracked.
+    long exposureCents = -1;
+    // Engine-side: parked in the symbol's trigger book rather than the order book.
+    boolean stopPending;
+    // Engine-side: sequence of the event that last put it in the book, which a replay reproduces exactly.
+    long bookedSequence;
+    // Engine-side: what readers see of this order, republished by TraderOrders after it changes.
+    volatile OrderView view;
+    boolean viewStale;
+    // Caller's trace id and System.nanoTime stamps for latency tracing; never journaled.
+    private String traceId;
+    long receivedNanos;
+    long enqueuedNanos;
+    long dequeuedNanos;
+    PriceLevel level;
+    Order prevInLevel;
+    Order nextInLevel;
 
     public Order(String stockSymbol, OrderType orderType, double price, int quantity, String traderId) {
-        this.orderId = UUID.randomUUID().toString();
+        this(UUID.randomUUID().toString(), stockSymbol, orderType, price, quantity, traderId, System.currentTimeMillis());
+    }
+
+    public Order(String orderId, String stockSymbol, OrderType orderType, double price, int quantity,
+                 String traderId, long createdAt) {
+        this.orderId = orderId;
         this.stockSymbol = stockSymbol;
         this.orderType = orderType;
         this.price = price;
         this.quantity = quantity;
         this.traderId = traderId;
-        this.createdAt = System.currentTimeMillis();
+        this.createdAt = createdAt;
     }
 
     public String getOrderId() { return orderId; }
@@ -29,8 +59,46 @@ public class Order {
     public double getPrice() { return price; }
     public int getQuantity() { return quantity; }
     public long getCreatedAt() { return createdAt; }
+    public TimeInForce getTimeInForce() { return timeInForce; }
+    public long getExpireAt() { return expireAt; }
+    public String getTraceId() { return traceId; }
+    public double getStopPrice() { return stopPrice; }
+
+    public boolean isStop() {
+        return stopPrice > 0;
+    }
+
+    // Takes any price once triggered; whatever it cannot fill is cancelled rather than rested.
+    public boolean isMarket() {
+        return price == 0;
+    }
+
+    public void setStopPrice(double stopPrice) {
+        this.stopPrice = stopPrice;
+    }
+
+    // The price exposure is counted at: the limit, or the stop for a stop-market order.
+    public double riskPrice() {
+        return price > 0 ? price : stopPrice;
+    }
+
+    public void trace(String traceId, long receivedNanos) {
+        this.traceId = traceId;
+        this.receivedNanos = receivedNanos;
+    }
+
+    // Tells the engine the risk stage has already counted this order's notional and one open order.
+    public void reserveExposure() {
+        this.exposureCents = notionalCents(riskPrice(), quantity);
+    }
+
+    public static long notionalCents(double price, int quantity) {
+        return Math.round(price * 100) * quantity;
+    }
 
     public void setQuantity(int quantity) {
+        PriceLevel at = level;
+        if (at != null) at.quantity += quantity - this.quantity;
         this.quantity = quantity;
     }
 
@@ -38,14 +106,28 @@ public class Order {
         this.price = price;
     }
 
+    public void setTimeInForce(TimeInForce timeInForce, long expireAt) {
+        this.timeInForce = timeInForce;
+        this.expireAt = expireAt;
+    }
+
+    void setExpireAt(long expireAt) {
+        this.expireAt = expireAt;
+    }
+
     public void resetTimestamp() {
-        this.createdAt = System.currentTimeMillis();
+        resetTimestamp(System.currentTimeMillis());
+    }
+
+    public void resetTimestamp(long now) {
+        this.createdAt = now;
     }
 
     @Override
     public String toString() {
-        return String.format("%s %d %s @ $%.2f (ID: %s, Trader: %s)",
-                orderType, quantity, stockSymbol, price, orderId.substring(0, 4), traderId);
+        String stop = stopPrice > 0 ? String.format(" stop $%.2f", stopPrice) : "";
+        return String.format("%s %d %s @ $%.2f%s (ID: %s, Trader: %s)",
+                orderType, quantity, stockSymbol, price, stop, orderId.substring(0, 4), traderId);
     }
 
     @Override
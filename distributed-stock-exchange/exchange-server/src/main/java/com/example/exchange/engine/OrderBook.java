@@ -1,34 +1,153 @@
 package com.example.exchange.engine;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.PriorityQueue;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 public class OrderBook {
 
-    private final PriorityQueue<Order> bids;
-    private final PriorityQueue<Order> asks;
+    // Sides are allocated on first use and released again once they empty, so the thousands of
+    // illiquid symbols that sit with no orders cost a few dozen bytes each.
+    private volatile NavigableMap<Double, PriceLevel> bids;
+    private volatile NavigableMap<Double, PriceLevel> asks;
+    private int bidCount;
+    private int askCount;
+    long lastActivityMillis;
+    // Bumped by the engine once a change has been applied; an empty book that was never created reads as 0.
+    volatile long version;
+    boolean touched;
 
     public OrderBook() {
-        this.bids = new PriorityQueue<>((o1, o2) -> Double.compare(o2.getPrice(), o1.getPrice()));
-        this.asks = new PriorityQueue<>(Comparator.comparingDouble(Order::getPrice));
     }
 
-    public PriorityQueue<Order> getBids() { return bids; }
-    public PriorityQueue<Order> getAsks() { return asks; }
+    public List<Order> getBids() { return snapshot(bids); }
+    public List<Order> getAsks() { return snapshot(asks); }
+
+    public Order bestBid() { return best(bids); }
+    public Order bestAsk() { return best(asks); }
+    public int bidCount() { return bidCount; }
+    public int askCount() { return askCount; }
+    public long version() { return version; }
+
+    boolean isEmpty() {
+        return bidCount == 0 && askCount == 0;
+    }
+
+    Collection<PriceLevel> levels(OrderType side) {
+        NavigableMap<Double, PriceLevel> levels = side == OrderType.BUY ? bids : asks;
+        return levels == null ? Collections.emptyList() : levels.values();
+    }
 
     public void addOrder(Order order) {
+        NavigableMap<Double, PriceLevel> side;
         if (order.getOrderType() == OrderType.BUY) {
-            bids.add(order);
+            if (bids == null) bids = new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+            side = bids;
+            bidCount++;
         } else {
-            asks.add(order);
+            if (asks == null) asks = new ConcurrentSkipListMap<>();
+            side = asks;
+            askCount++;
         }
+        side.computeIfAbsent(order.getPrice(), PriceLevel::new).append(order);
     }
 
     public void removeOrder(Order order) {
+        PriceLevel level = order.level;
+        if (level == null) return;
+        level.unlink(order);
         if (order.getOrderType() == OrderType.BUY) {
-            bids.remove(order);
+            bidCount--;
+            if (level.isEmpty()) bids.remove(level.price, level);
+            if (bidCount == 0) bids = null;
         } else {
-            asks.remove(order);
+            askCount--;
+            if (level.isEmpty()) asks.remove(level.price, level);
+            if (askCount == 0) asks = null;
+        }
+    }
+
+    /**
+     * The single price that executes the most volume against the crossed part of the book, or NaN if
+     * it does not cross. Ties go to the smaller imbalance, then to the price nearest reference (the
+     * last trade, NaN if none), then to the lower price. Levels are aggregated once and swept upwards.
+     */
+    double clearingPrice(double reference) {
+        Order bestBid = best(bids);
+        Order bestAsk = best(asks);
+        if (bestBid == null || bestAsk == null || bestBid.getPrice() < bestAsk.getPrice()) return Double.NaN;
+        double[] bidPrices = new double[crossedLevels(bids, bestAsk.getPrice(), true)];
+        long[] bidQuantities = new long[bidPrices.length];
+        aggregate(bids, bidPrices, bidQuantities);
+        double[] askPrices = new double[crossedLevels(asks, bestBid.getPrice(), false)];
+        long[] askQuantities = new long[askPrices.length];
+        aggregate(asks, askPrices, askQuantities);
+        int bidLevels = bidPrices.length;
+        int askLevels = askPrices.length;
+
+        long demand = 0;
+        for (int j = 0; j < bidLevels; j++) demand += bidQuantities[j];
+        long supply = 0;
+        double best = Double.NaN;
+        long bestVolume = 0;
+        long bestSurplus = 0;
+        // Asks ascend from index 0 and bids from the last index: at each price p, demand is the bids at
+        // or above p and supply the asks at or below it.
+        for (int i = 0, j = bidLevels - 1; i < askLevels || j >= 0; ) {
+            double price = j < 0 || i < askLevels && askPrices[i] <= bidPrices[j] ? askPrices[i] : bidPrices[j];
+            if (i < askLevels && askPrices[i] == price) supply += askQuantities[i++];
+            long volume = Math.min(demand, supply);
+            long surplus = Math.abs(demand - supply);
+            if (volume > bestVolume || volume == bestVolume && volume > 0 && (surplus < bestSurplus
+                    || surplus == bestSurplus && Math.abs(price - reference) < Math.abs(best - reference))) {
+                best = price;
+                bestVolume = volume;
+                bestSurplus = surplus;
+            }
+            if (j >= 0 && bidPrices[j] == price) demand -= bidQuantities[j--];
+        }
+        return best;
+    }
+
+    // Levels of a side that reach limit; only these can trade in an uncross.
+    private static int crossedLevels(NavigableMap<Double, PriceLevel> side, double limit, boolean bid) {
+        int n = 0;
+        for (PriceLevel level : side.values()) {
+            if (bid ? level.price < limit : level.price > limit) break;
+            n++;
+        }
+        return n;
+    }
+
+    // The first prices.length levels of a side, best first, with their open quantity.
+    private static void aggregate(NavigableMap<Double, PriceLevel> side, double[] prices, long[] quantities) {
+        int n = 0;
+        for (PriceLevel level : side.values()) {
+            if (n == prices.length) return;
+            prices[n] = level.price;
+            quantities[n++] = level.quantity;
+        }
+    }
+
+    private static Order best(NavigableMap<Double, PriceLevel> side) {
+        if (side == null) return null;
+        var first = side.firstEntry();
+        return first == null ? null : first.getValue().head;
+    }
+
+    // Orders in matching priority: best price first, then time.
+    private static List<Order> snapshot(NavigableMap<Double, PriceLevel> side) {
+        List<Order> orders = new ArrayList<>();
+        if (side == null) return orders;
+        for (PriceLevel level : side.values()) {
+            for (Order o = level.head; o != null; o = o.nextInLevel) {
+                orders.add(o);
+            }
         }
+        return orders;
     }
 }
@@ -0,0 +1,17 @@
+package com.example.exchange.engine;
+
+// An order as the engine last published it; readers never see the live Order the engine mutates.
+public record OrderView(String orderId, String traderId, String stockSymbol, OrderType orderType, double price,
+                        int quantity, long createdAt, TimeInForce timeInForce, long expireAt, double stopPrice) {
+
+    // The price its notional is counted at, as Order#riskPrice.
+    public double riskPrice() {
+        return price > 0 ? price : stopPrice;
+    }
+
+    static OrderView of(Order order) {
+        return new OrderView(order.getOrderId(), order.getTraderId(), order.getStockSymbol(), order.getOrderType(),
+                order.getPrice(), order.getQuantity(), order.getCreatedAt(), order.getTimeInForce(),
+                order.getExpireAt(), order.getStopPrice());
+    }
+}
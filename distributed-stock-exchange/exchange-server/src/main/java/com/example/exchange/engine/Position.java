@@ -0,0 +1,6 @@
+package com.example.exchange.engine;
+
+// A trader's holding in one symbol. netQuantity is negative when short; averageCost is that of the open quantity.
+public record Position(String stockSymbol, long netQuantity, double averageCost, double realizedPnl, long volume,
+                       int trades, double lastPrice, double unrealizedPnl) {
+}
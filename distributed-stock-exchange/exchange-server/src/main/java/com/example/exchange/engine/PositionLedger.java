@@ -0,0 +1,134 @@
+package com.example.exchange.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-trader positions folded in fill by fill on the exchange's output thread: net quantity,
+ * average cost of the open quantity, realized P&L and volume per symbol. Readers never see the
+ * working state; each changed account republishes an immutable snapshot when the output stage
+ * catches up (or every PUBLISH_EVERY fills under sustained load), and a query marks that
+ * snapshot to the last trade price in O(positions).
+ */
+final class PositionLedger {
+
+    private static final int PUBLISH_EVERY = 1024;
+    private static final Position[] NONE = new Position[0];
+
+    private static final class Holding {
+        final String symbol;
+        long net;
+        double averageCost;
+        double realized;
+        long volume;
+        int trades;
+
+        Holding(String symbol) {
+            this.symbol = symbol;
+        }
+
+        // quantity > 0 buys, < 0 sells.
+        void fill(long quantity, double price) {
+            volume += Math.abs(quantity);
+            trades++;
+            if (net == 0 || (net > 0) == (quantity > 0)) {
+                averageCost = (averageCost * Math.abs(net) + price * Math.abs(quantity)) / (Math.abs(net) + Math.abs(quantity));
+                net += quantity;
+                return;
+            }
+            long closing = Math.min(Math.abs(quantity), Math.abs(net));
+            realized += (net > 0 ? price - averageCost : averageCost - price) * closing;
+            long remaining = net + quantity;
+            if (remaining == 0) {
+                averageCost = 0;
+            } else if ((remaining > 0) != (net > 0)) {
+                // Flipped from long to short or back: what is left was opened at this price.
+                averageCost = price;
+            }
+            net = remaining;
+        }
+
+        Position snapshot() {
+            return new Position(symbol, net, averageCost, realized, volume, trades, Double.NaN, 0);
+        }
+    }
+
+    private static final class Account {
+        final Map<String, Holding> holdings = new HashMap<>();
+        final List<Holding> order = new ArrayList<>();
+        volatile Position[] published = NONE;
+        boolean dirty;
+    }
+
+    private static final class LastPrice {
+        volatile double price = Double.NaN;
+    }
+
+    private final Map<String, Account> accounts = new ConcurrentHashMap<>();
+    private final Map<String, LastPrice> lastPrices = new ConcurrentHashMap<>();
+    private final List<Account> dirty = new ArrayList<>();
+    private int unpublishedFills;
+
+    // Output thread only.
+    void onTrade(Trade trade) {
+        LastPrice last = lastPrices.get(trade.getStockSymbol());
+        if (last == null) {
+            last = new LastPrice();
+            lastPrices.put(trade.getStockSymbol(), last);
+        }
+        last.price = trade.getPrice();
+        holding(trade.getBuyerId(), trade.getStockSymbol()).fill(trade.getQuantity(), trade.getPrice());
+        holding(trade.getSellerId(), trade.getStockSymbol()).fill(-trade.getQuantity(), trade.getPrice());
+        if (++unpublishedFills >= PUBLISH_EVERY) publish();
+    }
+
+    // Output thread only: makes every change so far visible to readers.
+    void publish() {
+        for (Account account : dirty) {
+            Position[] snapshot = new Position[account.order.size()];
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = account.order.get(i).snapshot();
+            }
+            account.published = snapshot;
+            account.dirty = false;
+        }
+        dirty.clear();
+        unpublishedFills = 0;
+    }
+
+    List<Position> positions(String traderId) {
+        Account account = accounts.get(traderId);
+        Position[] snapshot = account == null ? NONE : account.published;
+        List<Position> result = new ArrayList<>(snapshot.length);
+        for (Position p : snapshot) {
+            LastPrice last = lastPrices.get(p.stockSymbol());
+            double price = last == null ? Double.NaN : last.price;
+            double unrealized = p.netQuantity() == 0 || Double.isNaN(price) ? 0 : (price - p.averageCost()) * p.netQuantity();
+            result.add(new Position(p.stockSymbol(), p.netQuantity(), p.averageCost(), p.realizedPnl(), p.volume(),
+                    p.trades(), price, unrealized));
+        }
+        return result;
+    }
+
+    private Holding holding(String traderId, String symbol) {
+        Account account = accounts.get(traderId);
+        if (account == null) {
+            account = new Account();
+            accounts.put(traderId, account);
+        }
+        if (!account.dirty) {
+            account.dirty = true;
+            dirty.add(account);
+        }
+        Holding holding = account.holdings.get(symbol);
+        if (holding == null) {
+            holding = new Holding(symbol);
+            account.holdings.put(symbol, holding);
+            account.order.add(holding);
+        }
+        return holding;
+    }
+}
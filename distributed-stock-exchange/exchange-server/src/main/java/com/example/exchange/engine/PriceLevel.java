@@ -0,0 +1,53 @@
+package com.example.exchange.engine;
+
+// FIFO queue of resting orders at one price, linked through the orders themselves so an
+// order can be unlinked in O(1) without searching.
+class PriceLevel {
+
+    final double price;
+    Order head;
+    Order tail;
+    int orderCount;
+    // Open quantity of the orders queued here, kept current by Order#setQuantity.
+    long quantity;
+
+    PriceLevel(double price) {
+        this.price = price;
+    }
+
+    void append(Order order) {
+        order.level = this;
+        order.prevInLevel = tail;
+        order.nextInLevel = null;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.nextInLevel = order;
+        }
+        tail = order;
+        orderCount++;
+        quantity += order.getQuantity();
+    }
+
+    void unlink(Order order) {
+        if (order.prevInLevel == null) {
+            head = order.nextInLevel;
+        } else {
+            order.prevInLevel.nextInLevel = order.nextInLevel;
+        }
+        if (order.nextInLevel == null) {
+            tail = order.prevInLevel;
+        } else {
+            order.nextInLevel.prevInLevel = order.prevInLevel;
+        }
+        order.level = null;
+        order.prevInLevel = null;
+        order.nextInLevel = null;
+        orderCount--;
+        quantity -= order.getQuantity();
+    }
+
+    boolean isEmpty() {
+        return orderCount == 0;
+    }
+}
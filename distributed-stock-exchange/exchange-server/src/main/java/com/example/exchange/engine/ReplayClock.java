@@ -0,0 +1,31 @@
+package com.example.exchange.engine;
+
+/**
+ * Engine time during a replay: the time recorded with each event. A standby that takes over
+ * switches it to live time, so engine time carries on from the last replicated event.
+ */
+public final class ReplayClock implements ExchangeClock {
+
+    private volatile long millis;
+    private volatile long nanos;
+    private volatile boolean live;
+
+    public void set(long millis, long nanos) {
+        this.millis = millis;
+        this.nanos = nanos;
+    }
+
+    public void goLive() {
+        live = true;
+    }
+
+    public boolean isLive() {
+        return live;
+    }
+
+    @Override
+    public long currentTimeMillis() { return live ? System.currentTimeMillis() : millis; }
+
+    @Override
+    public long nanoTime() { return live ? System.nanoTime() : nanos; }
+}
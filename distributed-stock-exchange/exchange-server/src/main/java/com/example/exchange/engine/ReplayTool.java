@@ -0,0 +1,113 @@
+package com.example.exchange.engine;
+
+import com.example.exchange.load.LatencyHistogram;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+public class ReplayTool {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: ReplayTool <capture-file> [fast|paced]");
+            System.exit(1);
+        }
+        boolean paced = args.length > 1 && args[1].equalsIgnoreCase("paced");
+        ReplayResult result = replay(args[0], paced);
+        System.out.println(result);
+        System.exit(result.matches() ? 0 : 2);
+    }
+
+    public static ReplayResult replay(String captureFile, boolean paced) throws IOException {
+        ReplayClock clock = new ReplayClock();
+        StockExchange exchange = new StockExchange(clock, false, List.of());
+        exchange.setVerbose(false);
+
+        ArrayDeque<byte[]> expected = new ArrayDeque<>();
+        ArrayDeque<byte[]> produced = new ArrayDeque<>();
+        LatencyHistogram latency = new LatencyHistogram();
+        ReplayResult result = new ReplayResult();
+        int tradeCursor = 0;
+        long firstTimestamp = -1;
+        long start = System.nanoTime();
+
+        try (JournalReader reader = new JournalReader(new FileInputStream(captureFile))) {
+            JournalReader.Record record;
+            while ((record = reader.next()) != null) {
+                if (record.isTrade()) {
+                    expected.add(record.trade);
+                    result.expectedTrades++;
+                } else {
+                    if (firstTimestamp < 0) firstTimestamp = record.timestampNanos;
+                    long intended = System.nanoTime();
+                    if (paced) {
+                        intended = start + (record.timestampNanos - firstTimestamp);
+                        long wait = intended - System.nanoTime();
+                        if (wait > 0) LockSupport.parkNanos(wait);
+                    }
+                    clock.set(record.wallMillis, record.timestampNanos);
+                    exchange.apply(record);
+                    latency.record(System.nanoTime() - intended);
+                    result.events++;
+
+                    List<Trade> trades = exchange.getTradeHistory(tradeCursor);
+                    tradeCursor += trades.size();
+                    for (Trade trade : trades) {
+                        produced.add(EventJournal.encode(trade));
+                        result.producedTrades++;
+                    }
+                }
+                compare(expected, produced, result, record.sequence);
+            }
+        }
+        if (!expected.isEmpty() || !produced.isEmpty()) {
+            result.mismatches += Math.max(expected.size(), produced.size());
+        }
+        result.elapsedNanos = System.nanoTime() - start;
+        result.latency = latency;
+        return result;
+    }
+
+    private static void compare(ArrayDeque<byte[]> expected, ArrayDeque<byte[]> produced, ReplayResult result, long sequence) {
+        while (!expected.isEmpty() && !produced.isEmpty()) {
+            if (!Arrays.equals(expected.poll(), produced.poll())) {
+                result.mismatches++;
+                if (result.firstMismatchSequence < 0) result.firstMismatchSequence = sequence;
+            }
+        }
+    }
+
+    public static class ReplayResult {
+        long events;
+        long expectedTrades;
+        long producedTrades;
+        long mismatches;
+        long firstMismatchSequence = -1;
+        long elapsedNanos;
+        LatencyHistogram latency;
+
+        public boolean matches() {
+            return mismatches == 0 && expectedTrades == producedTrades;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("""
+                    --- REPLAY REPORT ---
+                    Events: %d in %.3fs (%,.0f events/s)
+                    Trades: %d recorded, %d replayed, %d mismatched%s
+                    Latency per event in us: p50=%.2f p99=%.2f p99.9=%.2f max=%.2f
+                    Result: %s""",
+                    events, elapsedNanos / 1e9, events * 1e9 / Math.max(1, elapsedNanos),
+                    expectedTrades, producedTrades, mismatches,
+                    firstMismatchSequence >= 0 ? " (first at event #" + firstMismatchSequence + ")" : "",
+                    latency.valueAtPercentile(50) / 1e3, latency.valueAtPercentile(99) / 1e3,
+                    latency.valueAtPercentile(99.9) / 1e3, latency.getMaxValue() / 1e3,
+                    matches() ? "IDENTICAL" : "DIVERGED");
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.exchange.engine;
+
+/**
+ * Engine changes a pre-trade risk stage follows, delivered on the exchange's output thread (or inline
+ * without an engine thread): open exposure of orders submitted with {@link Order#reserveExposure()},
+ * and every trade's price.
+ */
+public interface RiskListener {
+
+    // openOrdersDelta is -1 when the order leaves the book; notional is price x open quantity in cents.
+    void onExposure(String traderId, int openOrdersDelta, long notionalCentsDelta);
+
+    void onTrade(String stockSymbol, double price);
+}
@@ -0,0 +1,18 @@
+package com.example.exchange.engine;
+
+/**
+ * A replication target cut into segments. Each segment is a journal of its own that opens with a
+ * snapshot of the engine, so a follower can start from the latest one and everything before it
+ * can be dropped.
+ */
+public interface SegmentedStream {
+
+    /** Whether the engine should start a new segment at its next flush. */
+    boolean segmentDue();
+
+    /** Called before the engine writes a new segment's header and snapshot. */
+    void startSegment();
+
+    /** Called once the new segment's snapshot has been written out. */
+    void snapshotWritten();
+}
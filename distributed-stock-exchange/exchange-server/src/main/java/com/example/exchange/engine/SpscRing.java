@@ -0,0 +1,56 @@
+package com.example.exchange.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer/single-consumer queue over a power-of-two array. Each side caches the
+ * other's counter and only re-reads it when the ring looks full (or empty), so in steady state an
+ * offer or poll is a plain array access plus one release store.
+ */
+final class SpscRing<T> {
+
+    private final Object[] slots;
+    private final int mask;
+    // Next slot to write / read; each written by one side only.
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private long producerHead;
+    private long consumerTail;
+
+    SpscRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        this.slots = new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    // Producer only; false when full.
+    boolean offer(T value) {
+        long t = tail.getPlain();
+        if (t - producerHead == slots.length) {
+            producerHead = head.get();
+            if (t - producerHead == slots.length) return false;
+        }
+        slots[(int) t & mask] = value;
+        tail.setRelease(t + 1);
+        return true;
+    }
+
+    // Consumer only; null when empty.
+    @SuppressWarnings("unchecked")
+    T poll() {
+        long h = head.getPlain();
+        if (h == consumerTail) {
+            consumerTail = tail.get();
+            if (h == consumerTail) return null;
+        }
+        int i = (int) h & mask;
+        T value = (T) slots[i];
+        slots[i] = null;
+        head.setRelease(h + 1);
+        return value;
+    }
+
+    boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+}
@@ -1,12 +1,25 @@
 package com.example.exchange.engine;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
+import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 public class StockExchange {
 
@@ -22,9 +35,20 @@ public class StockExchange {
     static class ModifyOrderEvent implements Event {
         final String orderId;
         final double newPrice;
-        ModifyOrderEvent(String orderId, double newPrice) {
+        final int newQuantity;
+        // Open notional the risk stage reserved for traderId ahead of the amendment; not journalled.
+        final String traderId;
+        final long reservedCents;
+        // NaN price or negative quantity means "leave unchanged".
+        ModifyOrderEvent(String orderId, double newPrice, int newQuantity) {
+            this(orderId, newPrice, newQuantity, null, 0);
+        }
+        ModifyOrderEvent(String orderId, double newPrice, int newQuantity, String traderId, long reservedCents) {
             this.orderId = orderId;
             this.newPrice = newPrice;
+            this.newQuantity = newQuantity;
+            this.traderId = traderId;
+            this.reservedCents = reservedCents;
         }
     }
     static class ClaimAlertEvent implements Event {
@@ -37,52 +61,417 @@ public class StockExchange {
             this.buyerId = buyerId;
         }
     }
+    static class ExpireOrderEvent implements Event {
+        final String orderId;
+        ExpireOrderEvent(String orderId) { this.orderId = orderId; }
+    }
+    static class MassCancelEvent implements Event {
+        final String traderId;
+        final String stockSymbol;
+        final OrderType side;
+        MassCancelEvent(String traderId, String stockSymbol, OrderType side) {
+            this.traderId = traderId;
+            this.stockSymbol = stockSymbol;
+            this.side = side;
+        }
+    }
+    static class ListSymbolEvent implements Event {
+        final String symbol;
+        ListSymbolEvent(String symbol) { this.symbol = symbol; }
+    }
+    static class AuctionModeEvent implements Event {
+        final String symbol;
+        final long intervalMillis;
+        AuctionModeEvent(String symbol, long intervalMillis) {
+            this.symbol = symbol;
+            this.intervalMillis = intervalMillis;
+        }
+    }
+    static class UncrossEvent implements Event {
+        final String symbol;
+        UncrossEvent(String symbol) { this.symbol = symbol; }
+    }
+    static class FlushEvent implements Event {
+        final CountDownLatch done = new CountDownLatch(1);
+    }
+    static class CaptureEvent implements Event {
+        final EventJournal journal;
+        CaptureEvent(EventJournal journal) { this.journal = journal; }
+    }
+    static class ReplicationEvent implements Event {
+        final OutputStream target;
+        ReplicationEvent(OutputStream target) { this.target = target; }
+    }
+    // Snapshot records, journalled at the start of a replication segment and applied by a follower
+    // starting from it. They carry the current sequence rather than a new one.
+    static class SnapshotEvent implements Event {
+        final long tradeSequence;
+        SnapshotEvent(long tradeSequence) { this.tradeSequence = tradeSequence; }
+    }
+    static class LastPriceEvent implements Event {
+        final String symbol;
+        final double price;
+        LastPriceEvent(String symbol, double price) {
+            this.symbol = symbol;
+            this.price = price;
+        }
+    }
+    static class RestingOrderEvent implements Event {
+        final Order order;
+        final long bookedSequence;
+        final boolean stopPending;
+        RestingOrderEvent(Order order, long bookedSequence, boolean stopPending) {
+            this.order = order;
+            this.bookedSequence = bookedSequence;
+            this.stopPending = stopPending;
+        }
+    }
 
-    private final BlockingQueue<Event> eventQueue = new LinkedBlockingQueue<>();
-    private final Thread engineThread;
+    // Side work the engine hands to the output thread, applied there in the order it happened.
+    // Besides these, a String is a console line and a CountDownLatch marks a flush.
+    static final class TradeOutput {
+        final Trade trade;
+        final int symbolId;
+        final Order aggressor;
+        final long matchedNanos;
+        TradeOutput(Trade trade, int symbolId, Order aggressor, long matchedNanos) {
+            this.trade = trade;
+            this.symbolId = symbolId;
+            this.aggressor = aggressor;
+            this.matchedNanos = matchedNanos;
+        }
+    }
+    static final class AlertCreated {
+        final String orderId;
+        final String stockSymbol;
+        final double price;
+        final int quantity;
+        final String sellerId;
+        final long createdAt;
+        AlertCreated(String orderId, String stockSymbol, double price, int quantity, String sellerId, long createdAt) {
+            this.orderId = orderId;
+            this.stockSymbol = stockSymbol;
+            this.price = price;
+            this.quantity = quantity;
+            this.sellerId = sellerId;
+            this.createdAt = createdAt;
+        }
+    }
+    static final class AlertQuantity {
+        final String orderId;
+        final int quantity;
+        AlertQuantity(String orderId, int quantity) {
+            this.orderId = orderId;
+            this.quantity = quantity;
+        }
+    }
+    static final class AlertRemoved {
+        final String orderId;
+        AlertRemoved(String orderId) { this.orderId = orderId; }
+    }
+    static final class ExposureOutput {
+        final String traderId;
+        final int openOrdersDelta;
+        final long notionalCentsDelta;
+        ExposureOutput(String traderId, int openOrdersDelta, long notionalCentsDelta) {
+            this.traderId = traderId;
+            this.openOrdersDelta = openOrdersDelta;
+            this.notionalCentsDelta = notionalCentsDelta;
+        }
+    }
+
+    // Gateway threads -> engine. Bounded, so a flood of orders blocks the submitters instead of the heap.
+    private final BlockingQueue<Event> eventQueue = new LinkedBlockingQueue<>(EVENT_QUEUE_CAPACITY);
+    private volatile Thread engineThread;
+    // Engine -> output thread; without an engine thread outputs are applied inline.
+    private final SpscRing<Object> outputs = new SpscRing<>(OUTPUT_RING_CAPACITY);
+    private volatile Thread outputThread;
+    private boolean outputPending;
+    private volatile RiskListener riskListener;
+    private long tradeSequence;
+    private final ExchangeClock clock;
+    // Written into every journal header: sequences only continue within one epoch.
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+    private volatile boolean verbose = true;
+    private EventJournal journal;
+    private EventJournal replicationJournal;
+    private OutputStream replicationTarget;
+    // Trades of a snapshot's history still to come, while following from one.
+    private long historyToRestore;
+    private long eventSequence;
+    // Exchange clock when the current event was taken up; trades it produces carry this time.
+    private long eventNanos;
+    private long eventMillis;
+    private final TradeLatencies latencies = new TradeLatencies();
+    private final PositionLedger positions = new PositionLedger();
+    private volatile long lastSequence;
+    private final ExpiryWheel expiryWheel;
+    // Following another exchange: orders past their deadline that it has not expired yet.
+    private final ArrayList<Order> overdue = new ArrayList<>();
+    private volatile LocalTime sessionClose = LocalTime.MIDNIGHT;
+    private volatile ZoneId sessionZone = ZoneId.systemDefault();
 
-    private final Map<String, OrderBook> orderBooks = new ConcurrentHashMap<>();
+    private final SymbolRegistry symbols = new SymbolRegistry();
+    private final BitSet listed = new BitSet();
+    private volatile OrderBook[] books = new OrderBook[16];
+    private volatile SymbolStats[] stats = new SymbolStats[16];
+    private long nextEvictionSweep;
+    // Engine-only: pending stops per symbol, the one whose stops this event's trades may have reached,
+    // and a scratch list for the stops a release fires.
+    private TriggerBook[] triggers = new TriggerBook[16];
+    private TriggerBook touchedTriggers;
+    private final List<Order> firedStops = new ArrayList<>();
+    // Engine-only: symbols matched in periodic batch auctions, with each one's interval and next uncross.
+    private final BitSet auctionSymbols = new BitSet();
+    private long[] auctionIntervals = new long[16];
+    private long[] nextAuctions = new long[16];
+    private final Map<String, Long> auctionModes = new ConcurrentHashMap<>();
+    // Engine-only: books the current event looked up to change, versioned once it has been applied.
+    private long bookVersions;
+    private final List<OrderBook> touchedBooks = new ArrayList<>();
     private final Map<String, Order> activeOrders = new ConcurrentHashMap<>();
+    private final TraderOrders traderOrders = new TraderOrders();
     private final List<Trade> tradeHistory = new ArrayList<>();
     private final BlockingQueue<Alert> alertQueue = new LinkedBlockingQueue<>();
     private final Map<String, Alert> activeAlerts = new ConcurrentHashMap<>();
     private final Map<String, String> alertByOrderId = new ConcurrentHashMap<>();
 
     private static final double ALERT_PRICE_THRESHOLD = 30.0;
+    private static final int EXPIRY_WHEEL_SLOTS = 1024;
+    private static final long EXPIRY_TICK_MS = 10;
+    private static final long BOOK_IDLE_MS = 60_000;
+    private static final long EVICTION_SWEEP_MS = 10_000;
+    private static final int EVENT_QUEUE_CAPACITY = 1 << 16;
+    private static final int OUTPUT_RING_CAPACITY = 1 << 16;
+    private static final long OUTPUT_IDLE_NANOS = 1_000_000;
+
+    public static final List<String> DEFAULT_SYMBOLS = List.of("AAPL", "MSFT", "GOOGL", "INTC", "AMD", "NVDA");
 
     public StockExchange() {
-        String[] stocks = {"AAPL", "MSFT", "GOOGL", "INTC", "AMD", "NVDA"};
-        for (String stock : stocks) {
-            orderBooks.put(stock, new OrderBook());
+        this(true);
+    }
+
+    /**
+     * With {@code startEngine == false} no engine thread is started and every event is
+     * processed inline on the calling thread, so the caller must be single-threaded.
+     */
+    public StockExchange(boolean startEngine) {
+        this(ExchangeClock.SYSTEM, startEngine);
+    }
+
+    public StockExchange(ExchangeClock clock, boolean startEngine) {
+        this(clock, startEngine, DEFAULT_SYMBOLS);
+    }
+
+    public StockExchange(ExchangeClock clock, boolean startEngine, Collection<String> initialSymbols) {
+        this.clock = clock;
+        for (String symbol : initialSymbols) {
+            processListSymbol(symbol);
+        }
+        this.expiryWheel = new ExpiryWheel(EXPIRY_WHEEL_SLOTS, EXPIRY_TICK_MS, clock.currentTimeMillis());
+        if (startEngine) {
+            startEngine();
         }
-        this.engineThread = new Thread(this::runEngine, "StockEngineThread");
-        this.engineThread.start();
     }
 
+    /**
+     * Starts the engine thread of an exchange created without one, e.g. a standby taking over.
+     * The caller must not be processing events inline at the same time.
+     */
+    public synchronized void startEngine() {
+        if (engineThread != null) return;
+        Thread output = new Thread(this::runOutput, "StockOutputThread");
+        outputThread = output;
+        output.start();
+        Thread thread = new Thread(this::runEngine, "StockEngineThread");
+        engineThread = thread;
+        thread.start();
+    }
 
-    public OrderBook getOrderBook(String stockSymbol) {
-        return orderBooks.get(stockSymbol);
+    // Sequence number of the last journalled event the engine has processed.
+    public long getSequence() {
+        return lastSequence;
     }
 
-    public void submitOrder(Order order) {
-        try {
-            eventQueue.put(new NewOrderEvent(order));
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+    public ExchangeClock getClock() {
+        return clock;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    public void setRiskListener(RiskListener riskListener) {
+        this.riskListener = riskListener;
+    }
+
+    public void setSessionClose(LocalTime sessionClose, ZoneId zone) {
+        this.sessionClose = sessionClose;
+        this.sessionZone = zone;
+    }
+
+    public void shutdown() {
+        if (engineThread != null) {
+            engineThread.interrupt();
         }
+        if (outputThread != null) {
+            outputThread.interrupt();
+        }
+    }
+
+
+    // Books are created lazily, so a listed symbol with no orders yet reads as an empty book.
+    public OrderBook getOrderBook(String stockSymbol) {
+        int id = symbols.idOf(stockSymbol);
+        if (id == SymbolRegistry.UNKNOWN) return null;
+        OrderBook[] current = books;
+        OrderBook book = id < current.length ? current[id] : null;
+        return book != null ? book : new OrderBook();
+    }
+
+    public void listSymbol(String symbol) {
+        symbols.register(symbol);
+        publish(new ListSymbolEvent(symbol));
+    }
+
+    public List<String> getSymbols() {
+        return symbols.symbols();
+    }
+
+    public boolean isListed(String symbol) {
+        return symbols.idOf(symbol) != SymbolRegistry.UNKNOWN;
+    }
+
+    // Resolved and checked on the caller's thread: an order for an unknown symbol never reaches the engine.
+    public boolean submitOrder(Order order) {
+        order.symbolId = symbols.idOf(order.getStockSymbol());
+        if (order.symbolId == SymbolRegistry.UNKNOWN) return false;
+        publish(new NewOrderEvent(order));
+        return true;
     }
 
     public void cancelOrder(String orderId) {
+        publish(new CancelOrderEvent(orderId));
+    }
+
+    /**
+     * Switches a symbol to frequent batch auctions: its orders rest without matching and every
+     * {@code intervalMillis} the book uncrosses at a single price. 0 returns it to continuous matching.
+     */
+    public void setAuctionInterval(String symbol, long intervalMillis) {
+        publish(new AuctionModeEvent(symbol, intervalMillis));
+    }
+
+    // Symbols in batch auction mode and their intervals in milliseconds.
+    public Map<String, Long> getAuctionIntervals() {
+        return new TreeMap<>(auctionModes);
+    }
+
+    public void modifyOrder(String orderId, double newPrice) {
+        publish(new ModifyOrderEvent(orderId, newPrice, -1));
+    }
+
+    /**
+     * Cancels every live order of {@code traderId} in one engine event, optionally only those in
+     * {@code stockSymbol} and/or on one side. Null filters match everything.
+     */
+    public void massCancel(String traderId, String stockSymbol, OrderType side) {
+        publish(new MassCancelEvent(traderId, stockSymbol, side));
+    }
+
+    // The order as last published, or null once it has left the book or before its first publish.
+    public OrderView getOrderView(String orderId) {
+        Order order = activeOrders.get(orderId);
+        return order == null ? null : order.view;
+    }
+
+    // As of the last time the engine caught up with its queue.
+    public List<OrderView> getOrdersForTrader(String traderId) {
+        return traderOrders.views(traderId);
+    }
+
+    public void amendOrder(String orderId, Double newPrice, Integer newQuantity) {
+        amendOrder(orderId, newPrice, newQuantity, null, 0);
+    }
+
+    /**
+     * An amendment for which the risk stage has already counted {@code reservedCents} more open
+     * notional against {@code traderId}; whatever the amended order does not hold is given back.
+     */
+    public void amendOrder(String orderId, Double newPrice, Integer newQuantity, String traderId, long reservedCents) {
+        publish(new ModifyOrderEvent(orderId,
+                newPrice == null ? Double.NaN : newPrice,
+                newQuantity == null ? -1 : newQuantity,
+                traderId, reservedCents));
+    }
+
+    /**
+     * Starts recording every inbound event, and the trades it produces, to {@code target}.
+     * The switch happens on the engine thread so a capture always starts on an event boundary.
+     */
+    public void startCapture(OutputStream target) throws IOException {
+        publish(new CaptureEvent(new EventJournal(target, epoch)));
+        flush();
+    }
+
+    public void stopCapture() {
+        publish(new CaptureEvent(null));
+        flush();
+    }
+
+    /**
+     * Streams every journalled event and trade to {@code target} in the capture format, for a
+     * standby to follow. Unlike a capture it stays attached for the life of the exchange.
+     */
+    public void startReplication(OutputStream target) {
+        publish(new ReplicationEvent(target));
+        flush();
+    }
+
+    /**
+     * Applies an event recorded by another exchange's journal. Only valid while no engine thread
+     * runs; the caller sets the clock to the recorded time first, as a replay does.
+     */
+    public void apply(JournalReader.Record record) {
+        if (record.isTrade()) {
+            // Trades following an event are made again here; only a snapshot's history is taken as is.
+            if (historyToRestore > 0) restoreTrade(JournalReader.decode(record.trade));
+            return;
+        }
+        followTime();
+        // Keep the recording exchange's numbering. Header records share the sequence of the event
+        // before them, so counting them again would leave this exchange's sequences ahead.
+        eventSequence = EventJournal.records(record.event) ? record.sequence - 1 : record.sequence;
+        dispatch(record.event);
+    }
+
+    /**
+     * Blocks until every event published before this call has been processed by the engine.
+     */
+    public void flush() {
+        if (engineThread == null) return;
+        FlushEvent flush = new FlushEvent();
+        publish(flush);
         try {
-            eventQueue.put(new CancelOrderEvent(orderId));
+            flush.done.await();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
     }
 
-    public void modifyOrder(String orderId, double newPrice) {
+    private void publish(Event event) {
+        if (event instanceof NewOrderEvent newOrder) {
+            newOrder.order.enqueuedNanos = System.nanoTime();
+        }
+        if (engineThread == null) {
+            if (event instanceof NewOrderEvent newOrder) newOrder.order.dequeuedNanos = newOrder.order.enqueuedNanos;
+            advanceTime();
+            dispatch(event);
+            flushReplication();
+            return;
+        }
         try {
-            eventQueue.put(new ModifyOrderEvent(orderId, newPrice));
+            eventQueue.put(event);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -94,6 +483,56 @@ public class StockExchange {
         }
     }
 
+    public int getTradeCount() {
+        synchronized (tradeHistory) {
+            return tradeHistory.size();
+        }
+    }
+
+    public List<Trade> getTradeHistory(int fromIndex, int toIndex) {
+        synchronized (tradeHistory) {
+            int to = Math.min(toIndex, tradeHistory.size());
+            if (fromIndex >= to) return new ArrayList<>();
+            return new ArrayList<>(tradeHistory.subList(Math.max(0, fromIndex), to));
+        }
+    }
+
+    public List<Trade> getTradeHistory(int fromIndex) {
+        synchronized (tradeHistory) {
+            if (fromIndex >= tradeHistory.size()) return new ArrayList<>();
+            return new ArrayList<>(tradeHistory.subList(Math.max(0, fromIndex), tradeHistory.size()));
+        }
+    }
+
+    // Null once the trade is older than the retained latency window.
+    public Map<String, Object> getTradeLatency(long sequence) {
+        Map<String, Object> breakdown = latencies.breakdown(sequence);
+        if (breakdown == null) return null;
+        synchronized (tradeHistory) {
+            Trade trade = tradeHistory.get((int) sequence - 1);
+            breakdown.put("traceId", trade.getTraceId());
+            breakdown.put("aggressorOrderId", trade.getAggressorOrderId());
+            breakdown.put("passiveOrderId", trade.getPassiveOrderId());
+        }
+        return breakdown;
+    }
+
+    // Null for a symbol that is not listed; an empty series until its first trade.
+    public List<Candle> getCandles(String stockSymbol, CandleInterval interval, int limit) {
+        SymbolStats s = statsFor(stockSymbol);
+        return s == null ? null : s.candles(interval, limit);
+    }
+
+    // Marked to each symbol's last trade; reflects fills up to the output stage's last publish.
+    public List<Position> getPositions(String traderId) {
+        return positions.positions(traderId);
+    }
+
+    public Map<String, Object> getSessionStats(String stockSymbol) {
+        SymbolStats s = statsFor(stockSymbol);
+        return s == null ? null : s.session();
+    }
+
     public List<Alert> getActiveAlerts(String traderId) {
         drainAlertQueue();
         List<Alert> alerts = new ArrayList<>();
@@ -116,24 +555,22 @@ public class StockExchange {
                 return false;
             }
             if (!alert.claim()) return false;
-            try {
-                eventQueue.put(new ClaimAlertEvent(alertId, alert.getOrderId(), buyerId));
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                return false;
-            }
+            publish(new ClaimAlertEvent(alertId, alert.getOrderId(), buyerId));
+            if (Thread.currentThread().isInterrupted()) return false;
         }
         return true;
     }
 
     public void printMarketState() {
         System.out.println("\n--- MARKET STATE ---");
-        for (Map.Entry<String, OrderBook> entry : orderBooks.entrySet()) {
-            System.out.printf("--- %s ---\n", entry.getKey());
-            Order bestAsk = entry.getValue().getAsks().peek();
-            Order bestBid = entry.getValue().getBids().peek();
-            String askStr = (bestAsk != null) ? String.format("$%.2f (%d)", bestAsk.getPrice(), entry.getValue().getAsks().size()) : "---";
-            String bidStr = (bestBid != null) ? String.format("$%.2f (%d)", bestBid.getPrice(), entry.getValue().getBids().size()) : "---";
+        for (String symbol : symbols.symbols()) {
+            OrderBook book = getOrderBook(symbol);
+            if (book.isEmpty()) continue;
+            System.out.printf("--- %s ---\n", symbol);
+            Order bestAsk = book.bestAsk();
+            Order bestBid = book.bestBid();
+            String askStr = (bestAsk != null) ? String.format("$%.2f (%d)", bestAsk.getPrice(), book.askCount()) : "---";
+            String bidStr = (bestBid != null) ? String.format("$%.2f (%d)", bestBid.getPrice(), book.bidCount()) : "---";
             System.out.printf("ASKS: %-15s | BIDS: %-15s\n", askStr, bidStr);
         }
         System.out.println("--------------------");
@@ -143,18 +580,17 @@ public class StockExchange {
         System.out.println("Stock Engine is running.");
         try {
             while (!Thread.currentThread().isInterrupted()) {
-                Event event = eventQueue.take();
-
-                if (event instanceof NewOrderEvent) {
-                    processNewOrder(((NewOrderEvent) event).order);
-                } else if (event instanceof CancelOrderEvent) {
-                    processCancelOrder(((CancelOrderEvent) event).orderId);
-                } else if (event instanceof ModifyOrderEvent) {
-                    ModifyOrderEvent modEvent = (ModifyOrderEvent) event;
-                    processModifyOrder(modEvent.orderId, modEvent.newPrice);
-                } else if (event instanceof ClaimAlertEvent) {
-                    ClaimAlertEvent claimEvent = (ClaimAlertEvent) event;
-                    processClaimAlert(claimEvent.alertId, claimEvent.orderId, claimEvent.buyerId);
+                Event event = eventQueue.poll(EXPIRY_TICK_MS, TimeUnit.MILLISECONDS);
+                if (event instanceof NewOrderEvent newOrder) newOrder.order.dequeuedNanos = System.nanoTime();
+                advanceTime();
+                if (event != null) {
+                    dispatch(event);
+                    if (eventQueue.isEmpty()) flushReplication();
+                }
+                // The output thread is woken once per burst rather than per event.
+                if (outputPending && eventQueue.isEmpty()) {
+                    outputPending = false;
+                    LockSupport.unpark(outputThread);
                 }
             }
         } catch (InterruptedException e) {
@@ -162,200 +598,851 @@ public class StockExchange {
         }
     }
 
-    private void processNewOrder(Order newOrder) {
-        OrderBook book = orderBooks.get(newOrder.getStockSymbol());
-        if (book == null) return;
+    private void runOutput() {
+        Thread self = Thread.currentThread();
+        while (!self.isInterrupted()) {
+            Object output = outputs.poll();
+            if (output == null) {
+                positions.publish();
+                LockSupport.parkNanos(OUTPUT_IDLE_NANOS);
+            } else {
+                apply(output);
+            }
+        }
+        for (Object output; (output = outputs.poll()) != null; ) {
+            apply(output);
+        }
+        positions.publish();
+    }
 
-        activeOrders.put(newOrder.getOrderId(), newOrder);
+    private void emit(Object output) {
+        Thread consumer = outputThread;
+        if (consumer == null) {
+            apply(output);
+            positions.publish();
+            return;
+        }
+        // Full ring: the output thread is behind, so matching waits for it rather than dropping side work.
+        while (!outputs.offer(output)) {
+            if (Thread.currentThread().isInterrupted()) return;
+            LockSupport.unpark(consumer);
+            Thread.yield();
+        }
+        outputPending = true;
+    }
 
-        if (newOrder.getOrderType() == OrderType.BUY) {
-            match(newOrder, book.getAsks(), book);
-        } else {
-            match(newOrder, book.getBids(), book);
+    private void log(String line) {
+        emit(line);
+    }
+
+    // Output thread (or inline): everything downstream of matching that readers look at.
+    private void apply(Object output) {
+        if (output instanceof TradeOutput t) {
+            synchronized (tradeHistory) {
+                tradeHistory.add(t.trade);
+            }
+            latencies.record(t.trade.getSequence(), t.aggressor, t.matchedNanos);
+            statsFor(t.symbolId).onTrade(t.trade.getTimestamp(), t.trade.getPrice(), t.trade.getQuantity());
+            positions.onTrade(t.trade);
+            RiskListener risk = riskListener;
+            if (risk != null) risk.onTrade(t.trade.getStockSymbol(), t.trade.getPrice());
+            if (verbose) {
+                if (t.aggressor != null) System.out.println("Engine: MATCH FOUND! (Not a self-trade)");
+                System.out.println(t.trade);
+            }
+        } else if (output instanceof AlertCreated a) {
+            if (alertByOrderId.containsKey(a.orderId)) return;
+            Alert alert = new Alert(a.orderId, a.stockSymbol, a.price, a.quantity, a.sellerId, a.createdAt);
+            activeAlerts.put(alert.getId(), alert);
+            alertByOrderId.put(a.orderId, alert.getId());
+            alertQueue.offer(alert);
+        } else if (output instanceof AlertQuantity q) {
+            String alertId = alertByOrderId.get(q.orderId);
+            Alert alert = alertId == null ? null : activeAlerts.get(alertId);
+            if (alert != null) alert.setQuantity(q.quantity);
+        } else if (output instanceof AlertRemoved r) {
+            String alertId = alertByOrderId.remove(r.orderId);
+            if (alertId != null) activeAlerts.remove(alertId);
+        } else if (output instanceof ExposureOutput e) {
+            RiskListener risk = riskListener;
+            if (risk != null) risk.onExposure(e.traderId, e.openOrdersDelta, e.notionalCentsDelta);
+        } else if (output instanceof String line) {
+            System.out.println(line);
+        } else if (output instanceof CountDownLatch done) {
+            positions.publish();
+            done.countDown();
         }
+    }
 
-        if (newOrder.getQuantity() > 0) {
-            book.addOrder(newOrder);
-            maybeCreateLowPriceAlert(newOrder);
+    void dispatch(Event event) {
+        long sequence = 0;
+        if (EventJournal.records(event)) {
+            sequence = ++eventSequence;
+            eventNanos = clock.nanoTime();
+            eventMillis = clock.currentTimeMillis();
+            if (journal != null) journal.recordEvent(event, sequence, eventNanos, eventMillis);
+            if (replicationJournal != null) replicationJournal.recordEvent(event, sequence, eventNanos, eventMillis);
+        }
+        if (event instanceof NewOrderEvent) {
+            processNewOrder(((NewOrderEvent) event).order);
+        } else if (event instanceof CancelOrderEvent) {
+            processCancelOrder(((CancelOrderEvent) event).orderId);
+        } else if (event instanceof ModifyOrderEvent) {
+            ModifyOrderEvent modEvent = (ModifyOrderEvent) event;
+            processModifyOrder(modEvent.orderId, modEvent.newPrice, modEvent.newQuantity, modEvent.traderId, modEvent.reservedCents);
+        } else if (event instanceof ClaimAlertEvent) {
+            ClaimAlertEvent claimEvent = (ClaimAlertEvent) event;
+            processClaimAlert(claimEvent.alertId, claimEvent.orderId, claimEvent.buyerId);
+        } else if (event instanceof ListSymbolEvent) {
+            processListSymbol(((ListSymbolEvent) event).symbol);
+        } else if (event instanceof MassCancelEvent) {
+            MassCancelEvent massEvent = (MassCancelEvent) event;
+            processMassCancel(massEvent.traderId, massEvent.stockSymbol, massEvent.side);
+        } else if (event instanceof ExpireOrderEvent) {
+            processExpireOrder(((ExpireOrderEvent) event).orderId);
+        } else if (event instanceof UncrossEvent) {
+            uncross(symbols.idOf(((UncrossEvent) event).symbol));
+        } else if (event instanceof AuctionModeEvent) {
+            AuctionModeEvent modeEvent = (AuctionModeEvent) event;
+            processAuctionMode(modeEvent.symbol, modeEvent.intervalMillis);
+        } else if (event instanceof FlushEvent) {
+            flushReplication();
+            // Counted down by the output thread once it has caught up too.
+            emit(((FlushEvent) event).done);
+        } else if (event instanceof CaptureEvent) {
+            switchJournal(((CaptureEvent) event).journal);
+        } else if (event instanceof ReplicationEvent) {
+            replicationTarget = ((ReplicationEvent) event).target;
+            startReplicationSegment();
+        } else if (event instanceof SnapshotEvent) {
+            tradeSequence = ((SnapshotEvent) event).tradeSequence;
+            historyToRestore = tradeSequence;
+        } else if (event instanceof LastPriceEvent) {
+            LastPriceEvent priceEvent = (LastPriceEvent) event;
+            triggersFor(symbols.idOf(priceEvent.symbol)).lastPrice = priceEvent.price;
+        } else if (event instanceof RestingOrderEvent) {
+            RestingOrderEvent restEvent = (RestingOrderEvent) event;
+            processRestingOrder(restEvent.order, restEvent.bookedSequence, restEvent.stopPending);
         }
+        if (touchedTriggers != null) releaseStops();
+        if (!touchedBooks.isEmpty()) versionBooks();
+        if (sequence != 0) lastSequence = sequence;
+        traderOrders.eventDone(engineThread == null || eventQueue.isEmpty());
     }
 
-    private void match(Order newOrder, PriorityQueue<Order> oppositeBook, OrderBook book) {
+    // Only after the change, so a reader that sees the new version renders a book at least that new.
+    private void versionBooks() {
+        for (OrderBook book : touchedBooks) {
+            book.touched = false;
+            book.version = ++bookVersions;
+        }
+        touchedBooks.clear();
+    }
 
-        while (newOrder.getQuantity() > 0 && !oppositeBook.isEmpty()) {
+    private void flushReplication() {
+        if (replicationJournal == null) return;
+        try {
+            replicationJournal.flush();
+        } catch (IOException e) {
+            stopReplication("flush failed: " + e.getMessage());
+            return;
+        }
+        if (replicationJournal.isFailed()) {
+            stopReplication("journal failed");
+        } else if (replicationTarget instanceof SegmentedStream segments && segments.segmentDue()) {
+            startReplicationSegment();
+        }
+    }
 
-            Order bestOppositeOrder = null;
-            List<Order> skippedOrders = new ArrayList<>();
+    // A stream with events missing must not look healthy: closing it ends every follower's feed, so
+    // standbys see a silent primary rather than heartbeats over a gap.
+    private void stopReplication(String reason) {
+        System.err.println("Replication stopped: " + reason);
+        try {
+            replicationTarget.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close replication stream: " + e.getMessage());
+        }
+        replicationJournal = null;
+        replicationTarget = null;
+    }
 
-            while (!oppositeBook.isEmpty()) {
-                Order topOrder = oppositeBook.poll();
+    // A new segment is a new journal on the same stream, opening with a snapshot of the engine.
+    private void startReplicationSegment() {
+        SegmentedStream segments = replicationTarget instanceof SegmentedStream s ? s : null;
+        if (segments != null) segments.startSegment();
+        try {
+            replicationJournal = new EventJournal(replicationTarget, epoch);
+            recordSnapshot(replicationJournal);
+            replicationJournal.flush();
+        } catch (IOException e) {
+            stopReplication("snapshot failed: " + e.getMessage());
+            return;
+        }
+        if (replicationJournal.isFailed()) {
+            stopReplication("snapshot failed");
+            return;
+        }
+        if (segments != null) segments.snapshotWritten();
+    }
 
-                if (topOrder.getTraderId().equals(newOrder.getTraderId())) {
-                    skippedOrders.add(topOrder);
-                    continue;
-                }
+    // Expirations go through dispatch like any other event, so they are journalled and a
+    // replay reproduces them from the capture rather than from its own clock.
+    private void advanceTime() {
+        long now = clock.currentTimeMillis();
+        if (!overdue.isEmpty()) expireOverdue();
+        expiryWheel.advance(now, order -> {
+            if (activeOrders.get(order.getOrderId()) == order) {
+                dispatch(new ExpireOrderEvent(order.getOrderId()));
+            }
+        });
+        // Batch auctions are timed the same way; a book that did not cross in the interval has nothing to clear.
+        for (int id = auctionSymbols.nextSetBit(0); id >= 0; id = auctionSymbols.nextSetBit(id + 1)) {
+            if (now < nextAuctions[id]) continue;
+            nextAuctions[id] = nextAuction(now, auctionIntervals[id]);
+            if (crossed(id)) dispatch(new UncrossEvent(symbols.nameOf(id)));
+        }
+        if (now >= nextEvictionSweep) {
+            evictIdleBooks(now);
+            nextEvictionSweep = now + EVICTION_SWEEP_MS;
+        }
+    }
 
-                boolean isPriceMatch;
-                if (newOrder.getOrderType() == OrderType.BUY) {
-                    isPriceMatch = newOrder.getPrice() >= topOrder.getPrice();
-                } else {
-                    isPriceMatch = newOrder.getPrice() <= topOrder.getPrice();
-                }
+    // A follower's timers keep pace with the recorded clock without firing: the recording exchange's
+    // expirations and auctions arrive as records of their own. Once it takes over, advanceTime
+    // expires whatever the recording exchange left overdue.
+    private void followTime() {
+        long now = clock.currentTimeMillis();
+        if (!overdue.isEmpty()) overdue.removeIf(order -> activeOrders.get(order.getOrderId()) != order);
+        expiryWheel.advance(now, order -> {
+            if (activeOrders.get(order.getOrderId()) == order) overdue.add(order);
+        });
+        for (int id = auctionSymbols.nextSetBit(0); id >= 0; id = auctionSymbols.nextSetBit(id + 1)) {
+            if (now >= nextAuctions[id]) nextAuctions[id] = nextAuction(now, auctionIntervals[id]);
+        }
+        if (now >= nextEvictionSweep) {
+            evictIdleBooks(now);
+            nextEvictionSweep = now + EVICTION_SWEEP_MS;
+        }
+    }
+
+    private void expireOverdue() {
+        for (Order order : overdue) {
+            if (activeOrders.get(order.getOrderId()) == order) {
+                dispatch(new ExpireOrderEvent(order.getOrderId()));
+            }
+        }
+        overdue.clear();
+    }
+
+    private void processListSymbol(String symbol) {
+        listed.set(symbols.register(symbol));
+    }
+
+    private void processAuctionMode(String symbol, long intervalMillis) {
+        int id = symbols.idOf(symbol);
+        if (id == SymbolRegistry.UNKNOWN || !listed.get(id)) return;
+        if (intervalMillis <= 0) {
+            // Orders that crossed while waiting for the next batch clear now, not in arrival order.
+            if (auctionSymbols.get(id)) uncross(id);
+            auctionSymbols.clear(id);
+            auctionModes.remove(symbol);
+            return;
+        }
+        if (id >= auctionIntervals.length) {
+            auctionIntervals = Arrays.copyOf(auctionIntervals, Math.max(id + 1, auctionIntervals.length * 2));
+            nextAuctions = Arrays.copyOf(nextAuctions, auctionIntervals.length);
+        }
+        auctionIntervals[id] = intervalMillis;
+        nextAuctions[id] = nextAuction(clock.currentTimeMillis(), intervalMillis);
+        auctionSymbols.set(id);
+        auctionModes.put(symbol, intervalMillis);
+        if (verbose) log(String.format("Engine: %s now uncrosses every %d ms", symbol, intervalMillis));
+    }
+
+    // Auctions fall on multiples of the interval, so every symbol with the same interval clears together.
+    private static long nextAuction(long now, long intervalMillis) {
+        return (now / intervalMillis + 1) * intervalMillis;
+    }
+
+    private boolean crossed(int symbolId) {
+        OrderBook[] current = books;
+        OrderBook book = symbolId < current.length ? current[symbolId] : null;
+        if (book == null) return false;
+        Order bid = book.bestBid();
+        Order ask = book.bestAsk();
+        return bid != null && ask != null && bid.getPrice() >= ask.getPrice();
+    }
+
+    private OrderBook bookFor(int symbolId, boolean create) {
+        if (symbolId < 0 || !listed.get(symbolId)) return null;
+        OrderBook[] current = books;
+        if (symbolId >= current.length) {
+            if (!create) return null;
+            current = Arrays.copyOf(current, Math.max(symbolId + 1, current.length * 2));
+            books = current;
+        }
+        OrderBook book = current[symbolId];
+        if (book == null && create) {
+            book = new OrderBook();
+            current[symbolId] = book;
+        }
+        // Only mutating paths look books up here, so every change gets a new exchange-wide version.
+        if (book != null && !book.touched) {
+            book.touched = true;
+            touchedBooks.add(book);
+        }
+        return book;
+    }
 
-                if (isPriceMatch) {
-                    bestOppositeOrder = topOrder;
-                    break;
-                } else {
-                    skippedOrders.add(topOrder);
-                    break;
+    private OrderBook bookFor(Order order) {
+        return bookFor(order.symbolId, false);
+    }
+
+    // Created on the output thread at a symbol's first trade, unlike books never evicted.
+    private SymbolStats statsFor(int symbolId) {
+        SymbolStats[] current = stats;
+        if (symbolId >= current.length) {
+            current = Arrays.copyOf(current, Math.max(symbolId + 1, current.length * 2));
+            stats = current;
+        }
+        SymbolStats s = current[symbolId];
+        if (s == null) {
+            s = new SymbolStats(symbols.nameOf(symbolId));
+            current[symbolId] = s;
+        }
+        return s;
+    }
+
+    private SymbolStats statsFor(String stockSymbol) {
+        int id = symbols.idOf(stockSymbol);
+        if (id == SymbolRegistry.UNKNOWN) return null;
+        SymbolStats[] current = stats;
+        SymbolStats s = id < current.length ? current[id] : null;
+        return s != null ? s : new SymbolStats(stockSymbol);
+    }
+
+    private void evictIdleBooks(long now) {
+        OrderBook[] current = books;
+        for (int i = 0; i < current.length; i++) {
+            OrderBook book = current[i];
+            if (book != null && book.isEmpty() && now - book.lastActivityMillis > BOOK_IDLE_MS) {
+                current[i] = null;
+            }
+        }
+    }
+
+    private void switchJournal(EventJournal next) {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close event capture: " + e.getMessage());
+            }
+        }
+        journal = next;
+        if (journal != null) {
+            recordListedSymbols(journal);
+        }
+    }
+
+    // A new journal opens with the symbols listed so far and their auction modes. These records reuse
+    // the current sequence number, so sequences stay identical across every journal of this exchange.
+    private void recordListedSymbols(EventJournal target) {
+        for (int id = listed.nextSetBit(0); id >= 0; id = listed.nextSetBit(id + 1)) {
+            target.recordEvent(new ListSymbolEvent(symbols.nameOf(id)), eventSequence,
+                    clock.nanoTime(), clock.currentTimeMillis());
+        }
+        for (int id = auctionSymbols.nextSetBit(0); id >= 0; id = auctionSymbols.nextSetBit(id + 1)) {
+            target.recordEvent(new AuctionModeEvent(symbols.nameOf(id), auctionIntervals[id]), eventSequence,
+                    clock.nanoTime(), clock.currentTimeMillis());
+        }
+    }
+
+    // Everything a follower needs to carry on from here: trade history, listed symbols and auction
+    // modes, last prices, and every resting order and pending stop in priority order. It all
+    // carries the current sequence, like the header records of a capture.
+    private void recordSnapshot(EventJournal target) {
+        awaitOutputs();
+        long nanos = clock.nanoTime();
+        long millis = clock.currentTimeMillis();
+        target.recordEvent(new SnapshotEvent(tradeSequence), eventSequence, nanos, millis);
+        recordListedSymbols(target);
+        synchronized (tradeHistory) {
+            for (Trade trade : tradeHistory) {
+                target.recordTrade(trade);
+            }
+        }
+        OrderBook[] current = books;
+        for (int id = listed.nextSetBit(0); id >= 0; id = listed.nextSetBit(id + 1)) {
+            TriggerBook stops = id < triggers.length ? triggers[id] : null;
+            if (stops != null && !Double.isNaN(stops.lastPrice)) {
+                target.recordEvent(new LastPriceEvent(symbols.nameOf(id), stops.lastPrice), eventSequence, nanos, millis);
+            }
+            OrderBook book = id < current.length ? current[id] : null;
+            if (book != null) {
+                for (OrderType side : OrderType.values()) {
+                    for (PriceLevel level : book.levels(side)) {
+                        for (Order order = level.head; order != null; order = order.nextInLevel) {
+                            target.recordEvent(new RestingOrderEvent(order, order.bookedSequence, false),
+                                    eventSequence, nanos, millis);
+                        }
+                    }
                 }
             }
+            if (stops != null) {
+                stops.forEach(stop -> target.recordEvent(new RestingOrderEvent(stop, stop.bookedSequence, true),
+                        eventSequence, nanos, millis));
+            }
+        }
+    }
+
+    // Waits for the output thread to apply everything emitted so far, e.g. each trade to the history.
+    private void awaitOutputs() {
+        Thread consumer = outputThread;
+        if (consumer == null) return;
+        CountDownLatch done = new CountDownLatch(1);
+        emit(done);
+        LockSupport.unpark(consumer);
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // A snapshot's order goes straight back where it was, without matching.
+    private void processRestingOrder(Order order, long bookedSequence, boolean stopPending) {
+        order.symbolId = symbols.idOf(order.getStockSymbol());
+        OrderBook book = bookFor(order.symbolId, true);
+        if (book == null) return;
+        book.lastActivityMillis = clock.currentTimeMillis();
+        activate(order);
+        if (order.getTimeInForce() != TimeInForce.GTC) {
+            expiryWheel.schedule(order);
+        }
+        order.bookedSequence = bookedSequence;
+        if (stopPending) {
+            triggersFor(order.symbolId).add(order);
+        } else {
+            book.addOrder(order);
+            maybeCreateLowPriceAlert(order);
+        }
+    }
+
+    private void restoreTrade(Trade trade) {
+        historyToRestore--;
+        emit(new TradeOutput(trade, symbols.idOf(trade.getStockSymbol()), null, 0));
+    }
 
-            oppositeBook.addAll(skippedOrders);
+    private void processNewOrder(Order newOrder) {
+        if (newOrder.symbolId == SymbolRegistry.UNKNOWN) {
+            newOrder.symbolId = symbols.idOf(newOrder.getStockSymbol());
+        }
+        OrderBook book = bookFor(newOrder.symbolId, true);
+        if (book == null) {
+            exposureChanged(newOrder, true);
+            return;
+        }
+        book.lastActivityMillis = clock.currentTimeMillis();
 
-            if (bestOppositeOrder == null) {
-                break;
+        if (newOrder.getTimeInForce() == TimeInForce.DAY && newOrder.getExpireAt() == 0) {
+            newOrder.setExpireAt(nextSessionClose(clock.currentTimeMillis()));
+        }
+        if (newOrder.getTimeInForce() != TimeInForce.GTC && newOrder.getExpireAt() <= clock.currentTimeMillis()) {
+            if (verbose) log("Engine rejected expired order: " + newOrder);
+            exposureChanged(newOrder, true);
+            return;
+        }
+
+        activate(newOrder);
+        if (newOrder.getTimeInForce() != TimeInForce.GTC) {
+            expiryWheel.schedule(newOrder);
+        }
+
+        // A stop whose price has not traded yet waits in the trigger book; one already reached enters now.
+        if (newOrder.isStop()) {
+            TriggerBook stops = triggersFor(newOrder.symbolId);
+            if (!stops.reached(newOrder)) {
+                stops.add(newOrder);
+                return;
             }
+        }
 
-            System.out.println("Engine: MATCH FOUND! (Not a self-trade)");
+        enter(newOrder, book);
+    }
+
+    // Continuous symbols match on arrival. Batch auction symbols only rest until the next uncross,
+    // except market orders, which have no price to wait at.
+    private void enter(Order order, OrderBook book) {
+        if (order.isMarket() || !auctionSymbols.get(order.symbolId)) {
+            match(order, book);
+        }
+        rest(order, book);
+    }
 
-            int tradeQuantity = Math.min(newOrder.getQuantity(), bestOppositeOrder.getQuantity());
-            double tradePrice = bestOppositeOrder.getPrice();
+    private void rest(Order order, OrderBook book) {
+        if (order.getQuantity() == 0) return;
+        if (order.isMarket()) {
+            if (verbose) log("Engine cancelled unfilled market remainder: " + order);
+            deactivate(order);
+            return;
+        }
+        order.bookedSequence = eventSequence;
+        book.addOrder(order);
+        maybeCreateLowPriceAlert(order);
+    }
 
-            String buyerId, sellerId;
-            if (newOrder.getOrderType() == OrderType.BUY) {
-                buyerId = newOrder.getTraderId();
-                sellerId = bestOppositeOrder.getTraderId();
-            } else {
-                buyerId = bestOppositeOrder.getTraderId();
-                sellerId = newOrder.getTraderId();
+    // Fired stops go through matching in trigger order; the trades they make can fire further stops.
+    private void releaseStops() {
+        while (touchedTriggers != null) {
+            TriggerBook stops = touchedTriggers;
+            touchedTriggers = null;
+            stops.release(firedStops);
+            for (Order stop : firedStops) {
+                OrderBook book = bookFor(stop.symbolId, true);
+                book.lastActivityMillis = clock.currentTimeMillis();
+                if (verbose) log("Engine triggered stop: " + stop);
+                enter(stop, book);
             }
-            Trade trade = new Trade(newOrder.getStockSymbol(), tradeQuantity, tradePrice, buyerId, sellerId);
+            firedStops.clear();
+        }
+    }
 
-            synchronized (tradeHistory) {
-                tradeHistory.add(trade);
+    private TriggerBook triggersFor(int symbolId) {
+        if (symbolId >= triggers.length) {
+            triggers = Arrays.copyOf(triggers, Math.max(symbolId + 1, triggers.length * 2));
+        }
+        TriggerBook stops = triggers[symbolId];
+        if (stops == null) {
+            stops = new TriggerBook();
+            triggers[symbolId] = stops;
+        }
+        return stops;
+    }
+
+    // Takes an order out of the trigger book while its stop is pending, else out of the order book.
+    private void unrest(Order order, OrderBook book) {
+        if (order.stopPending) {
+            triggersFor(order.symbolId).remove(order);
+        } else if (book != null) {
+            book.removeOrder(order);
+        }
+    }
+
+    private long nextSessionClose(long nowMillis) {
+        ZonedDateTime now = Instant.ofEpochMilli(nowMillis).atZone(sessionZone);
+        ZonedDateTime close = now.with(sessionClose);
+        if (!close.isAfter(now)) {
+            close = close.plusDays(1);
+        }
+        return close.toInstant().toEpochMilli();
+    }
+
+    private void match(Order newOrder, OrderBook book) {
+        OrderType oppositeSide = newOrder.getOrderType() == OrderType.BUY ? OrderType.SELL : OrderType.BUY;
+
+        for (PriceLevel level : book.levels(oppositeSide)) {
+            if (newOrder.getQuantity() == 0 || !crosses(newOrder, level.price)) break;
+
+            Order resting = level.head;
+            while (resting != null && newOrder.getQuantity() > 0) {
+                Order next = resting.nextInLevel;
+                if (!resting.getTraderId().equals(newOrder.getTraderId())) {
+                    fill(newOrder, resting, book);
+                }
+                resting = next;
             }
-            System.out.println(trade);
+        }
+
+        if (newOrder.getQuantity() == 0) {
+            deactivate(newOrder);
+            removeAlertForOrder(newOrder);
+        } else {
+            traderOrders.changed(newOrder);
+            exposureChanged(newOrder, false);
+        }
+    }
 
+    private static boolean crosses(Order newOrder, double restingPrice) {
+        if (newOrder.isMarket()) return true;
+        if (newOrder.getOrderType() == OrderType.BUY) {
+            return newOrder.getPrice() >= restingPrice;
+        }
+        return newOrder.getPrice() <= restingPrice;
+    }
 
-            newOrder.setQuantity(newOrder.getQuantity() - tradeQuantity);
-            bestOppositeOrder.setQuantity(bestOppositeOrder.getQuantity() - tradeQuantity);
+    private void fill(Order newOrder, Order resting, OrderBook book) {
+        int tradeQuantity = Math.min(newOrder.getQuantity(), resting.getQuantity());
+        double tradePrice = resting.getPrice();
 
-            if (bestOppositeOrder.getQuantity() > 0) {
-                oppositeBook.add(bestOppositeOrder);
-                updateAlertQuantity(bestOppositeOrder.getOrderId(), bestOppositeOrder.getQuantity());
-            } else {
-                activeOrders.remove(bestOppositeOrder.getOrderId());
-                removeAlertForOrder(bestOppositeOrder.getOrderId());
+        String buyerId, sellerId;
+        if (newOrder.getOrderType() == OrderType.BUY) {
+            buyerId = newOrder.getTraderId();
+            sellerId = resting.getTraderId();
+        } else {
+            buyerId = resting.getTraderId();
+            sellerId = newOrder.getTraderId();
+        }
+        recordTrade(newOrder.symbolId, newOrder, resting, tradeQuantity, tradePrice, buyerId, sellerId);
+
+        newOrder.setQuantity(newOrder.getQuantity() - tradeQuantity);
+        resting.setQuantity(resting.getQuantity() - tradeQuantity);
+        settle(resting, book);
+    }
+
+    // A resting order after a fill: still open for less, or gone from the book.
+    private void settle(Order resting, OrderBook book) {
+        if (resting.getQuantity() > 0) {
+            traderOrders.changed(resting);
+            updateAlertQuantity(resting, resting.getQuantity());
+            exposureChanged(resting, false);
+        } else {
+            book.removeOrder(resting);
+            deactivate(resting);
+            removeAlertForOrder(resting);
+        }
+    }
+
+    /**
+     * One batch auction: every buy at or above the clearing price fills against sells at or below it,
+     * both sides in price-time priority and all at that one price. Self-trades are skipped, so a
+     * batch can execute less than the volume the price was chosen for.
+     */
+    private void uncross(int symbolId) {
+        OrderBook book = bookFor(symbolId, false);
+        if (book == null) return;
+        double price = book.clearingPrice(triggersFor(symbolId).lastPrice);
+        if (Double.isNaN(price)) return;
+        book.lastActivityMillis = clock.currentTimeMillis();
+        if (verbose) log(String.format("Engine: uncrossing %s @ $%.2f", symbols.nameOf(symbolId), price));
+
+        for (PriceLevel level : book.levels(OrderType.BUY)) {
+            if (level.price < price) break;
+            for (Order buy = level.head; buy != null; ) {
+                Order next = buy.nextInLevel;
+                auctionFill(buy, book, price);
+                buy = next;
             }
+            Order ask = book.bestAsk();
+            if (ask == null || ask.getPrice() > price) break;
+        }
+    }
 
-            if (newOrder.getQuantity() == 0) {
-                activeOrders.remove(newOrder.getOrderId());
-                removeAlertForOrder(newOrder.getOrderId());
-                break;
+    private void auctionFill(Order buy, OrderBook book, double price) {
+        for (PriceLevel level : book.levels(OrderType.SELL)) {
+            if (buy.getQuantity() == 0 || level.price > price) break;
+            Order sell = level.head;
+            while (sell != null && buy.getQuantity() > 0) {
+                Order next = sell.nextInLevel;
+                if (!sell.getTraderId().equals(buy.getTraderId())) {
+                    int quantity = Math.min(buy.getQuantity(), sell.getQuantity());
+                    // Neither order took liquidity; the later one is reported as the aggressor.
+                    boolean buyLater = buy.bookedSequence >= sell.bookedSequence;
+                    recordTrade(buy.symbolId, buyLater ? buy : sell, buyLater ? sell : buy, quantity, price,
+                            buy.getTraderId(), sell.getTraderId());
+                    buy.setQuantity(buy.getQuantity() - quantity);
+                    sell.setQuantity(sell.getQuantity() - quantity);
+                    settle(sell, book);
+                }
+                sell = next;
             }
         }
+        settle(buy, book);
     }
 
     private void processCancelOrder(String orderId) {
         Order orderToCancel = activeOrders.get(orderId);
         if (orderToCancel == null) return;
 
-        OrderBook book = orderBooks.get(orderToCancel.getStockSymbol());
-        if (book != null) {
-            book.removeOrder(orderToCancel);
-            activeOrders.remove(orderId);
-            removeAlertForOrder(orderId);
-            System.out.println("Engine cancelled: " + orderToCancel);
+        OrderBook book = bookFor(orderToCancel);
+        if (book != null || orderToCancel.stopPending) {
+            unrest(orderToCancel, book);
+            deactivate(orderToCancel);
+            removeAlertForOrder(orderToCancel);
+            if (verbose) log("Engine cancelled: " + orderToCancel);
+        }
+    }
+
+    private void processMassCancel(String traderId, String stockSymbol, OrderType side) {
+        int cancelled = 0;
+        for (Order order : traderOrders.orders(traderId)) {
+            if (stockSymbol != null && !stockSymbol.equals(order.getStockSymbol())) continue;
+            if (side != null && side != order.getOrderType()) continue;
+
+            unrest(order, bookFor(order));
+            deactivate(order);
+            removeAlertForOrder(order);
+            cancelled++;
+        }
+        if (verbose) log(String.format("Engine mass-cancelled %d orders of %s", cancelled, traderId));
+    }
+
+    private void processExpireOrder(String orderId) {
+        Order expired = activeOrders.get(orderId);
+        if (expired == null) return;
+
+        OrderBook book = bookFor(expired);
+        if (book != null || expired.stopPending) {
+            unrest(expired, book);
+            deactivate(expired);
+            removeAlertForOrder(expired);
+            if (verbose) log("Engine expired: " + expired);
         }
     }
 
-    private void processModifyOrder(String orderId, double newPrice) {
+    private void processModifyOrder(String orderId, double newPrice, int newQuantity, String traderId, long reservedCents) {
         Order orderToModify = activeOrders.get(orderId);
+        // A reservation joins the order's counted exposure, so each path below settles it; with no
+        // tracked order left to amend it goes straight back.
+        if (reservedCents != 0) {
+            if (orderToModify != null && orderToModify.exposureCents >= 0) {
+                orderToModify.exposureCents += reservedCents;
+            } else {
+                emit(new ExposureOutput(traderId, 0, -reservedCents));
+            }
+        }
         if (orderToModify == null) return;
+        traderOrders.changed(orderToModify);
 
-        OrderBook book = orderBooks.get(orderToModify.getStockSymbol());
-        if (book == null) return;
+        // A pending stop has no place in the book yet: only its limit and size change.
+        if (orderToModify.stopPending) {
+            int quantity = newQuantity < 0 ? orderToModify.getQuantity() : newQuantity;
+            if (quantity == 0) {
+                processCancelOrder(orderId);
+                return;
+            }
+            if (!Double.isNaN(newPrice)) orderToModify.setPrice(newPrice);
+            orderToModify.setQuantity(quantity);
+            exposureChanged(orderToModify, false);
+            return;
+        }
+
+        OrderBook book = bookFor(orderToModify);
+        if (book == null) {
+            exposureChanged(orderToModify, false);
+            return;
+        }
 
+        double price = Double.isNaN(newPrice) ? orderToModify.getPrice() : newPrice;
+        int quantity = newQuantity < 0 ? orderToModify.getQuantity() : newQuantity;
 
-        book.removeOrder(orderToModify);
-        removeAlertForOrder(orderId);
+        if (quantity == 0) {
+            processCancelOrder(orderId);
+            return;
+        }
 
-        System.out.printf("Engine: MODIFYING order to new price $%.2f\n", newPrice);
-        orderToModify.setPrice(newPrice);
-        orderToModify.resetTimestamp();
+        // Shrinking an order at the same price keeps its place in the queue: nothing in the
+        // book moves, only the open quantity changes.
+        if (price == orderToModify.getPrice() && quantity <= orderToModify.getQuantity()) {
+            if (verbose) log(String.format("Engine: REDUCING order to %d", quantity));
+            orderToModify.setQuantity(quantity);
+            updateAlertQuantity(orderToModify, quantity);
+            exposureChanged(orderToModify, false);
+            return;
+        }
 
+        book.removeOrder(orderToModify);
+        removeAlertForOrder(orderToModify);
 
+        if (verbose) log(String.format("Engine: MODIFYING order to %d @ $%.2f", quantity, price));
+        orderToModify.setPrice(price);
+        orderToModify.setQuantity(quantity);
+        orderToModify.resetTimestamp(clock.currentTimeMillis());
 
-        if (orderToModify.getOrderType() == OrderType.BUY) {
-            match(orderToModify, book.getAsks(), book);
-        } else {
-            match(orderToModify, book.getBids(), book);
+        if (!auctionSymbols.get(orderToModify.symbolId)) {
+            match(orderToModify, book);
         }
 
-
         if (orderToModify.getQuantity() > 0) {
+            orderToModify.bookedSequence = eventSequence;
             book.addOrder(orderToModify);
             maybeCreateLowPriceAlert(orderToModify);
+            exposureChanged(orderToModify, false);
         } else {
-            activeOrders.remove(orderId);
+            deactivate(orderToModify);
         }
     }
 
     private void processClaimAlert(String alertId, String orderId, String buyerId) {
         Order sellOrder = activeOrders.get(orderId);
-        if (sellOrder == null || sellOrder.getQuantity() <= 0) {
-            removeAlertForOrder(orderId);
-            return;
-        }
+        // An order that is gone already had its alert removed when it left the book.
+        if (sellOrder == null || sellOrder.getQuantity() <= 0) return;
 
-        OrderBook book = orderBooks.get(sellOrder.getStockSymbol());
+        OrderBook book = bookFor(sellOrder);
         if (book == null) {
-            removeAlertForOrder(orderId);
+            removeAlertForOrder(sellOrder);
             return;
         }
 
         book.removeOrder(sellOrder);
-        removeAlertForOrder(orderId);
+        removeAlertForOrder(sellOrder);
 
         int tradeQuantity = sellOrder.getQuantity();
         double tradePrice = sellOrder.getPrice();
-        Trade trade = new Trade(sellOrder.getStockSymbol(), tradeQuantity, tradePrice, buyerId, sellOrder.getTraderId());
-        synchronized (tradeHistory) {
-            tradeHistory.add(trade);
-        }
-        System.out.println(trade);
+        recordTrade(sellOrder.symbolId, null, sellOrder, tradeQuantity, tradePrice, buyerId, sellOrder.getTraderId());
 
         sellOrder.setQuantity(0);
-        activeOrders.remove(sellOrder.getOrderId());
+        deactivate(sellOrder);
+    }
+
+    private void activate(Order order) {
+        activeOrders.put(order.getOrderId(), order);
+        traderOrders.add(order);
+    }
+
+    private void deactivate(Order order) {
+        exposureChanged(order, true);
+        activeOrders.remove(order.getOrderId());
+        traderOrders.remove(order);
+    }
+
+    // Passes the change in a risk-tracked order's open notional to the risk stage; closed means it left the book.
+    private void exposureChanged(Order order, boolean closed) {
+        if (order.exposureCents < 0) return;
+        long open = closed ? 0 : Order.notionalCents(order.riskPrice(), order.getQuantity());
+        long delta = open - order.exposureCents;
+        order.exposureCents = closed ? -1 : open;
+        if (delta != 0 || closed) emit(new ExposureOutput(order.getTraderId(), closed ? -1 : 0, delta));
+    }
+
+    // aggressor is null for an alert claim, which has no order of its own.
+    private void recordTrade(int symbolId, Order aggressor, Order passive, int quantity, double price,
+                             String buyerId, String sellerId) {
+        long matchedNanos = System.nanoTime();
+        Trade trade = new Trade(++tradeSequence, eventNanos, eventMillis, passive.getStockSymbol(), quantity, price,
+                buyerId, sellerId, aggressor != null ? aggressor.getOrderId() : null, passive.getOrderId(),
+                aggressor != null ? aggressor.getTraceId() : null);
+        if (triggersFor(symbolId).onTrade(price)) touchedTriggers = triggers[symbolId];
+        // Journals stay on the engine thread: their order is what a replay or a standby follows.
+        if (journal != null) {
+            journal.recordTrade(trade);
+        }
+        if (replicationJournal != null) {
+            replicationJournal.recordTrade(trade);
+        }
+        emit(new TradeOutput(trade, symbolId, aggressor, matchedNanos));
     }
 
     private void maybeCreateLowPriceAlert(Order order) {
         if (order.getOrderType() != OrderType.SELL) return;
         if (order.getPrice() >= ALERT_PRICE_THRESHOLD) return;
         if (order.getQuantity() <= 0) return;
-        if (alertByOrderId.containsKey(order.getOrderId())) return;
+        if (order.alerted) return;
 
-        Alert alert = new Alert(order.getOrderId(), order.getStockSymbol(), order.getPrice(), order.getQuantity(), order.getTraderId());
-        activeAlerts.put(alert.getId(), alert);
-        alertByOrderId.put(order.getOrderId(), alert.getId());
-        alertQueue.offer(alert);
+        order.alerted = true;
+        emit(new AlertCreated(order.getOrderId(), order.getStockSymbol(), order.getPrice(), order.getQuantity(),
+                order.getTraderId(), clock.currentTimeMillis()));
     }
 
-    private void removeAlertForOrder(String orderId) {
-        String alertId = alertByOrderId.remove(orderId);
-        if (alertId != null) {
-            activeAlerts.remove(alertId);
-        }
+    private void removeAlertForOrder(Order order) {
+        if (!order.alerted) return;
+        order.alerted = false;
+        emit(new AlertRemoved(order.getOrderId()));
     }
 
-    private void updateAlertQuantity(String orderId, int quantity) {
-        String alertId = alertByOrderId.get(orderId);
-        if (alertId == null) return;
-        Alert alert = activeAlerts.get(alertId);
-        if (alert != null) {
-            alert.setQuantity(quantity);
-        }
+    private void updateAlertQuantity(Order order, int quantity) {
+        if (order.alerted) emit(new AlertQuantity(order.getOrderId(), quantity));
     }
 
     private void drainAlertQueue() {
@@ -0,0 +1,61 @@
+package com.example.exchange.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns symbols to dense integer ids. Ids are never reused, so an id resolved on a request
+ * thread stays valid for the engine, which then indexes its books by array position.
+ */
+public class SymbolRegistry {
+
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names = new String[16];
+    private int size;
+
+    public int register(String symbol) {
+        Integer id = ids.get(symbol);
+        if (id != null) return id;
+        synchronized (this) {
+            id = ids.get(symbol);
+            if (id != null) return id;
+            String[] current = names;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = symbol;
+            names = current;
+            ids.put(symbol, size);
+            return size++;
+        }
+    }
+
+    public int idOf(String symbol) {
+        if (symbol == null) return UNKNOWN;
+        Integer id = ids.get(symbol);
+        return id == null ? UNKNOWN : id;
+    }
+
+    public String nameOf(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public List<String> symbols() {
+        String[] current = names;
+        List<String> symbols = new ArrayList<>();
+        for (String name : current) {
+            if (name == null) break;
+            symbols.add(name);
+        }
+        return symbols;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.exchange.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Session statistics and OHLCV bars for one symbol, folded in trade by trade on the output thread.
+ * Bars live in primitive ring buffers per interval that start small and grow to the interval's
+ * retention, so a symbol that barely trades costs little. Bars only exist for periods with trades.
+ */
+public final class SymbolStats {
+
+    private static final CandleInterval[] INTERVALS = CandleInterval.values();
+
+    private static final class Bars {
+        final long millis;
+        final int retained;
+        long[] starts = new long[16];
+        double[] open = new double[16];
+        double[] high = new double[16];
+        double[] low = new double[16];
+        double[] close = new double[16];
+        long[] volume = new long[16];
+        int[] trades = new int[16];
+        long count;
+
+        Bars(CandleInterval interval) {
+            this.millis = interval.millis();
+            this.retained = interval.retained();
+        }
+
+        void add(long time, double price, int quantity) {
+            long start = time - Math.floorMod(time, millis);
+            int i = (int) ((count - 1) % starts.length);
+            if (count == 0 || start > starts[i]) {
+                if (count == starts.length && starts.length < retained) grow();
+                i = (int) (count % starts.length);
+                starts[i] = start;
+                open[i] = high[i] = low[i] = close[i] = price;
+                volume[i] = 0;
+                trades[i] = 0;
+                count++;
+            } else {
+                // Clock steps backwards land in the current bar.
+                high[i] = Math.max(high[i], price);
+                low[i] = Math.min(low[i], price);
+                close[i] = price;
+            }
+            volume[i] += quantity;
+            trades[i]++;
+        }
+
+        List<Candle> last(int limit) {
+            int available = (int) Math.min(count, starts.length);
+            int n = Math.min(limit, available);
+            List<Candle> result = new ArrayList<>(n);
+            for (long seq = count - n; seq < count; seq++) {
+                int i = (int) (seq % starts.length);
+                result.add(new Candle(starts[i], open[i], high[i], low[i], close[i], volume[i], trades[i]));
+            }
+            return result;
+        }
+
+        // Only called while the ring is still filling, so the order of bars is unchanged.
+        private void grow() {
+            int capacity = Math.min(starts.length * 2, retained);
+            starts = Arrays.copyOf(starts, capacity);
+            open = Arrays.copyOf(open, capacity);
+            high = Arrays.copyOf(high, capacity);
+            low = Arrays.copyOf(low, capacity);
+            close = Arrays.copyOf(close, capacity);
+            volume = Arrays.copyOf(volume, capacity);
+            trades = Arrays.copyOf(trades, capacity);
+        }
+    }
+
+    private final String symbol;
+    private final Bars[] bars = new Bars[INTERVALS.length];
+    private double open, high, low, last;
+    private long volume;
+    private double turnover;
+    private long trades;
+    private long firstTradeMillis, lastTradeMillis;
+
+    SymbolStats(String symbol) {
+        this.symbol = symbol;
+        for (int i = 0; i < INTERVALS.length; i++) {
+            bars[i] = new Bars(INTERVALS[i]);
+        }
+    }
+
+    synchronized void onTrade(long time, double price, int quantity) {
+        if (trades == 0) {
+            open = high = low = price;
+            firstTradeMillis = time;
+        } else {
+            high = Math.max(high, price);
+            low = Math.min(low, price);
+        }
+        last = price;
+        volume += quantity;
+        turnover += price * quantity;
+        trades++;
+        lastTradeMillis = time;
+        for (Bars b : bars) {
+            b.add(time, price, quantity);
+        }
+    }
+
+    public synchronized List<Candle> candles(CandleInterval interval, int limit) {
+        return bars[interval.ordinal()].last(limit);
+    }
+
+    public synchronized Map<String, Object> session() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("symbol", symbol);
+        result.put("trades", trades);
+        if (trades > 0) {
+            result.put("open", open);
+            result.put("high", high);
+            result.put("low", low);
+            result.put("last", last);
+            result.put("volume", volume);
+            result.put("vwap", turnover / volume);
+            result.put("firstTradeTime", firstTradeMillis);
+            result.put("lastTradeTime", lastTradeMillis);
+        }
+        return result;
+    }
+}
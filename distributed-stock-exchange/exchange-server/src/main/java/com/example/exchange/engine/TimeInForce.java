@@ -0,0 +1,5 @@
+package com.example.exchange.engine;
+
+public enum TimeInForce {
+    GTC, GTT, DAY
+}
@@ -1,18 +1,36 @@
 package com.example.exchange.engine;
 
 public class Trade {
+    private final long sequence;
+    private final long timestampNanos;
+    private final long timestamp;
     private final String stockSymbol;
     private final int quantity;
     private final double price;
     private final String buyerId;
     private final String sellerId;
+    private final String aggressorOrderId;
+    private final String passiveOrderId;
+    private final String traceId;
 
     public Trade(String stockSymbol, int quantity, double price, String buyerId, String sellerId) {
+        this(0, 0, 0, stockSymbol, quantity, price, buyerId, sellerId, null, null, null);
+    }
+
+    // sequence counts trades from 1; timestampNanos/timestamp are the exchange clock when the aggressing event was processed.
+    public Trade(long sequence, long timestampNanos, long timestamp, String stockSymbol, int quantity, double price,
+                 String buyerId, String sellerId, String aggressorOrderId, String passiveOrderId, String traceId) {
+        this.sequence = sequence;
+        this.timestampNanos = timestampNanos;
+        this.timestamp = timestamp;
         this.stockSymbol = stockSymbol;
         this.quantity = quantity;
         this.price = price;
         this.buyerId = buyerId;
         this.sellerId = sellerId;
+        this.aggressorOrderId = aggressorOrderId;
+        this.passiveOrderId = passiveOrderId;
+        this.traceId = traceId;
     }
 
     @Override
@@ -21,9 +39,15 @@ public class Trade {
                 quantity, stockSymbol, price, buyerId, sellerId);
     }
 
+    public long getSequence() { return sequence; }
+    public long getTimestampNanos() { return timestampNanos; }
+    public long getTimestamp() { return timestamp; }
     public String getStockSymbol() { return stockSymbol; }
     public int getQuantity() { return quantity; }
     public double getPrice() { return price; }
     public String getBuyerId() { return buyerId; }
     public String getSellerId() { return sellerId; }
+    public String getAggressorOrderId() { return aggressorOrderId; }
+    public String getPassiveOrderId() { return passiveOrderId; }
+    public String getTraceId() { return traceId; }
 }
@@ -0,0 +1,43 @@
+package com.example.exchange.engine;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Where the time went for recent trades: the aggressing order's stamps at REST receipt, enqueue and
+ * dequeue, and the match itself, all System.nanoTime. Kept for the last CAPACITY trades in primitive
+ * arrays indexed by trade sequence. Stamps are local diagnostics: they are not journaled or replicated.
+ */
+final class TradeLatencies {
+
+    private static final int CAPACITY = 1 << 16;
+    private static final int MASK = CAPACITY - 1;
+
+    private final long[] sequences = new long[CAPACITY];
+    private final long[] received = new long[CAPACITY];
+    private final long[] enqueued = new long[CAPACITY];
+    private final long[] dequeued = new long[CAPACITY];
+    private final long[] matched = new long[CAPACITY];
+
+    synchronized void record(long sequence, Order aggressor, long matchedNanos) {
+        int i = (int) (sequence & MASK);
+        sequences[i] = sequence;
+        received[i] = aggressor != null ? aggressor.receivedNanos : 0;
+        enqueued[i] = aggressor != null ? aggressor.enqueuedNanos : 0;
+        dequeued[i] = aggressor != null ? aggressor.dequeuedNanos : 0;
+        matched[i] = matchedNanos;
+    }
+
+    // Null once the trade has been overwritten; stages whose stamps are missing are left out.
+    synchronized Map<String, Object> breakdown(long sequence) {
+        int i = (int) (sequence & MASK);
+        if (sequence <= 0 || sequences[i] != sequence) return null;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sequence", sequence);
+        if (received[i] != 0 && enqueued[i] != 0) result.put("receivedToEnqueuedNanos", enqueued[i] - received[i]);
+        if (enqueued[i] != 0 && dequeued[i] != 0) result.put("queuedNanos", dequeued[i] - enqueued[i]);
+        if (dequeued[i] != 0) result.put("dequeuedToMatchedNanos", matched[i] - dequeued[i]);
+        if (received[i] != 0) result.put("receivedToMatchedNanos", matched[i] - received[i]);
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.exchange.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live orders per trader. Readers never see the Order the engine mutates: each changed order gets a
+ * fresh immutable OrderView when the engine has drained its queue (or every PUBLISH_EVERY events
+ * under sustained load), so a publish costs O(orders changed) rather than O(orders held).
+ */
+final class TraderOrders {
+
+    private static final int PUBLISH_EVERY = 1024;
+
+    private final Map<String, Set<Order>> byTrader = new ConcurrentHashMap<>();
+    private final List<Order> dirty = new ArrayList<>();
+    private int unpublishedEvents;
+
+    // Engine thread only.
+    void add(Order order) {
+        byTrader.computeIfAbsent(order.getTraderId(), k -> ConcurrentHashMap.newKeySet()).add(order);
+        changed(order);
+    }
+
+    // Engine thread only.
+    void remove(Order order) {
+        byTrader.computeIfPresent(order.getTraderId(), (k, orders) -> {
+            orders.remove(order);
+            return orders.isEmpty() ? null : orders;
+        });
+    }
+
+    // Engine thread only: the order was added or its price, quantity or timestamp changed in place.
+    void changed(Order order) {
+        if (!order.viewStale) {
+            order.viewStale = true;
+            dirty.add(order);
+        }
+    }
+
+    // Engine thread only: the trader's live orders, safe to cancel while iterating.
+    Order[] orders(String traderId) {
+        Set<Order> orders = byTrader.get(traderId);
+        return orders == null ? new Order[0] : orders.toArray(new Order[0]);
+    }
+
+    // Engine thread only, once per event; drained says nothing else is waiting to be processed.
+    void eventDone(boolean drained) {
+        if (dirty.isEmpty()) return;
+        if (drained || ++unpublishedEvents >= PUBLISH_EVERY) publish();
+    }
+
+    private void publish() {
+        for (Order order : dirty) {
+            order.view = OrderView.of(order);
+            order.viewStale = false;
+        }
+        dirty.clear();
+        unpublishedEvents = 0;
+    }
+
+    // An order entered since the last publish is not listed yet.
+    List<OrderView> views(String traderId) {
+        Set<Order> orders = byTrader.get(traderId);
+        if (orders == null) return List.of();
+        List<OrderView> views = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            OrderView view = order.view;
+            if (view != null) views.add(view);
+        }
+        return views;
+    }
+}
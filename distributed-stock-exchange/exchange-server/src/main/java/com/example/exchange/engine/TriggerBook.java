@@ -0,0 +1,98 @@
+package com.example.exchange.engine;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * One symbol's pending stop orders, indexed by stop price on the engine thread. A buy stop fires on
+ * a trade at or above its stop, a sell stop at or below, so each side is kept with the next stop to
+ * fire first and a release is O(log n + k) for k fired orders. Orders at one stop price queue in a
+ * {@link PriceLevel} and fire in arrival order.
+ */
+final class TriggerBook {
+
+    private final TreeMap<Double, PriceLevel> buyStops = new TreeMap<>();
+    private final TreeMap<Double, PriceLevel> sellStops = new TreeMap<>(Comparator.reverseOrder());
+    private int count;
+    double lastPrice = Double.NaN;
+    // Range traded since the last release; a sweep can pass through a stop and end on the far side of it.
+    private double high = Double.NEGATIVE_INFINITY;
+    private double low = Double.POSITIVE_INFINITY;
+
+    // Whether a trade at lastPrice would already fire this stop.
+    boolean reached(Order stop) {
+        if (Double.isNaN(lastPrice)) return false;
+        return stop.getOrderType() == OrderType.BUY ? lastPrice >= stop.getStopPrice() : lastPrice <= stop.getStopPrice();
+    }
+
+    void add(Order stop) {
+        TreeMap<Double, PriceLevel> side = stop.getOrderType() == OrderType.BUY ? buyStops : sellStops;
+        side.computeIfAbsent(stop.getStopPrice(), PriceLevel::new).append(stop);
+        stop.stopPending = true;
+        count++;
+    }
+
+    void remove(Order stop) {
+        PriceLevel level = stop.level;
+        if (!stop.stopPending || level == null) return;
+        level.unlink(stop);
+        if (level.isEmpty()) {
+            (stop.getOrderType() == OrderType.BUY ? buyStops : sellStops).remove(level.price, level);
+        }
+        stop.stopPending = false;
+        count--;
+    }
+
+    // True when a stop may have been reached, so the caller should release; O(1) with no stops.
+    boolean onTrade(double price) {
+        lastPrice = price;
+        if (count == 0) return false;
+        if (price > high) high = price;
+        if (price < low) low = price;
+        return true;
+    }
+
+    // Moves every stop reached since the last release into fired, buy stops before sell stops.
+    void release(List<Order> fired) {
+        drain(buyStops, high, true, fired);
+        drain(sellStops, low, false, fired);
+        high = Double.NEGATIVE_INFINITY;
+        low = Double.POSITIVE_INFINITY;
+    }
+
+    int size() {
+        return count;
+    }
+
+    // Every pending stop in the order a release would fire it.
+    void forEach(Consumer<Order> action) {
+        for (TreeMap<Double, PriceLevel> side : List.of(buyStops, sellStops)) {
+            for (PriceLevel level : side.values()) {
+                for (Order stop = level.head; stop != null; stop = stop.nextInLevel) {
+                    action.accept(stop);
+                }
+            }
+        }
+    }
+
+    private void drain(TreeMap<Double, PriceLevel> side, double traded, boolean buy, List<Order> fired) {
+        while (!side.isEmpty()) {
+            Map.Entry<Double, PriceLevel> next = side.firstEntry();
+            if (buy ? traded < next.getKey() : traded > next.getKey()) return;
+            side.pollFirstEntry();
+            for (Order stop = next.getValue().head; stop != null; ) {
+                Order following = stop.nextInLevel;
+                stop.level = null;
+                stop.prevInLevel = null;
+                stop.nextInLevel = null;
+                stop.stopPending = false;
+                count--;
+                fired.add(stop);
+                stop = following;
+            }
+        }
+    }
+}
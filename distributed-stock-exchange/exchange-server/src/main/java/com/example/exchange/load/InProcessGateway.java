@@ -0,0 +1,47 @@
+package com.example.exchange.load;
+
+import com.example.exchange.engine.Order;
+import com.example.exchange.engine.OrderView;
+import com.example.exchange.engine.StockExchange;
+
+import java.util.HashSet;
+import java.util.Set;
+
+public class InProcessGateway implements OrderGateway {
+
+    private final StockExchange exchange;
+
+    public InProcessGateway(StockExchange exchange) {
+        this.exchange = exchange;
+    }
+
+    @Override
+    public String submit(Order order) {
+        exchange.submitOrder(order);
+        return order.getOrderId();
+    }
+
+    @Override
+    public void modify(String orderId, double newPrice) {
+        exchange.modifyOrder(orderId, newPrice);
+    }
+
+    @Override
+    public void cancel(String orderId) {
+        exchange.cancelOrder(orderId);
+    }
+
+    @Override
+    public Set<String> liveOrders(String traderId) {
+        Set<String> ids = new HashSet<>();
+        for (OrderView order : exchange.getOrdersForTrader(traderId)) {
+            ids.add(order.orderId());
+        }
+        return ids;
+    }
+
+    @Override
+    public void drain() {
+        exchange.flush();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.exchange.load;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class LoadConfig {
+
+    public enum Arrival { UNIFORM, POISSON }
+
+    int traders = 64;
+    double targetRate = 10_000;
+    long durationSeconds = 10;
+    long seed = 42;
+    Arrival arrival = Arrival.UNIFORM;
+    int newWeight = 60;
+    int modifyWeight = 25;
+    int cancelWeight = 15;
+    int stopPercent;
+    long auctionMillis;
+    String target = "inproc";
+    String captureFile;
+    Map<String, Double> symbols = defaultSymbols();
+
+    // Arguments are key=value pairs, e.g. traders=256 rate=50000 mix=70:20:10 symbols=AAPL:150,MSFT:300
+    public static LoadConfig parse(String[] args) {
+        LoadConfig config = new LoadConfig();
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            if (kv.length != 2) throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            String value = kv[1];
+            switch (kv[0]) {
+                case "traders" -> config.traders = Integer.parseInt(value);
+                case "rate" -> config.targetRate = Double.parseDouble(value);
+                case "duration" -> config.durationSeconds = Long.parseLong(value);
+                case "seed" -> config.seed = Long.parseLong(value);
+                case "arrival" -> config.arrival = Arrival.valueOf(value.toUpperCase());
+                case "target" -> config.target = value;
+                case "capture" -> config.captureFile = value;
+                case "stops" -> config.stopPercent = Integer.parseInt(value);
+                case "auction" -> config.auctionMillis = Long.parseLong(value);
+                case "mix" -> {
+                    String[] parts = value.split(":");
+                    config.newWeight = Integer.parseInt(parts[0]);
+                    config.modifyWeight = Integer.parseInt(parts[1]);
+                    config.cancelWeight = Integer.parseInt(parts[2]);
+                }
+                case "symbols" -> {
+                    config.symbols = new LinkedHashMap<>();
+                    for (String entry : value.split(",")) {
+                        String[] sp = entry.split(":");
+                        config.symbols.put(sp[0], Double.parseDouble(sp[1]));
+                    }
+                }
+                case "symbolCount" -> config.symbols = generateSymbols(Integer.parseInt(value), config.seed);
+                default -> throw new IllegalArgumentException("Unknown option: " + kv[0]);
+            }
+        }
+        if (config.newWeight + config.modifyWeight + config.cancelWeight <= 0) {
+            throw new IllegalArgumentException("Order mix must have a positive total weight");
+        }
+        return config;
+    }
+
+    private static Map<String, Double> generateSymbols(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<String, Double> symbols = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            symbols.put(String.format("SYM%05d", i), Math.round((10 + random.nextDouble() * 490) * 100.0) / 100.0);
+        }
+        return symbols;
+    }
+
+    public boolean isInProcess() {
+        return "inproc".equalsIgnoreCase(target);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("traders=%d rate=%.0f/s duration=%ds seed=%d arrival=%s mix=%d:%d:%d stops=%d%% auction=%dms symbols=%d target=%s",
+                traders, targetRate, durationSeconds, seed, arrival, newWeight, modifyWeight, cancelWeight,
+                stopPercent, auctionMillis, symbols.size(), target);
+    }
+
+    // Insertion-ordered so symbol indices, and therefore seeded runs, are stable across JVMs.
+    static Map<String, Double> defaultSymbols() {
+        Map<String, Double> symbols = new LinkedHashMap<>();
+        symbols.put("AAPL", 150.0);
+        symbols.put("MSFT", 300.0);
+        symbols.put("GOOGL", 140.0);
+        symbols.put("INTC", 35.0);
+        symbols.put("AMD", 110.0);
+        symbols.put("NVDA", 450.0);
+        return symbols;
+    }
+}
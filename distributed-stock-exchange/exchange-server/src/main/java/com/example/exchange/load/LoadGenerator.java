@@ -0,0 +1,98 @@
+package com.example.exchange.load;
+
+import com.example.exchange.engine.ExchangeClock;
+import com.example.exchange.engine.StockExchange;
+import com.example.exchange.engine.Trade;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class LoadGenerator {
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        LoadConfig config = LoadConfig.parse(args);
+        System.out.println("Starting load generator: " + config);
+
+        StockExchange exchange = null;
+        OrderGateway gateway;
+        if (config.isInProcess()) {
+            exchange = new StockExchange(ExchangeClock.SYSTEM, true, config.symbols.keySet());
+            exchange.setVerbose(false);
+            if (config.auctionMillis > 0) {
+                for (String symbol : config.symbols.keySet()) {
+                    exchange.setAuctionInterval(symbol, config.auctionMillis);
+                }
+            }
+            if (config.captureFile != null) {
+                exchange.startCapture(new FileOutputStream(config.captureFile));
+            }
+            gateway = new InProcessGateway(exchange);
+        } else {
+            gateway = new RestGateway(config.target);
+        }
+
+        SplittableRandom root = new SplittableRandom(config.seed);
+        long start = System.nanoTime() + 100_000_000L;
+        long end = start + config.durationSeconds * 1_000_000_000L;
+
+        List<LoadTrader> traders = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 1; i <= config.traders; i++) {
+            LoadTrader trader = new LoadTrader("Trader-" + i, config, gateway, root.split(), start, end);
+            traders.add(trader);
+            threads.add(Thread.ofVirtual().name("load-trader-" + i).start(trader));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long sent = System.nanoTime();
+        gateway.drain();
+        long drained = System.nanoTime();
+
+        report(config, traders, sent - start, drained - start);
+
+        if (exchange != null) {
+            long volume = 0;
+            for (Trade trade : exchange.getTradeHistory()) volume += trade.getQuantity();
+            System.out.printf("Trades: %d, volume %d\n", exchange.getTradeCount(), volume);
+
+            exchange.stopCapture();
+            exchange.shutdown();
+        }
+    }
+
+    private static void report(LoadConfig config, List<LoadTrader> traders, long sendNanos, long drainNanos) {
+        LatencyHistogram corrected = new LatencyHistogram();
+        LatencyHistogram service = new LatencyHistogram();
+        for (LoadTrader trader : traders) {
+            corrected.add(trader.correctedLatency);
+            service.add(trader.serviceTime);
+        }
+        Map<String, Long> counts = LoadTrader.counts(traders);
+        long ops = corrected.getTotalCount();
+
+        System.out.println("\n--- LOAD REPORT ---");
+        System.out.printf("Operations: %d (new %d, modify %d, cancel %d, errors %d)\n",
+                ops, counts.get("new"), counts.get("modify"), counts.get("cancel"), counts.get("errors"));
+        System.out.printf("Target rate:   %,.0f ops/s\n", config.targetRate);
+        System.out.printf("Achieved rate: %,.0f ops/s (sent), %,.0f ops/s (processed)\n",
+                ops * 1e9 / sendNanos, ops * 1e9 / drainNanos);
+        printPercentiles("Latency (CO-corrected)", corrected);
+        printPercentiles("Service time", service);
+        System.out.println("-------------------");
+    }
+
+    private static void printPercentiles(String title, LatencyHistogram histogram) {
+        System.out.printf("%s in us: p50=%.1f p90=%.1f p99=%.1f p99.9=%.1f p99.99=%.1f max=%.1f\n", title,
+                histogram.valueAtPercentile(50) / 1e3,
+                histogram.valueAtPercentile(90) / 1e3,
+                histogram.valueAtPercentile(99) / 1e3,
+                histogram.valueAtPercentile(99.9) / 1e3,
+                histogram.valueAtPercentile(99.99) / 1e3,
+                histogram.getMaxValue() / 1e3);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.exchange.load;
+
+import com.example.exchange.engine.Order;
+import com.example.exchange.engine.OrderType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+class LoadTrader implements Runnable {
+
+    private final String traderId;
+    private final LoadConfig config;
+    private final OrderGateway gateway;
+    private final SplittableRandom random;
+    private final String[] symbols;
+    private final double[] basePrices;
+    private final long startNanos;
+    private final long endNanos;
+    private final long meanIntervalNanos;
+
+    // The exchange's id for each order this trader believes is live, and the price last sent for it.
+    private static final class LiveOrder {
+        final String orderId;
+        final OrderType side;
+        final long submittedNanos;
+        double price;
+
+        LiveOrder(String orderId, OrderType side, double price, long submittedNanos) {
+            this.orderId = orderId;
+            this.side = side;
+            this.price = price;
+            this.submittedNanos = submittedNanos;
+        }
+    }
+
+    private static final long RECONCILE_NANOS = 1_000_000_000L;
+    // Reconciling is only done with at least this much idle time before the next operation is due.
+    private static final long RECONCILE_SLACK_NANOS = 1_000_000L;
+
+    private final List<LiveOrder> activeOrders = new ArrayList<>();
+    private long lastReconcile;
+
+    final LatencyHistogram correctedLatency = new LatencyHistogram();
+    final LatencyHistogram serviceTime = new LatencyHistogram();
+    long newOrders;
+    long modifies;
+    long cancels;
+    long errors;
+
+    LoadTrader(String traderId, LoadConfig config, OrderGateway gateway, SplittableRandom random,
+               long startNanos, long endNanos) {
+        this.traderId = traderId;
+        this.config = config;
+        this.gateway = gateway;
+        this.random = random;
+        this.startNanos = startNanos;
+        this.endNanos = endNanos;
+        this.meanIntervalNanos = (long) (1_000_000_000.0 * config.traders / config.targetRate);
+        this.symbols = config.symbols.keySet().toArray(new String[0]);
+        this.basePrices = config.symbols.values().stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    @Override
+    public void run() {
+        // Open-loop schedule: each operation has an intended start time that does not depend on
+        // how long the previous one took, and latency is measured from that intended time.
+        // A stalled server therefore shows up in the percentiles instead of silently lowering the rate.
+        long intended = startNanos + (long) (random.nextDouble() * meanIntervalNanos);
+        lastReconcile = startNanos;
+        while (intended < endNanos) {
+            long now = System.nanoTime();
+            if (intended - now > RECONCILE_SLACK_NANOS && now - lastReconcile > RECONCILE_NANOS) {
+                reconcile(now);
+                now = System.nanoTime();
+            }
+            if (now < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            long begin = System.nanoTime();
+            try {
+                issueNext();
+            } catch (Exception e) {
+                errors++;
+            }
+            long end = System.nanoTime();
+            correctedLatency.record(end - intended);
+            serviceTime.record(end - begin);
+            intended += nextInterval();
+        }
+    }
+
+    // Filled orders drop out of the book without telling the client, so the list is periodically
+    // cut down to what the exchange still has. Orders sent since the previous pass are kept, as the
+    // exchange may not have taken them up yet.
+    private void reconcile(long now) {
+        try {
+            Set<String> live = gateway.liveOrders(traderId);
+            long cutoff = lastReconcile;
+            activeOrders.removeIf(o -> o.submittedNanos < cutoff && !live.contains(o.orderId));
+        } catch (Exception e) {
+            errors++;
+        }
+        lastReconcile = now;
+    }
+
+    private long nextInterval() {
+        if (config.arrival == LoadConfig.Arrival.POISSON) {
+            return (long) (-Math.log(1.0 - random.nextDouble()) * meanIntervalNanos);
+        }
+        return meanIntervalNanos;
+    }
+
+    private void issueNext() throws Exception {
+        int total = config.newWeight + config.modifyWeight + config.cancelWeight;
+        int pick = random.nextInt(total);
+        if (activeOrders.isEmpty() || pick < config.newWeight) {
+            submitNewOrder();
+        } else if (pick < config.newWeight + config.modifyWeight) {
+            modifyOrder();
+        } else {
+            cancelOrder();
+        }
+    }
+
+    private void submitNewOrder() throws Exception {
+        int s = random.nextInt(symbols.length);
+        OrderType type = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+        double price = round(basePrices[s] * (0.95 + random.nextDouble() * 0.10));
+        int quantity = random.nextInt(91) + 10;
+
+        Order order = new Order(symbols[s], type, price, quantity, traderId);
+        // A stop-limit at its own limit: waits until the market trades through the price.
+        if (config.stopPercent > 0 && random.nextInt(100) < config.stopPercent) {
+            order.setStopPrice(price);
+        }
+        String orderId = gateway.submit(order);
+        activeOrders.add(new LiveOrder(orderId, type, price, System.nanoTime()));
+        newOrders++;
+    }
+
+    private void modifyOrder() throws Exception {
+        LiveOrder order = activeOrders.get(random.nextInt(activeOrders.size()));
+        double factor = order.side == OrderType.BUY ? 1.0 + random.nextDouble() * 0.02 : 1.0 - random.nextDouble() * 0.02;
+        order.price = round(order.price * factor);
+        gateway.modify(order.orderId, order.price);
+        modifies++;
+    }
+
+    private void cancelOrder() throws Exception {
+        int index = random.nextInt(activeOrders.size());
+        LiveOrder order = activeOrders.get(index);
+        activeOrders.set(index, activeOrders.get(activeOrders.size() - 1));
+        activeOrders.remove(activeOrders.size() - 1);
+        gateway.cancel(order.orderId);
+        cancels++;
+    }
+
+    private static double round(double price) {
+        return Math.round(price * 100.0) / 100.0;
+    }
+
+    static Map<String, Long> counts(List<LoadTrader> traders) {
+        long n = 0, m = 0, c = 0, e = 0;
+        for (LoadTrader t : traders) {
+            n += t.newOrders;
+            m += t.modifies;
+            c += t.cancels;
+            e += t.errors;
+        }
+        return Map.of("new", n, "modify", m, "cancel", c, "errors", e);
+    }
+}
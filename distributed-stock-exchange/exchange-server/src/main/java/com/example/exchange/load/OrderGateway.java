@@ -0,0 +1,20 @@
+package com.example.exchange.load;
+
+import com.example.exchange.engine.Order;
+
+import java.util.Set;
+
+public interface OrderGateway {
+
+    // Returns the id the exchange assigned, which later modifies and cancels must use.
+    String submit(Order order) throws Exception;
+
+    void modify(String orderId, double newPrice) throws Exception;
+
+    void cancel(String orderId) throws Exception;
+
+    // Ids of the trader's orders still live on the exchange.
+    Set<String> liveOrders(String traderId) throws Exception;
+
+    default void drain() {}
+}
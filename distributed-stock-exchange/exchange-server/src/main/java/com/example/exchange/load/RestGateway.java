@@ -0,0 +1,84 @@
+package com.example.exchange.load;
+
+import com.example.exchange.engine.Order;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+public class RestGateway implements OrderGateway {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String apiUrl;
+
+    public RestGateway(String baseUrl) {
+        String trimmed = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiUrl = trimmed.endsWith("/api") ? trimmed : trimmed + "/api";
+    }
+
+    @Override
+    public String submit(Order order) throws IOException, InterruptedException {
+        Map<String, Object> body = new HashMap<>();
+        body.put("stockSymbol", order.getStockSymbol());
+        body.put("orderType", order.getOrderType());
+        body.put("price", order.getPrice());
+        body.put("quantity", order.getQuantity());
+        body.put("traderId", order.getTraderId());
+        if (order.isStop()) body.put("stopPrice", order.getStopPrice());
+        return post("/orders", mapper.writeValueAsString(body)).body();
+    }
+
+    @Override
+    public void modify(String orderId, double newPrice) throws IOException, InterruptedException {
+        post("/orders/" + orderId + "/modify", mapper.writeValueAsString(Map.of("newPrice", newPrice)));
+    }
+
+    @Override
+    public void cancel(String orderId) throws IOException, InterruptedException {
+        post("/orders/" + orderId + "/cancel", "");
+    }
+
+    @Override
+    public Set<String> liveOrders(String traderId) throws IOException, InterruptedException {
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl + "/orders?traderId=" + URLEncoder.encode(traderId, StandardCharsets.UTF_8)))
+                .GET()
+                .build();
+        HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() / 100 != 2) {
+            throw new IOException("HTTP " + resp.statusCode() + " from /orders");
+        }
+        Set<String> ids = new HashSet<>();
+        for (JsonNode order : mapper.readTree(resp.body())) {
+            ids.add(order.get("orderId").asText());
+        }
+        return ids;
+    }
+
+    private HttpResponse<String> post(String path, String json) throws IOException, InterruptedException {
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create(apiUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() / 100 != 2) {
+            throw new IOException("HTTP " + resp.statusCode() + " from " + path);
+        }
+        return resp;
+    }
+}
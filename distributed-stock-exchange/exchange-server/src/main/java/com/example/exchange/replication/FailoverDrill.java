@@ -0,0 +1,130 @@
+package com.example.exchange.replication;
+
+import com.example.exchange.engine.Order;
+import com.example.exchange.engine.OrderType;
+import com.example.exchange.engine.StockExchange;
+import com.example.exchange.engine.Trade;
+import com.example.exchange.load.LatencyHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Kills a replicating primary mid-stream and measures the standby. The primary runs in a child
+ * JVM under order flow and is killed with SIGKILL, reporting replication lag as it goes; this
+ * JVM is the standby and reports the time from the kill to accepting orders as the new primary.
+ * The standby waits out its failover timeout (one second) before taking over, which dominates.
+ * Usage: FailoverDrill [seconds=5] [rate=20000] [sync]
+ */
+public class FailoverDrill {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("primary")) {
+            runPrimary(Integer.parseInt(args[1]), Double.parseDouble(args[2]), args.length > 3 && args[3].equals("sync"));
+            return;
+        }
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 20_000;
+        boolean sync = args.length > 2 && args[2].equals("sync");
+
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process primary = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                FailoverDrill.class.getName(), "primary", String.valueOf(port), String.valueOf(rate), sync ? "sync" : "async")
+                .inheritIO()
+                .start();
+
+        ReplicationStandby standby = new ReplicationStandby("localhost", port);
+        standby.start();
+        Thread.sleep(seconds * 1000L);
+
+        long killedAt = System.nanoTime();
+        long sequenceAtKill = standby.getAppliedSequence();
+        primary.destroyForcibly();
+        while (!standby.isPromoted()) {
+            LockSupport.parkNanos(50_000);
+        }
+        long takeover = System.nanoTime() - killedAt;
+
+        StockExchange exchange = standby.getExchange();
+        int tradesBefore = exchange.getTradeHistory().size();
+        long firstOrder = System.nanoTime();
+        exchange.submitOrder(new Order("AAPL", OrderType.SELL, 1.0, 1, "drill-seller"));
+        exchange.submitOrder(new Order("AAPL", OrderType.BUY, 10_000.0, 1, "drill-buyer"));
+        exchange.flush();
+        long firstMatch = System.nanoTime() - firstOrder;
+        List<Trade> after = exchange.getTradeHistory(tradesBefore);
+
+        System.out.printf("""
+                --- FAILOVER DRILL ---
+                Replication: %s, %d events applied, last sequence %d (at kill: %d)
+                Failover: link loss detected %.3f ms after kill, engine live %.3f ms later (%.3f ms total)
+                First order on the new primary matched in %.3f ms: %s
+                """,
+                sync ? "sync" : "async", standby.getAppliedEvents(), standby.getAppliedSequence(), sequenceAtKill,
+                (takeover - standby.getFailoverNanos()) / 1e6, standby.getFailoverNanos() / 1e6, takeover / 1e6,
+                firstMatch / 1e6, after.isEmpty() ? "NO TRADE" : after.get(after.size() - 1));
+        standby.close();
+        System.exit(after.isEmpty() ? 2 : 0);
+    }
+
+    // Order flow against a replicating exchange until killed. In sync mode every order waits
+    // for the standby's acknowledgement, as the REST API does with exchange.replication.sync.
+    private static void runPrimary(int port, double rate, boolean sync) throws IOException, InterruptedException {
+        StockExchange exchange = new StockExchange();
+        exchange.setVerbose(false);
+        ReplicationLog log = new ReplicationLog();
+        exchange.startReplication(log);
+        ReplicationPrimary primary = new ReplicationPrimary(log, port);
+        while (primary.getStandbyCount() == 0) {
+            Thread.sleep(10);
+        }
+
+        SplittableRandom random = new SplittableRandom(17);
+        LatencyHistogram commit = new LatencyHistogram();
+        List<String> live = new ArrayList<>();
+        String[] symbols = StockExchange.DEFAULT_SYMBOLS.toArray(new String[0]);
+        long interval = (long) (1e9 / rate);
+        long start = System.nanoTime();
+        long nextReport = start + 1_000_000_000L;
+        for (long i = 0; ; i++) {
+            long due = start + i * interval;
+            long wait = due - System.nanoTime();
+            if (wait > 0) LockSupport.parkNanos(wait);
+
+            if (live.size() > 1000 && random.nextInt(4) == 0) {
+                exchange.cancelOrder(live.remove(random.nextInt(live.size())));
+            } else {
+                OrderType side = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+                double price = Math.round((100 + (side == OrderType.BUY ? -1 : 1) * (random.nextDouble() * 2 - 0.3)) * 100) / 100.0;
+                Order order = new Order(symbols[random.nextInt(symbols.length)], side, price, random.nextInt(1, 100), "t" + random.nextInt(500));
+                exchange.submitOrder(order);
+                live.add(order.getOrderId());
+            }
+            if (sync) {
+                long t0 = System.nanoTime();
+                exchange.flush();
+                primary.awaitAck(exchange.getSequence(), 1000);
+                commit.record(System.nanoTime() - t0);
+            }
+            if (System.nanoTime() >= nextReport) {
+                exchange.flush();
+                LatencyHistogram lag = primary.getLag();
+                System.out.printf("[primary] sequence=%d acked=%d lag p50=%.1fus p99=%.1fus max=%.1fus%s%n",
+                        exchange.getSequence(), primary.getAckedSequence(), lag.valueAtPercentile(50) / 1e3,
+                        lag.valueAtPercentile(99) / 1e3, lag.getMaxValue() / 1e3,
+                        sync ? String.format(" commit p50=%.1fus p99=%.1fus", commit.valueAtPercentile(50) / 1e3,
+                                commit.valueAtPercentile(99) / 1e3) : "");
+                nextReport += 1_000_000_000L;
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.exchange.replication;
+
+import com.example.exchange.engine.SegmentedStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The primary's replication stream, held in memory as a run of segments. Each segment is a journal
+ * that opens with a snapshot of the engine, so a standby that connects (or reconnects) starts at
+ * the latest one. Bytes before it are kept only while a connected standby has yet to read them; one
+ * that falls more than a segment behind is cut off and starts over from the latest snapshot.
+ */
+public class ReplicationLog extends OutputStream implements SegmentedStream {
+
+    public static final long DEFAULT_SEGMENT_BYTES = 64L << 20;
+
+    /** A reader's position in the log, from {@link #open()}. */
+    public static final class Cursor {
+        private long position;
+        private boolean cutOff;
+    }
+
+    private final long segmentBytes;
+    // Memory is allocated and dropped in chunks of up to 1 MB, small next to a segment.
+    private final int chunkShift;
+    private final int chunkBytes;
+    private final List<byte[]> chunks = new ArrayList<>();
+    private final List<Cursor> cursors = new ArrayList<>();
+    // Position of the first retained chunk.
+    private long base;
+    private long size;
+    private long segmentStart;
+    private long snapshotEnd;
+    // End of the last flush, which the engine only does between records.
+    private long boundary;
+    private boolean closed;
+
+    public ReplicationLog() {
+        this(DEFAULT_SEGMENT_BYTES);
+    }
+
+    /** Starts a new segment once {@code segmentBytes} (or the last snapshot's size, if larger) follow a snapshot. */
+    public ReplicationLog(long segmentBytes) {
+        this.segmentBytes = segmentBytes;
+        this.chunkShift = Math.max(12, Math.min(20, 59 - Long.numberOfLeadingZeros(segmentBytes)));
+        this.chunkBytes = 1 << chunkShift;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (closed) throw new IOException("Replication log closed");
+        while (len > 0) {
+            int offset = (int) (size & (chunkBytes - 1));
+            if (offset == 0 && size == base + ((long) chunks.size() << chunkShift)) {
+                chunks.add(new byte[chunkBytes]);
+            }
+            int n = Math.min(len, chunkBytes - offset);
+            System.arraycopy(b, off, chunk(size), offset, n);
+            size += n;
+            off += n;
+            len -= n;
+        }
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void flush() {
+        boundary = size;
+    }
+
+    @Override
+    public synchronized boolean segmentDue() {
+        long tail = size - snapshotEnd;
+        return tail >= segmentBytes && tail >= snapshotEnd - segmentStart;
+    }
+
+    @Override
+    public synchronized void startSegment() {
+        segmentStart = size;
+        snapshotEnd = size;
+        trim();
+    }
+
+    @Override
+    public synchronized void snapshotWritten() {
+        snapshotEnd = size;
+    }
+
+    /** A reader starting at the latest segment. */
+    public synchronized Cursor open() {
+        Cursor cursor = new Cursor();
+        cursor.position = segmentStart;
+        cursors.add(cursor);
+        return cursor;
+    }
+
+    public synchronized void release(Cursor cursor) {
+        cursors.remove(cursor);
+        trim();
+    }
+
+    /**
+     * Copies bytes from the cursor's position into {@code target} and moves it past them, waiting up
+     * to {@code timeoutMs} for some to be written. Returns the number copied, 0 on timeout, or -1
+     * once closed and drained or once the reader has been cut off.
+     */
+    public synchronized int read(Cursor cursor, byte[] target, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (cursor.position >= size && !cursor.cutOff) {
+            if (closed) return -1;
+            long wait = deadline - System.currentTimeMillis();
+            if (wait <= 0) return 0;
+            wait(wait);
+        }
+        if (cursor.cutOff) return -1;
+        long position = cursor.position;
+        int offset = (int) (position & (chunkBytes - 1));
+        int n = (int) Math.min(Math.min(target.length, chunkBytes - offset), size - position);
+        System.arraycopy(chunk(position), offset, target, 0, n);
+        cursor.position += n;
+        if (offset + n == chunkBytes) trim();
+        return n;
+    }
+
+    /** Whether the cursor has read up to the end of the last flush, so it sits between two records. */
+    public synchronized boolean atBoundary(Cursor cursor) {
+        return cursor.position == boundary;
+    }
+
+    public synchronized long size() {
+        return size;
+    }
+
+    // Bytes held in memory, from the oldest position a reader still needs.
+    public synchronized long retained() {
+        return size - base;
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    private byte[] chunk(long position) {
+        return chunks.get((int) ((position - base) >>> chunkShift));
+    }
+
+    private void trim() {
+        long keep = segmentStart;
+        for (Iterator<Cursor> it = cursors.iterator(); it.hasNext(); ) {
+            Cursor cursor = it.next();
+            if (segmentStart - cursor.position > Math.max(segmentBytes, snapshotEnd - segmentStart)) {
+                cursor.cutOff = true;
+                it.remove();
+                continue;
+            }
+            keep = Math.min(keep, cursor.position);
+        }
+        while (base + chunkBytes <= keep) {
+            chunks.remove(0);
+            base += chunkBytes;
+        }
+        notifyAll();
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.exchange.replication;
+
+import com.example.exchange.engine.EventJournal;
+import com.example.exchange.load.LatencyHistogram;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Serves the replication log to standbys over TCP and collects their acknowledgements. Each
+ * standby gets the log from its latest snapshot, then follows it live; it answers with the sequence
+ * number it has applied and that record's timestamp, as two big-endian longs. While there is
+ * nothing to send, a heartbeat goes out every {@link #HEARTBEAT_MS}, so a standby can tell a
+ * silent primary from an idle one. Once the log is closed, e.g. because the engine could no longer
+ * journal to it, standbys are dropped and refused, so they see the primary fall silent.
+ */
+public class ReplicationPrimary implements Closeable {
+
+    public static final long HEARTBEAT_MS = 100;
+
+    private final ReplicationLog log;
+    private final ServerSocket server;
+    private final List<Socket> standbys = new CopyOnWriteArrayList<>();
+    private final Object ackMonitor = new Object();
+    private final LatencyHistogram lag = new LatencyHistogram();
+    // Records journalled before this primary existed (a promoted standby's history) carry
+    // another process's clock, so their echoes say nothing about lag.
+    private final long createdNanos = System.nanoTime();
+    private volatile long ackedSequence;
+
+    public ReplicationPrimary(ReplicationLog log, int port) throws IOException {
+        this.log = log;
+        this.server = new ServerSocket(port);
+        Thread acceptor = new Thread(this::acceptLoop, "ReplicationAcceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public long getAckedSequence() {
+        return ackedSequence;
+    }
+
+    /**
+     * Time from this primary recording an event to a standby acknowledging it, measured on this
+     * process's clock from the timestamp the standby echoes back.
+     */
+    public LatencyHistogram getLag() {
+        LatencyHistogram copy = new LatencyHistogram();
+        synchronized (ackMonitor) {
+            copy.add(lag);
+        }
+        return copy;
+    }
+
+    public int getStandbyCount() {
+        return standbys.size();
+    }
+
+    /**
+     * Waits until some standby has applied {@code sequence}. Returns false on timeout, which
+     * includes the case of no standby being connected at all.
+     */
+    public boolean awaitAck(long sequence, long timeoutMs) throws InterruptedException {
+        if (isStopped()) return false;
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (ackMonitor) {
+            while (ackedSequence < sequence) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) return false;
+                ackMonitor.wait(wait);
+            }
+        }
+        return true;
+    }
+
+    // Whether the log has been closed, so nothing recorded from now on reaches a standby.
+    public boolean isStopped() {
+        return log.isClosed();
+    }
+
+    @Override
+    public void close() throws IOException {
+        log.close();
+        stopServing();
+    }
+
+    private void stopServing() {
+        try {
+            server.close();
+        } catch (IOException ignored) {
+        }
+        for (Socket socket : standbys) {
+            drop(socket);
+        }
+    }
+
+    private void acceptLoop() {
+        while (!server.isClosed()) {
+            try {
+                Socket socket = server.accept();
+                if (log.isClosed()) {
+                    socket.close();
+                    stopServing();
+                    return;
+                }
+                socket.setTcpNoDelay(true);
+                standbys.add(socket);
+                System.out.println("Standby connected from " + socket.getRemoteSocketAddress());
+                start(() -> stream(socket), "ReplicationSender");
+                start(() -> receiveAcks(socket), "ReplicationAcks");
+            } catch (IOException e) {
+                if (!server.isClosed()) System.err.println("Replication accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void stream(Socket socket) {
+        byte[] buffer = new byte[1 << 16];
+        ReplicationLog.Cursor cursor = log.open();
+        try {
+            OutputStream out = socket.getOutputStream();
+            while (!socket.isClosed()) {
+                int n = log.read(cursor, buffer, HEARTBEAT_MS);
+                if (n < 0) break;
+                if (n == 0) {
+                    if (log.atBoundary(cursor)) {
+                        out.write(EventJournal.HEARTBEAT);
+                        out.flush();
+                    }
+                    continue;
+                }
+                out.write(buffer, 0, n);
+                out.flush();
+            }
+        } catch (IOException | InterruptedException ignored) {
+        } finally {
+            log.release(cursor);
+            // Cut off for falling too far behind, a standby reconnects at the latest snapshot; once the
+            // log is closed there is nothing more to follow here.
+            drop(socket);
+            if (log.isClosed()) stopServing();
+        }
+    }
+
+    private void receiveAcks(Socket socket) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            while (true) {
+                long sequence = in.readLong();
+                long recordedNanos = in.readLong();
+                long now = System.nanoTime();
+                synchronized (ackMonitor) {
+                    if (recordedNanos >= createdNanos && recordedNanos <= now) lag.record(now - recordedNanos);
+                    if (sequence > ackedSequence) {
+                        ackedSequence = sequence;
+                        ackMonitor.notifyAll();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            drop(socket);
+        }
+    }
+
+    private void drop(Socket socket) {
+        if (standbys.remove(socket)) {
+            System.out.println("Standby disconnected: " + socket.getRemoteSocketAddress());
+        }
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void start(Runnable task, String name) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.exchange.replication;
+
+import com.example.exchange.engine.JournalReader;
+import com.example.exchange.engine.ReplayClock;
+import com.example.exchange.engine.StockExchange;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Follows a primary's replication stream and applies it to its own {@link StockExchange} at the
+ * recorded times. The stream starts at the primary's latest snapshot: a new follower builds its
+ * books from it, one that reconnects skips what it has already applied, and one that missed part
+ * of the stream or finds a restarted primary starts over on a fresh exchange. A dropped link is reconnected; only once nothing,
+ * not even a heartbeat, has come from the primary for the failover timeout does a standby take
+ * over: its clock goes live and its engine thread starts, so it accepts orders from then on. A read
+ * replica never takes over.
+ */
+public class ReplicationStandby implements Closeable {
+
+    public static final long DEFAULT_FAILOVER_TIMEOUT_MS = 1000;
+    private static final long CONNECT_RETRY_MS = 200;
+
+    private final String host;
+    private final int port;
+    private final ReplayClock clock = new ReplayClock();
+    private final boolean takeOver;
+    private final long failoverTimeoutMs;
+    private volatile StockExchange exchange = newExchange();
+    private volatile ReplicationLog log;
+    private final Thread follower;
+    private final Thread acker;
+    private volatile Runnable onPromoted = () -> {};
+    private volatile Runnable onResync = () -> {};
+    private volatile Socket socket;
+    private volatile long appliedSequence;
+    private volatile long appliedNanos;
+    private volatile long appliedEvents;
+    // Whether the exchange holds anything from the primary yet, and from which primary instance.
+    private boolean synced;
+    private long epoch;
+    private volatile boolean linkUp;
+    // When the primary last sent anything; 0 until the first connection.
+    private volatile long lastHeardMillis;
+    private volatile long linkDownSinceMillis = System.currentTimeMillis();
+    private volatile boolean promoted;
+    private volatile boolean closed;
+    private volatile long linkLostNanos;
+    private volatile long promotedNanos;
+
+    public ReplicationStandby(String host, int port) throws IOException {
+        this(host, port, true);
+    }
+
+    public ReplicationStandby(String host, int port, boolean takeOver) throws IOException {
+        this(host, port, takeOver, DEFAULT_FAILOVER_TIMEOUT_MS);
+    }
+
+    /**
+     * {@code failoverTimeoutMs} must be well above {@link ReplicationPrimary#HEARTBEAT_MS}: a standby
+     * that hears nothing for that long takes the primary for dead.
+     */
+    public ReplicationStandby(String host, int port, boolean takeOver, long failoverTimeoutMs) throws IOException {
+        this.host = host;
+        this.port = port;
+        this.takeOver = takeOver;
+        this.failoverTimeoutMs = failoverTimeoutMs;
+        this.follower = new Thread(this::follow, "ReplicationFollower");
+        this.acker = new Thread(this::ackLoop, "ReplicationAcker");
+        acker.setDaemon(true);
+    }
+
+    public void start() {
+        follower.start();
+        // Only a node that can take over counts towards a synchronous primary's acknowledgement.
+        if (takeOver) acker.start();
+    }
+
+    public void setOnPromoted(Runnable onPromoted) {
+        this.onPromoted = onPromoted;
+    }
+
+    /** Runs after the follower has replaced its exchange to start over from a snapshot. */
+    public void setOnResync(Runnable onResync) {
+        this.onResync = onResync;
+    }
+
+    public StockExchange getExchange() { return exchange; }
+    // Set once promoted: what this node streams to the next standby.
+    public ReplicationLog getLog() { return log; }
+    public boolean isPromoted() { return promoted; }
+    public boolean isLinkUp() { return linkUp; }
+    public long getLinkDownSinceMillis() { return linkDownSinceMillis; }
+    public long getAppliedSequence() { return appliedSequence; }
+    public long getAppliedEvents() { return appliedEvents; }
+
+    // Time from losing the link to the engine running here, in nanoseconds; at least the failover timeout.
+    public long getFailoverNanos() {
+        return promoted ? promotedNanos - linkLostNanos : -1;
+    }
+
+    /** Takes over now, e.g. on an operator's command, regardless of the link state. */
+    public synchronized void promote() {
+        if (promoted) return;
+        closeSocket();
+        clock.goLive();
+        exchange.startEngine();
+        if (takeOver) {
+            ReplicationLog next = new ReplicationLog();
+            exchange.startReplication(next);
+            log = next;
+        }
+        promotedNanos = System.nanoTime();
+        promoted = true;
+        LockSupport.unpark(acker);
+        System.out.printf("Standby promoted at sequence %d after %d events%n", appliedSequence, appliedEvents);
+        onPromoted.run();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        closeSocket();
+        follower.interrupt();
+        exchange.shutdown();
+    }
+
+    private void follow() {
+        while (!closed && !promoted) {
+            try (Socket s = new Socket()) {
+                s.connect(new InetSocketAddress(host, port), (int) Math.min(failoverTimeoutMs, 1000));
+                s.setTcpNoDelay(true);
+                // A primary that stops sending, heartbeats included, counts as gone.
+                s.setSoTimeout((int) failoverTimeoutMs);
+                socket = s;
+                linkUp = true;
+                lastHeardMillis = System.currentTimeMillis();
+                System.out.println("Following primary at " + host + ":" + port);
+                apply(new JournalReader(new FilterInputStream(s.getInputStream()) {
+                    @Override
+                    public int read(byte[] b, int off, int len) throws IOException {
+                        int n = super.read(b, off, len);
+                        if (n > 0) lastHeardMillis = System.currentTimeMillis();
+                        return n;
+                    }
+                }));
+            } catch (IOException e) {
+                // Refused, reset, or timed out.
+            }
+            if (linkUp) {
+                linkUp = false;
+                linkDownSinceMillis = System.currentTimeMillis();
+                linkLostNanos = System.nanoTime();
+                System.out.println("Lost primary at sequence " + appliedSequence + ", reconnecting");
+            }
+            if (closed) break;
+            // A dropped connection alone does not mean the primary is dead, so it is retried until
+            // the primary has been silent for the whole failover timeout.
+            if (takeOver && lastHeardMillis > 0 && System.currentTimeMillis() - lastHeardMillis >= failoverTimeoutMs) {
+                promote();
+            } else {
+                sleep();
+            }
+        }
+    }
+
+    private void apply(JournalReader reader) throws IOException {
+        long restoring = -1;
+        JournalReader.Record record;
+        while (!promoted && (record = reader.next()) != null) {
+            // A snapshot this node has already passed is skipped like the records before it. One
+            // past what it applied means part of the stream is gone, and one from another epoch
+            // (a restarted or promoted primary) numbers its events afresh: either way this node
+            // starts over from it.
+            if (record.isSnapshot()
+                    && (!synced || reader.getEpoch() != epoch || record.getSequence() > appliedSequence)) {
+                if (synced) resync();
+                restoring = record.getSequence();
+                epoch = reader.getEpoch();
+                synced = true;
+            }
+            // The snapshot's records and history all carry its sequence.
+            if (record.getSequence() != restoring && (record.isTrade() || record.getSequence() <= appliedSequence)) {
+                continue;
+            }
+            clock.set(record.getWallMillis(), record.getTimestampNanos());
+            synchronized (this) {
+                if (promoted) return;
+                exchange.apply(record);
+            }
+            appliedEvents++;
+            if (record.getSequence() > appliedSequence) {
+                // Echoed with the ack; only the primary's clock can make sense of it.
+                appliedNanos = record.getTimestampNanos();
+                appliedSequence = record.getSequence();
+                LockSupport.unpark(acker);
+            }
+        }
+    }
+
+    // Coalesces acknowledgements: under load one write covers many applied events.
+    private void ackLoop() {
+        long acked = 0;
+        Socket current = null;
+        DataOutputStream out = null;
+        while (!closed && !promoted) {
+            long sequence = appliedSequence;
+            long nanos = appliedNanos;
+            Socket s = socket;
+            if (sequence == acked || s == null) {
+                LockSupport.parkNanos(10_000_000L);
+                continue;
+            }
+            try {
+                if (s != current) {
+                    current = s;
+                    out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream(), 64));
+                }
+                out.writeLong(sequence);
+                out.writeLong(nanos);
+                out.flush();
+                acked = sequence;
+            } catch (IOException e) {
+                LockSupport.parkNanos(10_000_000L);
+            }
+        }
+    }
+
+    private void resync() {
+        StockExchange stale;
+        synchronized (this) {
+            if (promoted) return;
+            stale = exchange;
+            exchange = newExchange();
+            appliedSequence = 0;
+        }
+        stale.shutdown();
+        System.out.println("Primary restarted or stream incomplete, starting over from its snapshot");
+        onResync.run();
+    }
+
+    private StockExchange newExchange() {
+        StockExchange fresh = new StockExchange(clock, false, List.of());
+        fresh.setVerbose(false);
+        return fresh;
+    }
+
+    private void closeSocket() {
+        Socket s = socket;
+        if (s == null) return;
+        try {
+            s.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(CONNECT_RETRY_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.exchange.risk;
+
+import com.example.exchange.engine.Order;
+import com.example.exchange.engine.OrderView;
+import com.example.exchange.engine.RiskListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-trader pre-trade limits, checked on the request thread before an order is queued: order
+ * size, order notional, a price band around the symbol's last trade, and the trader's open orders
+ * and open notional. Open exposure is reserved here with a compare-and-set and given back by the
+ * engine's output stage as orders fill, leave the book or are amended, so a check never waits on
+ * the matching thread. A limit of 0 is off.
+ */
+public class PreTradeRisk implements RiskListener {
+
+    private static final class Exposure {
+        final AtomicInteger openOrders = new AtomicInteger();
+        final AtomicLong notionalCents = new AtomicLong();
+    }
+
+    private static final class LastPrice {
+        volatile double price;
+    }
+
+    private final int maxOrderQuantity;
+    private final long maxOrderNotionalCents;
+    private final int maxOpenOrders;
+    private final long maxOpenNotionalCents;
+    private final double priceBand;
+    private final Map<String, Exposure> exposures = new ConcurrentHashMap<>();
+    private final Map<String, LastPrice> lastPrices = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+
+    public PreTradeRisk(int maxOrderQuantity, double maxOrderNotional, int maxOpenOrders,
+                        double maxOpenNotional, double priceBandPercent) {
+        this.maxOrderQuantity = maxOrderQuantity;
+        this.maxOrderNotionalCents = Math.round(maxOrderNotional * 100);
+        this.maxOpenOrders = maxOpenOrders;
+        this.maxOpenNotionalCents = Math.round(maxOpenNotional * 100);
+        this.priceBand = priceBandPercent / 100;
+    }
+
+    /**
+     * Checks a new order and, if it passes, reserves one open order and its notional for the
+     * trader. Returns the reason for a rejection, or null once reserved; the caller then either
+     * submits the order with {@link Order#reserveExposure()} or gives the reservation back.
+     */
+    public String reserve(String traderId, String stockSymbol, double price, int quantity) {
+        String reason = checkOrder(stockSymbol, price, quantity);
+        if (reason != null) return reason;
+
+        long notional = Order.notionalCents(price, quantity);
+        Exposure exposure = exposures.computeIfAbsent(traderId, k -> new Exposure());
+        if (!tryAdd(exposure.openOrders, maxOpenOrders)) {
+            return reject("max-open-orders", "Open orders would exceed " + maxOpenOrders);
+        }
+        if (!tryAdd(exposure.notionalCents, notional, maxOpenNotionalCents)) {
+            exposure.openOrders.decrementAndGet();
+            return reject("max-open-notional", String.format("Open notional would exceed %.2f", maxOpenNotionalCents / 100.0));
+        }
+        return null;
+    }
+
+    // Gives back a reservation whose order was never submitted.
+    public void release(String traderId, double price, int quantity) {
+        onExposure(traderId, -1, -Order.notionalCents(price, quantity));
+    }
+
+    /**
+     * Size, notional and price band for an amendment of current, as the engine last published it
+     * (null if the order is unknown here), then the open notional it adds, reserved like
+     * {@link #reserve}. Returns the reason for a rejection, or null with {@code increase} reserved;
+     * the caller passes it to the engine, which gives back whatever the amended order does not hold.
+     */
+    public String checkAmend(OrderView current, Double newPrice, Integer newQuantity, long increase) {
+        if (current == null) {
+            return newQuantity != null ? checkOrder(null, 0, newQuantity) : null;
+        }
+        double price = newPrice != null ? newPrice : current.riskPrice();
+        int quantity = newQuantity != null ? newQuantity : current.quantity();
+        String reason = quantity > 0 ? checkOrder(current.stockSymbol(), price, quantity) : null;
+        if (reason != null || increase <= 0) return reason;
+
+        Exposure exposure = exposures.computeIfAbsent(current.traderId(), k -> new Exposure());
+        if (!tryAdd(exposure.notionalCents, increase, maxOpenNotionalCents)) {
+            return reject("max-open-notional", String.format("Open notional would exceed %.2f", maxOpenNotionalCents / 100.0));
+        }
+        return null;
+    }
+
+    // Open notional (cents) an amendment of current would add, to be reserved by checkAmend; 0 if none.
+    public static long amendIncrease(OrderView current, Double newPrice, Integer newQuantity) {
+        if (current == null) return 0;
+        double oldPrice = current.riskPrice();
+        int oldQuantity = current.quantity();
+        double price = newPrice != null ? newPrice : oldPrice;
+        int quantity = newQuantity != null ? newQuantity : oldQuantity;
+        return Math.max(0, Order.notionalCents(price, quantity) - Order.notionalCents(oldPrice, oldQuantity));
+    }
+
+    private String checkOrder(String stockSymbol, double price, int quantity) {
+        if (maxOrderQuantity > 0 && quantity > maxOrderQuantity) {
+            return reject("max-order-quantity", "Order quantity " + quantity + " exceeds " + maxOrderQuantity);
+        }
+        if (maxOrderNotionalCents > 0 && Order.notionalCents(price, quantity) > maxOrderNotionalCents) {
+            return reject("max-order-notional", String.format("Order notional exceeds %.2f", maxOrderNotionalCents / 100.0));
+        }
+        LastPrice last = stockSymbol == null ? null : lastPrices.get(stockSymbol);
+        if (priceBand > 0 && last != null && Math.abs(price - last.price) > last.price * priceBand) {
+            return reject("price-band", String.format("Price %.2f is outside %.0f%% of the last trade %.2f",
+                    price, priceBand * 100, last.price));
+        }
+        return null;
+    }
+
+    @Override
+    public void onExposure(String traderId, int openOrdersDelta, long notionalCentsDelta) {
+        Exposure exposure = exposures.get(traderId);
+        if (exposure == null) return;
+        if (openOrdersDelta != 0) exposure.openOrders.addAndGet(openOrdersDelta);
+        if (notionalCentsDelta != 0) exposure.notionalCents.addAndGet(notionalCentsDelta);
+    }
+
+    @Override
+    public void onTrade(String stockSymbol, double price) {
+        LastPrice last = lastPrices.get(stockSymbol);
+        if (last == null) last = lastPrices.computeIfAbsent(stockSymbol, k -> new LastPrice());
+        last.price = price;
+    }
+
+    public Map<String, Object> limits() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("maxOrderQuantity", maxOrderQuantity);
+        result.put("maxOrderNotional", maxOrderNotionalCents / 100.0);
+        result.put("maxOpenOrders", maxOpenOrders);
+        result.put("maxOpenNotional", maxOpenNotionalCents / 100.0);
+        result.put("priceBandPercent", priceBand * 100);
+        Map<String, Long> rejected = new LinkedHashMap<>();
+        rejections.forEach((reason, count) -> rejected.put(reason, count.sum()));
+        result.put("rejections", rejected);
+        return result;
+    }
+
+    public Map<String, Object> exposure(String traderId) {
+        Exposure exposure = exposures.get(traderId);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("traderId", traderId);
+        result.put("openOrders", exposure == null ? 0 : exposure.openOrders.get());
+        result.put("openNotional", exposure == null ? 0.0 : exposure.notionalCents.get() / 100.0);
+        return result;
+    }
+
+    private String reject(String reason, String message) {
+        rejections.computeIfAbsent(reason, k -> new LongAdder()).increment();
+        return message;
+    }
+
+    private static boolean tryAdd(AtomicInteger counter, int limit) {
+        while (true) {
+            int current = counter.get();
+            if (limit > 0 && current >= limit) return false;
+            if (counter.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    private static boolean tryAdd(AtomicLong counter, long amount, long limit) {
+        while (true) {
+            long current = counter.get();
+            if (limit > 0 && current + amount > limit) return false;
+            if (counter.compareAndSet(current, current + amount)) return true;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.exchange.session;
+
+import com.example.exchange.engine.StockExchange;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancel-on-disconnect: a trader that opts in by sending heartbeats has all of its orders
+ * mass-cancelled as soon as a heartbeat is missed or the session is closed.
+ */
+public class SessionMonitor {
+
+    private static final class Session {
+        volatile long lastSeenMillis;
+        volatile long timeoutMillis;
+    }
+
+    private final StockExchange exchange;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "SessionMonitor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public SessionMonitor(StockExchange exchange, long checkIntervalMillis) {
+        this.exchange = exchange;
+        scheduler.scheduleAtFixedRate(this::expireSessions, checkIntervalMillis, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void heartbeat(String traderId, long timeoutMillis) {
+        Session session = sessions.computeIfAbsent(traderId, k -> new Session());
+        session.timeoutMillis = timeoutMillis;
+        session.lastSeenMillis = exchange.getClock().currentTimeMillis();
+    }
+
+    public void disconnect(String traderId) {
+        if (sessions.remove(traderId) != null) {
+            exchange.massCancel(traderId, null, null);
+        }
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void expireSessions() {
+        long now = exchange.getClock().currentTimeMillis();
+        sessions.forEach((traderId, session) -> {
+            if (now - session.lastSeenMillis > session.timeoutMillis && sessions.remove(traderId, session)) {
+                System.out.println("Session of " + traderId + " timed out, cancelling its orders.");
+                exchange.massCancel(traderId, null, null);
+            }
+        });
+    }
+}
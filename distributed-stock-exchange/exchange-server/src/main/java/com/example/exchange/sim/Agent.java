@@ -0,0 +1,23 @@
+package com.example.exchange.sim;
+
+import java.util.SplittableRandom;
+
+public abstract class Agent {
+
+    protected final String id;
+    protected final SplittableRandom random;
+
+    protected Agent(String id, SplittableRandom random) {
+        this.id = id;
+        this.random = random;
+    }
+
+    public String getId() { return id; }
+
+    // Acts on the market at the current virtual time and returns the delay until the next action.
+    public abstract long act(SimulatedMarket market);
+
+    protected long jitter(long meanNanos) {
+        return (long) (meanNanos * (0.5 + random.nextDouble()));
+    }
+}
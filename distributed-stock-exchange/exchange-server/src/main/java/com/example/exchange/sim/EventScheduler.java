@@ -0,0 +1,56 @@
+package com.example.exchange.sim;
+
+import java.util.PriorityQueue;
+
+public class EventScheduler {
+
+    private static final class Task implements Comparable<Task> {
+        final long at;
+        final long seq;
+        final Runnable action;
+
+        Task(long at, long seq, Runnable action) {
+            this.at = at;
+            this.seq = seq;
+            this.action = action;
+        }
+
+        // Ties are broken by scheduling order so runs with the same seed are identical.
+        @Override
+        public int compareTo(Task other) {
+            int byTime = Long.compare(at, other.at);
+            return byTime != 0 ? byTime : Long.compare(seq, other.seq);
+        }
+    }
+
+    private final PriorityQueue<Task> tasks = new PriorityQueue<>();
+    private final VirtualClock clock;
+    private long nextSeq;
+    private long executed;
+
+    public EventScheduler(VirtualClock clock) {
+        this.clock = clock;
+    }
+
+    public void scheduleAt(long atNanos, Runnable action) {
+        tasks.add(new Task(Math.max(atNanos, clock.nanoTime()), nextSeq++, action));
+    }
+
+    public void scheduleAfter(long delayNanos, Runnable action) {
+        scheduleAt(clock.nanoTime() + delayNanos, action);
+    }
+
+    public void runUntil(long endNanos) {
+        while (!tasks.isEmpty() && tasks.peek().at <= endNanos) {
+            Task task = tasks.poll();
+            clock.advanceTo(task.at);
+            task.action.run();
+            executed++;
+        }
+        clock.advanceTo(Math.max(clock.nanoTime(), endNanos));
+    }
+
+    public long getExecuted() {
+        return executed;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.exchange.sim;
+
+import com.example.exchange.engine.OrderType;
+
+import java.util.SplittableRandom;
+
+public class MarketMaker extends Agent {
+
+    private final int symbol;
+    private final double halfSpread;
+    private final int quoteSize;
+    private final long intervalNanos;
+    private String bidId;
+    private String askId;
+
+    public MarketMaker(String id, SplittableRandom random, int symbol, double halfSpread, int quoteSize, long intervalNanos) {
+        super(id, random);
+        this.symbol = symbol;
+        this.halfSpread = halfSpread;
+        this.quoteSize = quoteSize;
+        this.intervalNanos = intervalNanos;
+    }
+
+    @Override
+    public long act(SimulatedMarket market) {
+        market.cancel(bidId);
+        market.cancel(askId);
+
+        double mid = market.fairValue(symbol);
+        double width = halfSpread * (0.8 + 0.4 * random.nextDouble());
+        int size = quoteSize / 2 + random.nextInt(quoteSize);
+        bidId = market.submit(id, symbol, OrderType.BUY, mid * (1 - width), size);
+        askId = market.submit(id, symbol, OrderType.SELL, mid * (1 + width), size);
+        return jitter(intervalNanos);
+    }
+}
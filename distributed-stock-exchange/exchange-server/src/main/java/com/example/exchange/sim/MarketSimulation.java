@@ -0,0 +1,113 @@
+package com.example.exchange.sim;
+
+import com.example.exchange.engine.StockExchange;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class MarketSimulation {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    long seed = 42;
+    double tradingHours = 6.5;
+    int makersPerSymbol = 5;
+    int momentumTraders = 2_000;
+    int noiseTraders = 20_000;
+    long makerIntervalMs = 2_000;
+    long momentumIntervalMs = 60_000;
+    long noiseIntervalMs = 300_000;
+    Map<String, Double> symbols = defaultSymbols();
+
+    public static void main(String[] args) {
+        MarketSimulation simulation = new MarketSimulation();
+        for (String arg : args) {
+            String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+            if (kv.length != 2) throw new IllegalArgumentException("Expected key=value but got: " + arg);
+            switch (kv[0]) {
+                case "seed" -> simulation.seed = Long.parseLong(kv[1]);
+                case "hours" -> simulation.tradingHours = Double.parseDouble(kv[1]);
+                case "makers" -> simulation.makersPerSymbol = Integer.parseInt(kv[1]);
+                case "momentum" -> simulation.momentumTraders = Integer.parseInt(kv[1]);
+                case "noise" -> simulation.noiseTraders = Integer.parseInt(kv[1]);
+                case "makerIntervalMs" -> simulation.makerIntervalMs = Long.parseLong(kv[1]);
+                case "momentumIntervalMs" -> simulation.momentumIntervalMs = Long.parseLong(kv[1]);
+                case "noiseIntervalMs" -> simulation.noiseIntervalMs = Long.parseLong(kv[1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + kv[0]);
+            }
+        }
+        simulation.run();
+    }
+
+    public void run() {
+        System.out.printf("Starting simulation: seed=%d hours=%.1f makers/symbol=%d momentum=%d noise=%d\n",
+                seed, tradingHours, makersPerSymbol, momentumTraders, noiseTraders);
+
+        VirtualClock clock = new VirtualClock(0L);
+        EventScheduler scheduler = new EventScheduler(clock);
+        StockExchange exchange = new StockExchange(clock, false, symbols.keySet());
+        exchange.setVerbose(false);
+        SimulatedMarket market = new SimulatedMarket(exchange, clock, symbols, 0.0005);
+
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom marketRandom = root.split();
+        List<Agent> agents = new ArrayList<>();
+        for (int s = 0; s < market.symbolCount(); s++) {
+            for (int m = 0; m < makersPerSymbol; m++) {
+                agents.add(new MarketMaker("MM-" + market.symbol(s) + "-" + m, root.split(), s,
+                        0.001 + 0.0005 * m, 200, makerIntervalMs * 1_000_000L));
+            }
+        }
+        for (int i = 0; i < momentumTraders; i++) {
+            agents.add(new MomentumTrader("MOM-" + i, root.split(), 0.002, momentumIntervalMs * 1_000_000L));
+        }
+        for (int i = 0; i < noiseTraders; i++) {
+            agents.add(new NoiseTrader("NOISE-" + i, root.split(), 0.003, noiseIntervalMs * 1_000_000L));
+        }
+
+        scheduleFairValue(scheduler, market, marketRandom);
+        for (Agent agent : agents) {
+            scheduleAgent(scheduler, market, agent, agent.jitter(SECOND));
+        }
+
+        long end = (long) (tradingHours * 3600 * SECOND);
+        long started = System.nanoTime();
+        scheduler.runUntil(end);
+        double wallSeconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.println("\n--- SIMULATION ENDED ---");
+        System.out.printf("Virtual time: %.1fh, wall time: %.2fs, scheduler events: %d, orders: %d\n",
+                tradingHours, wallSeconds, scheduler.getExecuted(), market.getOrdersSubmitted());
+        for (int s = 0; s < market.symbolCount(); s++) {
+            System.out.printf("%-6s last $%.2f  fair $%.2f  trades %d  volume %d\n", market.symbol(s),
+                    market.lastPrice(s), market.fairValue(s), market.tradeCount(s), market.volume(s));
+        }
+        System.out.printf("Trade checksum: %016x (identical for identical seeds)\n", market.getChecksum());
+    }
+
+    private static void scheduleFairValue(EventScheduler scheduler, SimulatedMarket market, SplittableRandom random) {
+        scheduler.scheduleAfter(SECOND, () -> {
+            market.stepFairValues(random);
+            scheduleFairValue(scheduler, market, random);
+        });
+    }
+
+    private static void scheduleAgent(EventScheduler scheduler, SimulatedMarket market, Agent agent, long delay) {
+        scheduler.scheduleAfter(delay, () -> scheduleAgent(scheduler, market, agent, agent.act(market)));
+    }
+
+    // Insertion-ordered so symbol indices, and therefore seeded runs, are stable across JVMs.
+    static Map<String, Double> defaultSymbols() {
+        Map<String, Double> symbols = new LinkedHashMap<>();
+        symbols.put("AAPL", 150.0);
+        symbols.put("MSFT", 300.0);
+        symbols.put("GOOGL", 140.0);
+        symbols.put("INTC", 35.0);
+        symbols.put("AMD", 110.0);
+        symbols.put("NVDA", 450.0);
+        return symbols;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.exchange.sim;
+
+import com.example.exchange.engine.OrderType;
+
+import java.util.SplittableRandom;
+
+public class MomentumTrader extends Agent {
+
+    private final double threshold;
+    private final long intervalNanos;
+
+    public MomentumTrader(String id, SplittableRandom random, double threshold, long intervalNanos) {
+        super(id, random);
+        this.threshold = threshold;
+        this.intervalNanos = intervalNanos;
+    }
+
+    @Override
+    public long act(SimulatedMarket market) {
+        int symbol = random.nextInt(market.symbolCount());
+        double last = market.lastPrice(symbol);
+        double trend = market.ewma(symbol);
+        int quantity = random.nextInt(10, 101);
+
+        String orderId = null;
+        if (last > trend * (1 + threshold)) {
+            orderId = market.submit(id, symbol, OrderType.BUY, last * 1.005, quantity);
+        } else if (last < trend * (1 - threshold)) {
+            orderId = market.submit(id, symbol, OrderType.SELL, last * 0.995, quantity);
+        }
+        // Immediate-or-cancel: whatever did not fill is pulled straight away.
+        market.cancel(orderId);
+        return jitter(intervalNanos);
+    }
+}
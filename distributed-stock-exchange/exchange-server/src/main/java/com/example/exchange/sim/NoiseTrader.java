@@ -0,0 +1,29 @@
+package com.example.exchange.sim;
+
+import com.example.exchange.engine.OrderType;
+
+import java.util.SplittableRandom;
+
+public class NoiseTrader extends Agent {
+
+    private final double priceDispersion;
+    private final long intervalNanos;
+    private String restingId;
+
+    public NoiseTrader(String id, SplittableRandom random, double priceDispersion, long intervalNanos) {
+        super(id, random);
+        this.priceDispersion = priceDispersion;
+        this.intervalNanos = intervalNanos;
+    }
+
+    @Override
+    public long act(SimulatedMarket market) {
+        market.cancel(restingId);
+
+        int symbol = random.nextInt(market.symbolCount());
+        OrderType type = random.nextBoolean() ? OrderType.BUY : OrderType.SELL;
+        double price = market.lastPrice(symbol) * (1 + priceDispersion * random.nextGaussian());
+        restingId = market.submit(id, symbol, type, price, random.nextInt(1, 51));
+        return jitter(intervalNanos);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.exchange.sim;
+
+import com.example.exchange.engine.Order;
+import com.example.exchange.engine.OrderType;
+import com.example.exchange.engine.StockExchange;
+import com.example.exchange.engine.Trade;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+public class SimulatedMarket {
+
+    private static final double EWMA_ALPHA = 0.05;
+
+    private final StockExchange exchange;
+    private final VirtualClock clock;
+    private final String[] symbols;
+    private final Map<String, Integer> symbolIndex = new HashMap<>();
+    private final double[] fairValue;
+    private final double[] lastPrice;
+    private final double[] ewma;
+    private final long[] volume;
+    private final long[] tradeCount;
+    private final double volatilityPerStep;
+    private int tradeCursor;
+    private long orderSeq;
+    private long checksum = 17;
+
+    public SimulatedMarket(StockExchange exchange, VirtualClock clock, Map<String, Double> initialPrices,
+                           double volatilityPerStep) {
+        this.exchange = exchange;
+        this.clock = clock;
+        this.symbols = initialPrices.keySet().toArray(new String[0]);
+        this.fairValue = new double[symbols.length];
+        this.lastPrice = new double[symbols.length];
+        this.ewma = new double[symbols.length];
+        this.volume = new long[symbols.length];
+        this.tradeCount = new long[symbols.length];
+        this.volatilityPerStep = volatilityPerStep;
+        for (int i = 0; i < symbols.length; i++) {
+            symbolIndex.put(symbols[i], i);
+            double price = initialPrices.get(symbols[i]);
+            fairValue[i] = price;
+            lastPrice[i] = price;
+            ewma[i] = price;
+        }
+    }
+
+    public int symbolCount() { return symbols.length; }
+    public String symbol(int index) { return symbols[index]; }
+    public double fairValue(int index) { return fairValue[index]; }
+    public double lastPrice(int index) { return lastPrice[index]; }
+    public double ewma(int index) { return ewma[index]; }
+    public long volume(int index) { return volume[index]; }
+    public long tradeCount(int index) { return tradeCount[index]; }
+    public long getChecksum() { return checksum; }
+    public long getOrdersSubmitted() { return orderSeq; }
+
+    public String submit(String traderId, int symbol, OrderType type, double price, int quantity) {
+        if (price <= 0 || quantity <= 0) return null;
+        String orderId = "sim-" + (++orderSeq);
+        exchange.submitOrder(new Order(orderId, symbols[symbol], type, round(price), quantity, traderId,
+                clock.currentTimeMillis()));
+        absorbTrades();
+        return orderId;
+    }
+
+    public void cancel(String orderId) {
+        if (orderId == null) return;
+        exchange.cancelOrder(orderId);
+    }
+
+    public void stepFairValues(SplittableRandom random) {
+        for (int i = 0; i < fairValue.length; i++) {
+            fairValue[i] = fairValue[i] * Math.exp(volatilityPerStep * random.nextGaussian());
+        }
+    }
+
+    private void absorbTrades() {
+        List<Trade> trades = exchange.getTradeHistory(tradeCursor);
+        tradeCursor += trades.size();
+        for (Trade trade : trades) {
+            int i = symbolIndex.get(trade.getStockSymbol());
+            lastPrice[i] = trade.getPrice();
+            ewma[i] += EWMA_ALPHA * (trade.getPrice() - ewma[i]);
+            volume[i] += trade.getQuantity();
+            tradeCount[i]++;
+            checksum = 31 * checksum + trade.toString().hashCode();
+        }
+    }
+
+    static double round(double price) {
+        return Math.round(price * 100.0) / 100.0;
+    }
+}
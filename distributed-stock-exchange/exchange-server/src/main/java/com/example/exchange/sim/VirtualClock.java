@@ -0,0 +1,30 @@
+package com.example.exchange.sim;
+
+import com.example.exchange.engine.ExchangeClock;
+
+public class VirtualClock implements ExchangeClock {
+
+    private final long epochMillis;
+    private long nanos;
+
+    public VirtualClock(long epochMillis) {
+        this.epochMillis = epochMillis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return epochMillis + nanos / 1_000_000L;
+    }
+
+    @Override
+    public long nanoTime() {
+        return nanos;
+    }
+
+    public void advanceTo(long nanos) {
+        if (nanos < this.nanos) {
+            throw new IllegalArgumentException("Virtual time cannot go backwards: " + nanos + " < " + this.nanos);
+        }
+        this.nanos = nanos;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.exchange.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CachedResponsesTest {
+
+    private static final Map<String, Object> SMALL = Map.of("price", 100.5);
+    private static final List<Integer> LARGE = IntStream.range(0, 1000).boxed().toList();
+
+    private final ObjectMapper json = new ObjectMapper();
+    private final CachedResponses responses = new CachedResponses(json);
+    private final AtomicInteger reads = new AtomicInteger();
+
+    @Test
+    void jsonByDefaultAndEncodedOncePerVersion() throws IOException {
+        ResponseEntity<byte[]> first = respond("v1", SMALL);
+        ResponseEntity<byte[]> second = respond("v1", SMALL);
+
+        assertEquals(MediaType.APPLICATION_JSON, first.getHeaders().getContentType());
+        assertEquals("\"v1-json\"", first.getHeaders().getETag());
+        assertEquals("Accept, Accept-Encoding", first.getHeaders().getFirst(HttpHeaders.VARY));
+        assertEquals(SMALL, json.readValue(first.getBody(), Map.class));
+        assertArrayEquals(first.getBody(), second.getBody());
+        assertEquals(1, reads.get());
+
+        respond("v2", SMALL);
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    void matchingTagGetsNotModified() {
+        ResponseEntity<byte[]> fresh = respond("v1", SMALL, HttpHeaders.IF_NONE_MATCH, "\"v1-json\"");
+        assertEquals(HttpStatus.NOT_MODIFIED, fresh.getStatusCode());
+        assertNull(fresh.getBody());
+        assertEquals("\"v1-json\"", fresh.getHeaders().getETag());
+
+        ResponseEntity<byte[]> stale = respond("v2", SMALL, HttpHeaders.IF_NONE_MATCH, "\"v1-json\"");
+        assertEquals(HttpStatus.OK, stale.getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, respond("v2", SMALL, HttpHeaders.IF_NONE_MATCH, "*").getStatusCode());
+    }
+
+    @Test
+    void cborWhenAccepted() throws IOException {
+        ResponseEntity<byte[]> response = respond("v1", SMALL, HttpHeaders.ACCEPT, "application/cbor, application/json;q=0.5");
+        assertEquals(CachedResponses.CBOR, response.getHeaders().getContentType());
+        assertEquals("\"v1-cbor\"", response.getHeaders().getETag());
+        assertEquals(SMALL, new ObjectMapper(new CBORFactory()).readValue(response.getBody(), Map.class));
+
+        // A JSON tag does not validate the CBOR body.
+        ResponseEntity<byte[]> other = respond("v1", SMALL, HttpHeaders.ACCEPT, "application/cbor",
+                HttpHeaders.IF_NONE_MATCH, "\"v1-json\"");
+        assertEquals(HttpStatus.OK, other.getStatusCode());
+    }
+
+    @Test
+    void gzipOnlyForBodiesWorthCompressing() throws IOException {
+        ResponseEntity<byte[]> small = respond("v1", SMALL, HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+        assertNull(small.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"v1-json\"", small.getHeaders().getETag());
+
+        ResponseEntity<byte[]> large = respond("v2", LARGE, HttpHeaders.ACCEPT_ENCODING, "gzip");
+        assertEquals("gzip", large.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("\"v2-json-gz\"", large.getHeaders().getETag());
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(large.getBody()))) {
+            assertArrayEquals(json.writeValueAsBytes(LARGE), in.readAllBytes());
+        }
+        assertEquals(HttpStatus.NOT_MODIFIED, respond("v2", LARGE, HttpHeaders.ACCEPT_ENCODING, "gzip",
+                HttpHeaders.IF_NONE_MATCH, "\"v2-json-gz\"").getStatusCode());
+        assertEquals(HttpStatus.OK, respond("v2", LARGE, HttpHeaders.IF_NONE_MATCH, "\"v2-json-gz\"").getStatusCode());
+    }
+
+    @Test
+    void uncachedKeyReadsEveryTime() {
+        responses.respond(request(), null, "v1", this::read);
+        responses.respond(request(), null, "v1", this::read);
+        assertEquals(2, reads.get());
+    }
+
+    private ResponseEntity<byte[]> respond(String version, Object value, String... headers) {
+        return responses.respond(request(headers), "key", version, () -> {
+            reads.incrementAndGet();
+            return value;
+        });
+    }
+
+    private Object read() {
+        reads.incrementAndGet();
+        return SMALL;
+    }
+
+    // Only getHeader is used; pairs of name and value.
+    private static HttpServletRequest request(String... headers) {
+        return (HttpServletRequest) Proxy.newProxyInstance(HttpServletRequest.class.getClassLoader(),
+                new Class<?>[] {HttpServletRequest.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("getHeader")) throw new UnsupportedOperationException(method.getName());
+                    for (int i = 0; i < headers.length; i += 2) {
+                        if (headers[i].equalsIgnoreCase((String) args[0])) return headers[i + 1];
+                    }
+                    return null;
+                });
+    }
+}
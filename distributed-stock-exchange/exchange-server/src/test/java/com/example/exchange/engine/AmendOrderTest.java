@@ -0,0 +1,83 @@
+package com.example.exchange.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class AmendOrderTest {
+
+    private StockExchange exchange;
+    private Order first;
+
+    @BeforeEach
+    void setUp() {
+        exchange = new StockExchange(false);
+        exchange.setVerbose(false);
+        first = bid("first", 5);
+        bid("second", 5);
+    }
+
+    @Test
+    void reducingAtTheSamePriceKeepsPriority() {
+        exchange.amendOrder(first.getOrderId(), null, 3);
+        assertEquals(List.of("first", "second"), bidders());
+
+        sell(3);
+        assertEquals("first", lastBuyer());
+        assertEquals(List.of("second"), bidders());
+    }
+
+    @Test
+    void increasingLosesPriority() {
+        exchange.amendOrder(first.getOrderId(), null, 6);
+        assertEquals(List.of("second", "first"), bidders());
+
+        sell(1);
+        assertEquals("second", lastBuyer());
+    }
+
+    @Test
+    void repricingLosesPriorityEvenWhenMovedBack() {
+        exchange.amendOrder(first.getOrderId(), 99.0, null);
+        exchange.amendOrder(first.getOrderId(), 100.0, 2);
+        assertEquals(List.of("second", "first"), bidders());
+
+        sell(6);
+        List<Trade> trades = exchange.getTradeHistory();
+        assertEquals(2, trades.size());
+        assertEquals("second", trades.get(0).getBuyerId());
+        assertEquals(5, trades.get(0).getQuantity());
+        assertEquals("first", trades.get(1).getBuyerId());
+        assertEquals(1, trades.get(1).getQuantity());
+    }
+
+    @Test
+    void amendingToZeroCancels() {
+        exchange.amendOrder(first.getOrderId(), null, 0);
+        assertEquals(List.of("second"), bidders());
+        assertNull(exchange.getOrderView(first.getOrderId()));
+    }
+
+    private Order bid(String traderId, int quantity) {
+        Order order = new Order("AAPL", OrderType.BUY, 100, quantity, traderId);
+        exchange.submitOrder(order);
+        return order;
+    }
+
+    private void sell(int quantity) {
+        exchange.submitOrder(new Order("AAPL", OrderType.SELL, 100, quantity, "seller"));
+    }
+
+    private List<String> bidders() {
+        return exchange.getOrderBook("AAPL").getBids().stream().map(Order::getTraderId).toList();
+    }
+
+    private String lastBuyer() {
+        List<Trade> trades = exchange.getTradeHistory();
+        return trades.get(trades.size() - 1).getBuyerId();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.exchange.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AuctionTest {
+
+    private final OrderBook book = new OrderBook();
+
+    @Test
+    void clearsAtThePriceThatExecutesTheMostVolume() {
+        rest(OrderType.BUY, 101, 10);
+        rest(OrderType.SELL, 100, 4);
+        rest(OrderType.SELL, 101, 6);
+        rest(OrderType.SELL, 102, 20);
+        assertEquals(101, book.clearingPrice(Double.NaN));
+    }
+
+    @Test
+    void equalVolumeGoesToTheSmallerImbalance() {
+        rest(OrderType.BUY, 101, 10);
+        rest(OrderType.SELL, 100, 10);
+        rest(OrderType.SELL, 101, 5);
+        // 10 clear at either price; at 101 five asks would be left over.
+        assertEquals(100, book.clearingPrice(101));
+    }
+
+    @Test
+    void thenToTheReferenceThenToTheLowerPrice() {
+        rest(OrderType.BUY, 102, 5);
+        rest(OrderType.BUY, 101, 5);
+        rest(OrderType.BUY, 100, 10);
+        rest(OrderType.SELL, 99, 5);
+        rest(OrderType.SELL, 100, 5);
+        rest(OrderType.SELL, 101, 10);
+        // 10 clear at 100 and at 101, each leaving 10 over.
+        assertEquals(101, book.clearingPrice(101.5));
+        assertEquals(100, book.clearingPrice(99));
+        assertEquals(100, book.clearingPrice(Double.NaN));
+    }
+
+    @Test
+    void bookThatDoesNotCrossHasNoPrice() {
+        rest(OrderType.BUY, 99, 10);
+        rest(OrderType.SELL, 100, 10);
+        assertTrue(Double.isNaN(book.clearingPrice(100)));
+    }
+
+    @Test
+    void crossedOrdersWaitForTheAuctionAndAllFillAtOnePrice() {
+        ReplayClock clock = new ReplayClock();
+        clock.set(1_000_500, 0);
+        StockExchange exchange = new StockExchange(clock, false, List.of("AAPL"));
+        exchange.setVerbose(false);
+        exchange.setAuctionInterval("AAPL", 1000);
+        exchange.submitOrder(new Order("AAPL", OrderType.BUY, 102, 5, "b1"));
+        exchange.submitOrder(new Order("AAPL", OrderType.SELL, 99, 5, "s1"));
+        exchange.submitOrder(new Order("AAPL", OrderType.BUY, 101, 5, "b2"));
+        exchange.submitOrder(new Order("AAPL", OrderType.SELL, 101, 10, "s2"));
+        assertEquals(0, exchange.getTradeCount());
+
+        clock.set(1_001_000, 0);
+        exchange.cancelOrder("none");
+        List<Trade> trades = exchange.getTradeHistory();
+        assertEquals(10, trades.stream().mapToInt(Trade::getQuantity).sum());
+        assertTrue(trades.stream().allMatch(t -> t.getPrice() == 101));
+        assertEquals(1, exchange.getOrderBook("AAPL").askCount());
+        assertEquals(0, exchange.getOrderBook("AAPL").bidCount());
+    }
+
+    private void rest(OrderType side, double price, int quantity) {
+        book.addOrder(new Order("AAPL", side, price, quantity, side.name()));
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.exchange.engine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventJournalTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void idsOfAnyLengthAndScriptAreRecorded() throws IOException {
+        // Past the 65535 bytes DataOutputStream#writeUTF could encode.
+        String seller = "s".repeat(70_000);
+        String buyer = "cumpărător-€";
+        Path capture = dir.resolve("capture.bin");
+        StockExchange exchange = new StockExchange(false);
+        exchange.setVerbose(false);
+        exchange.startCapture(new FileOutputStream(capture.toFile()));
+        exchange.submitOrder(new Order("AAPL", OrderType.SELL, 100, 5, seller));
+        exchange.submitOrder(new Order("AAPL", OrderType.BUY, 100, 2, buyer));
+        exchange.cancelOrder("x".repeat(70_000));
+        exchange.submitOrder(new Order("AAPL", OrderType.BUY, 100, 3, buyer));
+        exchange.stopCapture();
+
+        List<Order> recorded = new ArrayList<>();
+        List<Trade> trades = new ArrayList<>();
+        try (JournalReader reader = new JournalReader(new FileInputStream(capture.toFile()))) {
+            for (JournalReader.Record record; (record = reader.next()) != null; ) {
+                if (record.isTrade()) trades.add(JournalReader.decode(record.trade));
+                else if (record.event instanceof StockExchange.NewOrderEvent e) recorded.add(e.order);
+            }
+        }
+        assertEquals(3, recorded.size());
+        assertEquals(seller, recorded.get(0).getTraderId());
+        assertEquals(buyer, recorded.get(1).getTraderId());
+        assertEquals(2, trades.size());
+        assertEquals(seller, trades.get(1).getSellerId());
+        assertEquals(buyer, trades.get(1).getBuyerId());
+
+        assertTrue(ReplayTool.replay(capture.toString(), false).matches());
+    }
+}
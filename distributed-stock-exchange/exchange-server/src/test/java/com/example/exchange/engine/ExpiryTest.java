@@ -0,0 +1,107 @@
+package com.example.exchange.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ExpiryTest {
+
+    private static final long START = Instant.parse("2026-01-05T15:00:00Z").toEpochMilli();
+
+    private final ReplayClock clock = new ReplayClock();
+    private StockExchange exchange;
+
+    @BeforeEach
+    void setUp() {
+        clock.set(START, 0);
+        exchange = new StockExchange(clock, false, List.of("AAPL"));
+        exchange.setVerbose(false);
+    }
+
+    @Test
+    void wheelFiresOnceTheDeadlineHasPassed() {
+        ExpiryWheel wheel = new ExpiryWheel(1024, 10, 0);
+        Order order = order(TimeInForce.GTT, 25);
+        wheel.schedule(order);
+        List<Order> expired = new ArrayList<>();
+
+        wheel.advance(20, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advance(30, expired::add);
+        assertEquals(List.of(order), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void wheelKeepsDeadlinesBeyondOneRotation() {
+        ExpiryWheel wheel = new ExpiryWheel(1024, 10, 0);
+        // One rotation is 10.24 s, so this shares a slot visited well before it is due.
+        Order order = order(TimeInForce.GTT, 15_000);
+        wheel.schedule(order);
+        List<Order> expired = new ArrayList<>();
+
+        for (long now = 100; now < 15_000; now += 100) {
+            wheel.advance(now, expired::add);
+        }
+        assertTrue(expired.isEmpty());
+        wheel.advance(15_000, expired::add);
+        assertEquals(List.of(order), expired);
+    }
+
+    @Test
+    void gttOrderLeavesTheBookAtItsDeadline() {
+        Order order = order(TimeInForce.GTT, START + 500);
+        exchange.submitOrder(order);
+
+        advanceTo(START + 490);
+        assertEquals(1, exchange.getOrderBook("AAPL").bidCount());
+        advanceTo(START + 500);
+        assertEquals(0, exchange.getOrderBook("AAPL").bidCount());
+        assertNull(exchange.getOrderView(order.getOrderId()));
+    }
+
+    @Test
+    void dayOrderLeavesTheBookAtSessionClose() {
+        exchange.setSessionClose(LocalTime.of(16, 0), ZoneOffset.UTC);
+        Order day = order(TimeInForce.DAY, 0);
+        Order gtc = order(TimeInForce.GTC, 0);
+        exchange.submitOrder(day);
+        exchange.submitOrder(gtc);
+        long close = Instant.parse("2026-01-05T16:00:00Z").toEpochMilli();
+        assertEquals(close, day.getExpireAt());
+
+        advanceTo(close - 1);
+        assertEquals(2, exchange.getOrderBook("AAPL").bidCount());
+        advanceTo(close);
+        assertNull(exchange.getOrderView(day.getOrderId()));
+        assertNotNull(exchange.getOrderView(gtc.getOrderId()));
+    }
+
+    @Test
+    void orderExpiredOnArrivalNeverRests() {
+        exchange.submitOrder(order(TimeInForce.GTT, START));
+        assertEquals(0, exchange.getOrderBook("AAPL").bidCount());
+    }
+
+    private static Order order(TimeInForce timeInForce, long expireAt) {
+        Order order = new Order("AAPL", OrderType.BUY, 100, 1, "trader");
+        order.setTimeInForce(timeInForce, expireAt);
+        return order;
+    }
+
+    // Inline, timers are checked as each event is published.
+    private void advanceTo(long millis) {
+        clock.set(millis, 0);
+        exchange.cancelOrder("none");
+    }
+}
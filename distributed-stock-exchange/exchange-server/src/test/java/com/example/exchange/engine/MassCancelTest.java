@@ -0,0 +1,66 @@
+package com.example.exchange.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MassCancelTest {
+
+    private StockExchange exchange;
+    private Order appleBid;
+    private Order appleAsk;
+    private Order msftBid;
+    private Order appleStop;
+    private Order otherBid;
+
+    @BeforeEach
+    void setUp() {
+        exchange = new StockExchange(false);
+        exchange.setVerbose(false);
+        appleBid = submit("AAPL", OrderType.BUY, 100, "a");
+        appleAsk = submit("AAPL", OrderType.SELL, 110, "a");
+        msftBid = submit("MSFT", OrderType.BUY, 50, "a");
+        appleStop = new Order("AAPL", OrderType.SELL, 90, 1, "a");
+        appleStop.setStopPrice(95);
+        exchange.submitOrder(appleStop);
+        otherBid = submit("AAPL", OrderType.BUY, 100, "b");
+    }
+
+    @Test
+    void filtersBySymbolAndSide() {
+        exchange.massCancel("a", "AAPL", OrderType.BUY);
+        assertEquals(Set.of(appleAsk.getOrderId(), msftBid.getOrderId(), appleStop.getOrderId()), live("a"));
+        assertEquals(List.of(otherBid), exchange.getOrderBook("AAPL").getBids());
+    }
+
+    @Test
+    void withoutFiltersCancelsEverythingOfTheTraderOnly() {
+        exchange.massCancel("a", null, null);
+        assertTrue(live("a").isEmpty());
+        assertEquals(Set.of(otherBid.getOrderId()), live("b"));
+        assertEquals(0, exchange.getOrderBook("AAPL").askCount());
+        assertEquals(0, exchange.getOrderBook("MSFT").bidCount());
+
+        // The pending stop went too: a trade through its price fires nothing.
+        submit("AAPL", OrderType.BUY, 95, "b");
+        exchange.submitOrder(new Order("AAPL", OrderType.SELL, 95, 2, "c"));
+        assertEquals(95, exchange.getTradeHistory().get(1).getPrice());
+        assertEquals(0, exchange.getOrderBook("AAPL").askCount());
+    }
+
+    private Order submit(String symbol, OrderType side, double price, String traderId) {
+        Order order = new Order(symbol, side, price, 1, traderId);
+        exchange.submitOrder(order);
+        return order;
+    }
+
+    private Set<String> live(String traderId) {
+        return exchange.getOrdersForTrader(traderId).stream().map(OrderView::orderId).collect(Collectors.toSet());
+    }
+}
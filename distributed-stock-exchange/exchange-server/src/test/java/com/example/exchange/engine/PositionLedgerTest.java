@@ -0,0 +1,98 @@
+package com.example.exchange.engine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PositionLedgerTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private final PositionLedger ledger = new PositionLedger();
+
+    @Test
+    void buysAverageTheirCost() {
+        fill("AAPL", 10, 100, "t", "x");
+        fill("AAPL", 30, 104, "t", "x");
+
+        Position p = position("t");
+        assertEquals(40, p.netQuantity());
+        assertEquals(103, p.averageCost(), EPSILON);
+        assertEquals(0, p.realizedPnl(), EPSILON);
+        assertEquals(40, p.volume());
+        assertEquals(2, p.trades());
+        // Marked to the last trade, 104.
+        assertEquals(40, p.unrealizedPnl(), EPSILON);
+    }
+
+    @Test
+    void sellingRealizesAgainstTheAverageCost() {
+        fill("AAPL", 10, 100, "t", "x");
+        fill("AAPL", 4, 110, "x", "t");
+
+        Position p = position("t");
+        assertEquals(6, p.netQuantity());
+        assertEquals(100, p.averageCost(), EPSILON);
+        assertEquals(40, p.realizedPnl(), EPSILON);
+        assertEquals(60, p.unrealizedPnl(), EPSILON);
+    }
+
+    @Test
+    void flippingToShortOpensTheRestAtTheFillPrice() {
+        fill("AAPL", 10, 100, "t", "x");
+        fill("AAPL", 15, 90, "x", "t");
+
+        Position p = position("t");
+        assertEquals(-5, p.netQuantity());
+        assertEquals(90, p.averageCost(), EPSILON);
+        assertEquals(-100, p.realizedPnl(), EPSILON);
+
+        fill("AAPL", 5, 80, "t", "x");
+        p = position("t");
+        assertEquals(0, p.netQuantity());
+        assertEquals(0, p.averageCost(), EPSILON);
+        assertEquals(-50, p.realizedPnl(), EPSILON);
+        assertEquals(0, p.unrealizedPnl(), EPSILON);
+    }
+
+    @Test
+    void bothSidesOfATradeAreBookedPerSymbol() {
+        fill("AAPL", 10, 100, "t", "x");
+        fill("MSFT", 2, 50, "x", "t");
+
+        List<Position> x = positions("x");
+        assertEquals(2, x.size());
+        assertEquals(-10, x.get(0).netQuantity());
+        assertEquals("MSFT", x.get(1).stockSymbol());
+        assertEquals(2, x.get(1).netQuantity());
+        assertEquals(-2, position("t", "MSFT").netQuantity());
+    }
+
+    @Test
+    void readersOnlySeePublishedFills() {
+        ledger.onTrade(new Trade("AAPL", 1, 100, "t", "x"));
+        assertTrue(ledger.positions("t").isEmpty());
+        ledger.publish();
+        assertEquals(1, ledger.positions("t").size());
+    }
+
+    private void fill(String symbol, int quantity, double price, String buyer, String seller) {
+        ledger.onTrade(new Trade(symbol, quantity, price, buyer, seller));
+    }
+
+    private List<Position> positions(String traderId) {
+        ledger.publish();
+        return ledger.positions(traderId);
+    }
+
+    private Position position(String traderId) {
+        return position(traderId, "AAPL");
+    }
+
+    private Position position(String traderId, String symbol) {
+        return positions(traderId).stream().filter(p -> p.stockSymbol().equals(symbol)).findFirst().orElseThrow();
+    }
+}
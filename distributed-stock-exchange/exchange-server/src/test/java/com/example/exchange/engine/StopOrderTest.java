@@ -0,0 +1,100 @@
+package com.example.exchange.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StopOrderTest {
+
+    private StockExchange exchange;
+
+    @BeforeEach
+    void setUp() {
+        exchange = new StockExchange(false);
+        exchange.setVerbose(false);
+    }
+
+    @Test
+    void sweepFiresEveryStopItPassedInTriggerThenArrivalOrder() {
+        bid(100, 1);
+        bid(96, 1);
+        bid(94, 1);
+        bid(50, 10);
+        sellStop("a", 95);
+        sellStop("b", 95);
+        sellStop("c", 97);
+
+        sell("mover", 94, 3);
+        assertEquals(List.of("mover", "mover", "mover", "c", "a", "b"), sellers());
+    }
+
+    @Test
+    void stopFillsCascadeIntoFurtherStops() {
+        bid(96, 1);
+        bid(92, 1);
+        bid(85, 1);
+        bid(80, 1);
+        sellStop("first", 95);
+        sellStop("second", 90);
+
+        sell("mover", 96, 1);
+        assertEquals(List.of("mover"), sellers());
+        sell("mover", 92, 1);
+        List<Trade> trades = exchange.getTradeHistory();
+        assertEquals(List.of("mover", "mover", "first", "second"), sellers());
+        assertEquals(List.of(96.0, 92.0, 85.0, 80.0), trades.stream().map(Trade::getPrice).toList());
+    }
+
+    @Test
+    void buyStopFiresAtOrAboveItsPrice() {
+        ask(105, 1);
+        ask(110, 5);
+        Order stop = new Order("AAPL", OrderType.BUY, 200, 1, "stop");
+        stop.setStopPrice(105);
+        exchange.submitOrder(stop);
+        assertEquals(0, exchange.getTradeHistory().size());
+
+        exchange.submitOrder(new Order("AAPL", OrderType.BUY, 105, 1, "mover"));
+        List<Trade> trades = exchange.getTradeHistory();
+        assertEquals(2, trades.size());
+        assertEquals("stop", trades.get(1).getBuyerId());
+        assertEquals(110, trades.get(1).getPrice());
+    }
+
+    @Test
+    void stopAlreadyReachedEntersAtOnce() {
+        bid(92, 1);
+        sell("mover", 92, 1);
+        bid(90, 1);
+
+        sellStop("late", 95);
+        assertEquals("late", sellers().get(1));
+        assertEquals(90, exchange.getTradeHistory().get(1).getPrice());
+    }
+
+    private void bid(double price, int quantity) {
+        exchange.submitOrder(new Order("AAPL", OrderType.BUY, price, quantity, "bidder"));
+    }
+
+    private void ask(double price, int quantity) {
+        exchange.submitOrder(new Order("AAPL", OrderType.SELL, price, quantity, "asker"));
+    }
+
+    private void sell(String traderId, double price, int quantity) {
+        exchange.submitOrder(new Order("AAPL", OrderType.SELL, price, quantity, traderId));
+    }
+
+    // Marketable once fired: the limit is below any bid.
+    private void sellStop(String traderId, double stopPrice) {
+        Order stop = new Order("AAPL", OrderType.SELL, 1, 1, traderId);
+        stop.setStopPrice(stopPrice);
+        exchange.submitOrder(stop);
+    }
+
+    private List<String> sellers() {
+        return exchange.getTradeHistory().stream().map(Trade::getSellerId).toList();
+    }
+}
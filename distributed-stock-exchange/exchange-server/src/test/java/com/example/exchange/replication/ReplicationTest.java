@@ -0,0 +1,321 @@
+package com.example.exchange.replication;
+
+import com.example.exchange.engine.Order;
+import com.example.exchange.engine.OrderType;
+import com.example.exchange.engine.StockExchange;
+import com.example.exchange.engine.Trade;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReplicationTest {
+
+    private static final long FAILOVER_TIMEOUT_MS = 500;
+
+    private final List<AutoCloseable> resources = new ArrayList<>();
+    private StockExchange primaryExchange;
+    private ReplicationLog log;
+    private ReplicationPrimary primary;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (int i = resources.size() - 1; i >= 0; i--) {
+            resources.get(i).close();
+        }
+    }
+
+    @Test
+    void standbyTakesOverOnceThePrimaryIsGone() throws Exception {
+        startPrimary(ReplicationLog.DEFAULT_SEGMENT_BYTES);
+        ReplicationStandby standby = follow(primary.getPort(), true);
+        trade(10);
+        awaitCaughtUp(standby);
+
+        primary.close();
+        await(standby::isPromoted, 5000);
+        assertTrue(standby.getFailoverNanos() >= FAILOVER_TIMEOUT_MS * 1_000_000 / 2);
+
+        StockExchange promoted = standby.getExchange();
+        assertSameTrades(primaryExchange, promoted);
+        promoted.submitOrder(new Order("AAPL", OrderType.SELL, 100, 1, "after-seller"));
+        promoted.submitOrder(new Order("AAPL", OrderType.BUY, 100, 1, "after-buyer"));
+        promoted.flush();
+        assertEquals(11, promoted.getTradeHistory().size());
+        assertEquals(11, promoted.getTradeHistory().get(10).getSequence());
+    }
+
+    @Test
+    void standbyTakesOverWhenThePrimaryFallsSilent() throws Exception {
+        startPrimary(ReplicationLog.DEFAULT_SEGMENT_BYTES);
+        Proxy proxy = new Proxy(primary.getPort());
+        ReplicationStandby standby = follow(proxy.getPort(), true);
+        trade(3);
+        awaitCaughtUp(standby);
+
+        // The connection stays open but nothing, not even a heartbeat, gets through.
+        proxy.freeze();
+        await(standby::isPromoted, 5000);
+        assertSameTrades(primaryExchange, standby.getExchange());
+    }
+
+    @Test
+    void standbyTakesOverOnceThePrimaryCanNoLongerJournal() throws Exception {
+        FailingLog failing = new FailingLog();
+        startPrimary(failing, 0);
+        ReplicationStandby standby = follow(primary.getPort(), true);
+        trade(3);
+        awaitCaughtUp(standby);
+
+        failing.failing = true;
+        trade(1);
+        assertTrue(primary.isStopped());
+        long start = System.currentTimeMillis();
+        assertFalse(primary.awaitAck(primaryExchange.getSequence(), 5000));
+        assertTrue(System.currentTimeMillis() - start < 1000);
+
+        // No heartbeats over the gap: the standby takes over with what it had applied.
+        await(standby::isPromoted, 5000);
+        assertEquals(3, standby.getExchange().getTradeHistory().size());
+    }
+
+    @Test
+    void idlePrimaryIsNotTakenForDead() throws Exception {
+        startPrimary(ReplicationLog.DEFAULT_SEGMENT_BYTES);
+        ReplicationStandby standby = follow(primary.getPort(), true);
+        trade(1);
+        awaitCaughtUp(standby);
+
+        Thread.sleep(FAILOVER_TIMEOUT_MS * 3);
+        assertFalse(standby.isPromoted());
+        assertTrue(standby.isLinkUp());
+    }
+
+    @Test
+    void droppedLinkToALivePrimaryResumesWithoutDuplicates() throws Exception {
+        startPrimary(ReplicationLog.DEFAULT_SEGMENT_BYTES);
+        Proxy proxy = new Proxy(primary.getPort());
+        ReplicationStandby standby = follow(proxy.getPort(), true);
+        trade(5);
+        awaitCaughtUp(standby);
+
+        proxy.cut();
+        trade(5);
+        awaitCaughtUp(standby);
+
+        assertFalse(standby.isPromoted());
+        assertSameTrades(primaryExchange, standby.getExchange());
+        assertEquals(primaryExchange.getSequence(), standby.getExchange().getSequence());
+    }
+
+    @Test
+    void lagIsMeasuredOnThePrimary() throws Exception {
+        startPrimary(ReplicationLog.DEFAULT_SEGMENT_BYTES);
+        ReplicationStandby standby = follow(primary.getPort(), true);
+        trade(20);
+        awaitCaughtUp(standby);
+
+        await(() -> primary.getLag().getTotalCount() > 0, 2000);
+        assertTrue(primary.getLag().getMaxValue() < 5_000_000_000L);
+    }
+
+    @Test
+    void lateReplicaStartsFromTheLatestSnapshot() throws Exception {
+        startPrimary(16 << 10);
+        ReplicationStandby early = follow(primary.getPort(), false);
+        for (int i = 0; i < 20; i++) {
+            trade(50);
+            rest(20);
+        }
+        primaryExchange.flush();
+        ReplicationStandby late = follow(primary.getPort(), false);
+        trade(5);
+        awaitCaughtUp(early);
+        awaitCaughtUp(late);
+
+        for (ReplicationStandby replica : List.of(early, late)) {
+            StockExchange follower = replica.getExchange();
+            assertSameTrades(primaryExchange, follower);
+            assertEquals(primaryExchange.getOrdersForTrader("rester").size(), follower.getOrdersForTrader("rester").size());
+            assertEquals(primaryExchange.getOrderBook("MSFT").bidCount(), follower.getOrderBook("MSFT").bidCount());
+        }
+        // Many segments were written, yet only the latest snapshot and what followed it is held.
+        assertTrue(log.retained() < log.size() / 3, () -> log.size() + " written, " + log.retained() + " retained");
+    }
+
+    @Test
+    void restartedPrimaryIsFollowedFromScratch() throws Exception {
+        startPrimary(ReplicationLog.DEFAULT_SEGMENT_BYTES);
+        ReplicationStandby replica = follow(primary.getPort(), false);
+        trade(10);
+        awaitCaughtUp(replica);
+
+        // A new instance on the same port numbers its events from the start again.
+        primary.close();
+        primaryExchange.shutdown();
+        startPrimary(ReplicationLog.DEFAULT_SEGMENT_BYTES, primary.getPort());
+        trade(2);
+        await(() -> replica.getExchange().getTradeHistory().size() == 2, 5000);
+
+        assertSameTrades(primaryExchange, replica.getExchange());
+        assertEquals(primaryExchange.getSequence(), replica.getAppliedSequence());
+    }
+
+    private void startPrimary(long segmentBytes) throws IOException {
+        startPrimary(segmentBytes, 0);
+    }
+
+    private void startPrimary(long segmentBytes, int port) throws IOException {
+        startPrimary(new ReplicationLog(segmentBytes), port);
+    }
+
+    private void startPrimary(ReplicationLog replicationLog, int port) throws IOException {
+        primaryExchange = new StockExchange();
+        primaryExchange.setVerbose(false);
+        resources.add(primaryExchange::shutdown);
+        log = replicationLog;
+        primaryExchange.startReplication(log);
+        primary = new ReplicationPrimary(log, port);
+        resources.add(primary);
+    }
+
+    private ReplicationStandby follow(int port, boolean takeOver) throws IOException {
+        ReplicationStandby standby = new ReplicationStandby("localhost", port, takeOver, FAILOVER_TIMEOUT_MS);
+        resources.add(standby);
+        standby.start();
+        return standby;
+    }
+
+    private void trade(int count) {
+        for (int i = 0; i < count; i++) {
+            primaryExchange.submitOrder(new Order("AAPL", OrderType.SELL, 100, 1, "seller"));
+            primaryExchange.submitOrder(new Order("AAPL", OrderType.BUY, 100, 1, "buyer"));
+        }
+        primaryExchange.flush();
+    }
+
+    private void rest(int count) {
+        for (int i = 0; i < count; i++) {
+            primaryExchange.submitOrder(new Order("MSFT", OrderType.BUY, 50 + i % 10, 1, "rester"));
+        }
+        primaryExchange.flush();
+    }
+
+    private void awaitCaughtUp(ReplicationStandby standby) throws InterruptedException {
+        long sequence = primaryExchange.getSequence();
+        await(() -> standby.getAppliedSequence() >= sequence, 5000);
+    }
+
+    private static void assertSameTrades(StockExchange expected, StockExchange actual) {
+        List<Trade> want = expected.getTradeHistory();
+        List<Trade> got = actual.getTradeHistory();
+        assertEquals(want.size(), got.size());
+        for (int i = 0; i < want.size(); i++) {
+            assertEquals(want.get(i).getSequence(), got.get(i).getSequence());
+            assertEquals(want.get(i).getPassiveOrderId(), got.get(i).getPassiveOrderId());
+        }
+    }
+
+    private static void await(BooleanSupplier condition, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+
+    // Forwards connections to the primary, so a test can cut or stall the link while it lives on.
+    private static final class FailingLog extends ReplicationLog {
+        volatile boolean failing;
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) throws IOException {
+            if (failing) throw new IOException("disk full");
+            super.write(b, off, len);
+        }
+    }
+
+    private final class Proxy implements AutoCloseable {
+
+        private final ServerSocket server = new ServerSocket(0);
+        private final int target;
+        private final List<Socket> sockets = new CopyOnWriteArrayList<>();
+        private volatile boolean frozen;
+
+        Proxy(int target) throws IOException {
+            this.target = target;
+            resources.add(this);
+            Thread acceptor = new Thread(this::accept, "TestProxy");
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+
+        int getPort() {
+            return server.getLocalPort();
+        }
+
+        void cut() throws IOException {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+
+        void freeze() {
+            frozen = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+            cut();
+        }
+
+        private void accept() {
+            while (!server.isClosed()) {
+                try {
+                    Socket client = server.accept();
+                    Socket upstream = new Socket("localhost", target);
+                    sockets.add(client);
+                    sockets.add(upstream);
+                    pipe(client, upstream);
+                    pipe(upstream, client);
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        }
+
+        private void pipe(Socket from, Socket to) {
+            Thread thread = new Thread(() -> {
+                byte[] buffer = new byte[8192];
+                try (InputStream in = from.getInputStream(); OutputStream out = to.getOutputStream()) {
+                    for (int n; (n = in.read(buffer)) >= 0; ) {
+                        while (frozen) {
+                            Thread.sleep(10);
+                        }
+                        out.write(buffer, 0, n);
+                    }
+                } catch (IOException | InterruptedException ignored) {
+                }
+                try {
+                    to.close();
+                } catch (IOException ignored) {
+                }
+            }, "TestProxyPipe");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.exchange.risk;
+
+import com.example.exchange.engine.Order;
+import com.example.exchange.engine.OrderType;
+import com.example.exchange.engine.OrderView;
+import com.example.exchange.engine.StockExchange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PreTradeRiskTest {
+
+    private StockExchange exchange;
+    private PreTradeRisk risk;
+
+    @BeforeEach
+    void setUp() {
+        exchange = new StockExchange(false);
+        exchange.setVerbose(false);
+        risk = new PreTradeRisk(0, 0, 0, 10_000, 0);
+        exchange.setRiskListener(risk);
+    }
+
+    @Test
+    void releasedReservationIsGivenBack() {
+        assertNull(risk.reserve("t", "AAPL", 100, 10));
+        assertExposure(1, 1000);
+        risk.release("t", 100, 10);
+        assertExposure(0, 0);
+    }
+
+    @Test
+    void cancelGivesBackTheWholeOrder() {
+        Order order = submit(100, 10);
+        assertExposure(1, 1000);
+        exchange.cancelOrder(order.getOrderId());
+        assertExposure(0, 0);
+    }
+
+    @Test
+    void fillsGiveBackWhatTheyTake() {
+        submit(100, 10);
+        exchange.submitOrder(new Order("AAPL", OrderType.SELL, 100, 4, "other"));
+        assertExposure(1, 600);
+        exchange.submitOrder(new Order("AAPL", OrderType.SELL, 100, 6, "other"));
+        assertExposure(0, 0);
+    }
+
+    @Test
+    void amendmentsReserveTheIncreaseAndGiveBackTheRest() {
+        Order order = submit(100, 10);
+        assertNull(amend(order, 110.0, 20));
+        assertExposure(1, 2200);
+        assertNull(amend(order, null, 5));
+        assertExposure(1, 550);
+        exchange.cancelOrder(order.getOrderId());
+        assertExposure(0, 0);
+    }
+
+    @Test
+    void rejectedReservationsLeaveNothingBehind() {
+        Order order = submit(100, 60);
+        assertNotNull(risk.reserve("t", "AAPL", 100, 50));
+        assertExposure(1, 6000);
+        assertNotNull(amend(order, null, 101));
+        assertExposure(1, 6000);
+    }
+
+    @Test
+    void reservationForAnOrderAlreadyGoneIsGivenBack() {
+        Order order = submit(100, 10);
+        OrderView view = exchange.getOrderView(order.getOrderId());
+        long increase = PreTradeRisk.amendIncrease(view, null, 30);
+        assertNull(risk.checkAmend(view, null, 30, increase));
+        assertExposure(1, 3000);
+
+        exchange.cancelOrder(order.getOrderId());
+        exchange.amendOrder(order.getOrderId(), null, 30, view.traderId(), increase);
+        assertExposure(0, 0);
+    }
+
+    private Order submit(double price, int quantity) {
+        Order order = new Order("AAPL", OrderType.BUY, price, quantity, "t");
+        assertNull(risk.reserve("t", "AAPL", price, quantity));
+        order.reserveExposure();
+        exchange.submitOrder(order);
+        return order;
+    }
+
+    // As the controller does: size the change from the published view, reserve it, then amend.
+    private String amend(Order order, Double newPrice, Integer newQuantity) {
+        OrderView view = exchange.getOrderView(order.getOrderId());
+        long increase = PreTradeRisk.amendIncrease(view, newPrice, newQuantity);
+        String rejected = risk.checkAmend(view, newPrice, newQuantity, increase);
+        if (rejected == null) exchange.amendOrder(order.getOrderId(), newPrice, newQuantity, view.traderId(), increase);
+        return rejected;
+    }
+
+    private void assertExposure(int openOrders, double openNotional) {
+        assertEquals(openOrders, risk.exposure("t").get("openOrders"));
+        assertEquals(openNotional, risk.exposure("t").get("openNotional"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.exchange.session;
+
+import com.example.exchange.engine.Order;
+import com.example.exchange.engine.OrderType;
+import com.example.exchange.engine.ReplayClock;
+import com.example.exchange.engine.StockExchange;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionMonitorTest {
+
+    private static final long START = 1_000_000;
+
+    private final ReplayClock clock = new ReplayClock();
+    private StockExchange exchange;
+    private SessionMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        clock.set(START, 0);
+        exchange = new StockExchange(clock, true, List.of("AAPL"));
+        exchange.setVerbose(false);
+        monitor = new SessionMonitor(exchange, 10);
+        rest("a");
+        rest("b");
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.shutdown();
+        exchange.shutdown();
+    }
+
+    @Test
+    void missedHeartbeatCancelsTheTradersOrders() throws InterruptedException {
+        monitor.heartbeat("a", 1000);
+        monitor.heartbeat("b", 1000);
+
+        clock.set(START + 900, 0);
+        monitor.heartbeat("b", 1000);
+        Thread.sleep(100);
+        exchange.flush();
+        assertEquals(2, exchange.getOrderBook("AAPL").bidCount());
+
+        clock.set(START + 1500, 0);
+        await(() -> exchange.getOrdersForTrader("a").isEmpty());
+        assertEquals(1, exchange.getOrdersForTrader("b").size());
+    }
+
+    @Test
+    void disconnectCancelsOnlyForTradersThatOptedIn() {
+        monitor.heartbeat("a", 60_000);
+        monitor.disconnect("a");
+        monitor.disconnect("b");
+        exchange.flush();
+        assertTrue(exchange.getOrdersForTrader("a").isEmpty());
+        assertEquals(1, exchange.getOrdersForTrader("b").size());
+    }
+
+    @Test
+    void traderWithoutHeartbeatsIsNeverTimedOut() throws InterruptedException {
+        clock.set(START + 3_600_000, 0);
+        Thread.sleep(100);
+        exchange.flush();
+        assertEquals(2, exchange.getOrderBook("AAPL").bidCount());
+    }
+
+    private void rest(String traderId) {
+        exchange.submitOrder(new Order("AAPL", OrderType.BUY, 100, 1, traderId));
+        exchange.flush();
+    }
+
+    private void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            exchange.flush();
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}